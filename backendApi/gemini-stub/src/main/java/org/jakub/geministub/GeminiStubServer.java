@@ -0,0 +1,319 @@
+package org.jakub.geministub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the Gemini {@code generateContent} and {@code streamGenerateContent} endpoints, so the
+ * backend's AI pipeline (retries, model fallback, hedging, streaming) can be load-tested without network or
+ * quota. Point the backend at {@link #baseUrl()} through {@code GEMINI_API_BASE_URL}.
+ *
+ * <p>Run standalone with {@code ./gradlew :gemini-stub:run --args="--port=8089 --latency=lognormal:1800,0.5"}
+ * or embed it in a test with {@link #start(StubSettings)}.
+ */
+public final class GeminiStubServer implements AutoCloseable {
+
+    private static final String MODELS_PATH = "/v1beta/models/";
+    private static final Pattern BATCH_PROMPT_COUNT = Pattern.compile("Generate (\\d+) truly different recipes");
+    private static final Pattern REVIEW_CANDIDATES = Pattern.compile("candidateMissingIngredients:\\s*(\\[.*?])\\s*fridgeItems:", Pattern.DOTALL);
+
+    private final StubSettings settings;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Recordings recordings;
+    private final Random random;
+    private final HttpClient upstream;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+
+    private GeminiStubServer(StubSettings settings) throws IOException {
+        this.settings = settings;
+        this.recordings = new Recordings(objectMapper, settings.recordingsDir());
+        this.random = new Random(settings.seed());
+        this.upstream = settings.recording()
+                ? HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build()
+                : null;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", settings.port()), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "gemini-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(MODELS_PATH, this::handle);
+    }
+
+    public static GeminiStubServer start(StubSettings settings) throws IOException {
+        GeminiStubServer stub = new GeminiStubServer(settings);
+        stub.server.start();
+        return stub;
+    }
+
+    public static void main(String[] args) throws IOException {
+        GeminiStubServer stub = start(StubSettings.fromArgs(args));
+        System.out.println("Gemini stub listening on " + stub.baseUrl()
+                + (stub.settings.recording() ? " (recording from " + stub.settings.upstreamBaseUrl() + ")" : ""));
+    }
+
+    /**
+     * The value for {@code gemini.api.base-url}.
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1beta";
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            int actionSeparator = path.lastIndexOf(':');
+            if (!"POST".equals(exchange.getRequestMethod()) || actionSeparator < MODELS_PATH.length()) {
+                sendError(exchange, 404, "NOT_FOUND", "Unknown endpoint " + path);
+                return;
+            }
+
+            String model = path.substring(MODELS_PATH.length(), actionSeparator);
+            String action = path.substring(actionSeparator + 1);
+            boolean streaming = "streamGenerateContent".equals(action);
+            if (!streaming && !"generateContent".equals(action)) {
+                sendError(exchange, 404, "NOT_FOUND", "Unknown action " + action);
+                return;
+            }
+
+            byte[] requestBody = exchange.getRequestBody().readAllBytes();
+            JsonNode request = objectMapper.readTree(requestBody);
+            StubOperation operation = StubOperation.of(request);
+
+            sleep(settings.latency().sampleMillis(random));
+            if (injectFailure(exchange, model)) {
+                return;
+            }
+
+            JsonNode response = settings.recording()
+                    ? forward(exchange, model, requestBody, operation)
+                    : replay(operation, request, requestBody);
+            if (response == null) {
+                return;
+            }
+
+            if (streaming) {
+                sendStream(exchange, response);
+            } else {
+                sendJson(exchange, 200, response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean injectFailure(HttpExchange exchange, String model) throws IOException {
+        if (settings.failingModels().contains(model)) {
+            sendError(exchange, 503, "UNAVAILABLE", "The model is overloaded. Please try again later.");
+            return true;
+        }
+        double roll = random.nextDouble();
+        if (roll < settings.throttledRate()) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            sendError(exchange, 429, "RESOURCE_EXHAUSTED", "Resource has been exhausted (e.g. check quota).");
+            return true;
+        }
+        if (roll < settings.throttledRate() + settings.serverErrorRate()) {
+            sendError(exchange, 503, "UNAVAILABLE", "The model is overloaded. Please try again later.");
+            return true;
+        }
+        return false;
+    }
+
+    // Streaming requests are recorded through generateContent and replayed in chunks like any other.
+    private JsonNode forward(HttpExchange exchange, String model, byte[] requestBody, StubOperation operation)
+            throws IOException, InterruptedException {
+        String apiKey = exchange.getRequestHeaders().getFirst("x-goog-api-key");
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(
+                        stripTrailingSlash(settings.upstreamBaseUrl()) + "/models/" + model + ":generateContent"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(requestBody));
+        if (apiKey != null) {
+            request.header("x-goog-api-key", apiKey);
+        }
+
+        HttpResponse<byte[]> upstreamResponse = upstream.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (upstreamResponse.statusCode() != 200) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            upstreamResponse.headers().firstValue("Retry-After")
+                    .ifPresent(retryAfter -> exchange.getResponseHeaders().set("Retry-After", retryAfter));
+            exchange.sendResponseHeaders(upstreamResponse.statusCode(), upstreamResponse.body().length);
+            exchange.getResponseBody().write(upstreamResponse.body());
+            return null;
+        }
+
+        JsonNode response = objectMapper.readTree(upstreamResponse.body());
+        recordings.record(operation, requestBody, response);
+        return response;
+    }
+
+    private JsonNode replay(StubOperation operation, JsonNode request, byte[] requestBody) throws IOException {
+        JsonNode exact = recordings.exact(operation, requestBody);
+        if (exact != null) {
+            return exact;
+        }
+
+        JsonNode recorded = recordings.next(operation);
+        return switch (operation) {
+            case RECIPE_GENERATION -> withResponseText(recorded, recipesFor(request, recorded));
+            case SHOPPING_LIST_REVIEW -> withResponseText(recorded, keepAllCandidatesMissing(request));
+            case RECEIPT_SCAN -> recorded;
+        };
+    }
+
+    // A rotated recording doesn't know how many recipes this request asked for, so its recipes are
+    // repeated or trimmed to the requested count and wrapped the way the backend expects.
+    private String recipesFor(JsonNode request, JsonNode recorded) throws IOException {
+        JsonNode recordedJson = objectMapper.readTree(responseText(recorded));
+        ArrayNode recipes = objectMapper.createArrayNode();
+        if (recordedJson.has("recipes")) {
+            recipes.addAll((ArrayNode) recordedJson.path("recipes"));
+        } else {
+            recipes.add(recordedJson);
+        }
+
+        int requestedCount = requestedRecipeCount(request);
+        if (requestedCount == 1) {
+            return objectMapper.writeValueAsString(recipes.path(0));
+        }
+
+        ObjectNode batch = objectMapper.createObjectNode();
+        ArrayNode batchRecipes = batch.putArray("recipes");
+        for (int index = 0; index < requestedCount; index++) {
+            batchRecipes.add(recipes.path(index % recipes.size()));
+        }
+        return objectMapper.writeValueAsString(batch);
+    }
+
+    // The conservative answer the review prompt asks for when unsure: every candidate is still missing.
+    private String keepAllCandidatesMissing(JsonNode request) throws IOException {
+        Matcher matcher = REVIEW_CANDIDATES.matcher(promptText(request));
+        ObjectNode review = objectMapper.createObjectNode();
+        ArrayNode missing = review.putArray("missingIngredientNames");
+        review.putArray("coveredIngredients");
+        if (matcher.find()) {
+            for (JsonNode candidate : objectMapper.readTree(matcher.group(1))) {
+                missing.add(candidate.path("name").asText(""));
+            }
+        }
+        return objectMapper.writeValueAsString(review);
+    }
+
+    private static int requestedRecipeCount(JsonNode request) {
+        JsonNode schemaCount = request.path("generationConfig").path("responseSchema")
+                .path("properties").path("recipes").path("minItems");
+        if (schemaCount.canConvertToInt()) {
+            return Math.max(1, schemaCount.asInt());
+        }
+
+        Matcher matcher = BATCH_PROMPT_COUNT.matcher(promptText(request));
+        return matcher.find() ? Math.max(1, Integer.parseInt(matcher.group(1))) : 1;
+    }
+
+    private void sendStream(HttpExchange exchange, JsonNode response) throws IOException, InterruptedException {
+        String text = responseText(response);
+        int chunks = Math.min(settings.streamChunks(), Math.max(1, text.length()));
+        int chunkLength = (text.length() + chunks - 1) / chunks;
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream body = exchange.getResponseBody();
+        for (int start = 0; start < text.length() || start == 0; start += chunkLength) {
+            if (start > 0) {
+                sleep(settings.streamChunkDelay().sampleMillis(random));
+            }
+            boolean last = start + chunkLength >= text.length();
+            JsonNode chunk = withResponseText(response, text.substring(start, Math.min(text.length(), start + chunkLength)));
+            if (!last) {
+                ((ObjectNode) chunk).remove("usageMetadata");
+            }
+            body.write(("data: " + objectMapper.writeValueAsString(chunk) + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            body.flush();
+            if (last) {
+                break;
+            }
+        }
+    }
+
+    private static String promptText(JsonNode request) {
+        return request.path("contents").path(0).path("parts").path(0).path("text").asText("");
+    }
+
+    private static String responseText(JsonNode response) {
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : response.path("candidates").path(0).path("content").path("parts")) {
+            text.append(part.path("text").asText(""));
+        }
+        return text.toString();
+    }
+
+    private JsonNode withResponseText(JsonNode response, String text) {
+        ObjectNode copy = response.deepCopy();
+        ObjectNode content = (ObjectNode) copy.path("candidates").path(0).path("content");
+        ArrayNode parts = objectMapper.createArrayNode();
+        parts.addObject().put("text", text);
+        content.set("parts", parts);
+        return copy;
+    }
+
+    private void sendError(HttpExchange exchange, int status, String reason, String message) throws IOException {
+        ObjectNode error = objectMapper.createObjectNode();
+        error.putObject("error")
+                .put("code", status)
+                .put("message", message)
+                .put("status", reason);
+        sendJson(exchange, status, error);
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
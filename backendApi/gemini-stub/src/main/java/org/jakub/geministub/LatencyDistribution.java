@@ -0,0 +1,65 @@
+package org.jakub.geministub;
+
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * Simulated response latency. Parsed from specs such as {@code none}, {@code fixed:800},
+ * {@code uniform:300-2500} or {@code lognormal:1800,0.5} (median in milliseconds and sigma); the
+ * log-normal one gives the long tail real Gemini latencies have.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    LatencyDistribution NONE = random -> 0;
+
+    long sampleMillis(RandomGenerator random);
+
+    static LatencyDistribution fixed(long millis) {
+        long delay = Math.max(0, millis);
+        return random -> delay;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        long min = Math.max(0, Math.min(minMillis, maxMillis));
+        long max = Math.max(min, Math.max(minMillis, maxMillis));
+        return random -> min == max ? min : random.nextLong(min, max + 1);
+    }
+
+    static LatencyDistribution logNormal(long medianMillis, double sigma) {
+        double mu = Math.log(Math.max(1, medianMillis));
+        double spread = Math.max(0, sigma);
+        return random -> Math.round(Math.exp(mu + spread * random.nextGaussian()));
+    }
+
+    static LatencyDistribution parse(String spec) {
+        if (spec == null || spec.isBlank() || "none".equalsIgnoreCase(spec.trim())) {
+            return NONE;
+        }
+
+        String normalized = spec.trim().toLowerCase(Locale.ROOT);
+        int separator = normalized.indexOf(':');
+        if (separator < 0) {
+            return fixed(Long.parseLong(normalized));
+        }
+
+        String kind = normalized.substring(0, separator);
+        String arguments = normalized.substring(separator + 1);
+        try {
+            return switch (kind) {
+                case "fixed" -> fixed(Long.parseLong(arguments));
+                case "uniform" -> {
+                    String[] bounds = arguments.split("-", 2);
+                    yield uniform(Long.parseLong(bounds[0].trim()), Long.parseLong(bounds[1].trim()));
+                }
+                case "lognormal" -> {
+                    String[] parameters = arguments.split(",", 2);
+                    yield logNormal(Long.parseLong(parameters[0].trim()), Double.parseDouble(parameters[1].trim()));
+                }
+                default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            };
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+        }
+    }
+}
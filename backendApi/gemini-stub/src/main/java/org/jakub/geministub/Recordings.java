@@ -0,0 +1,125 @@
+package org.jakub.geministub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Recorded {@code generateContent} responses. A response recorded for the exact request body is replayed
+ * for that body; any other request gets the operation's recordings in rotation. Files are named
+ * {@code <operation>-<request hash>.json}, or just {@code <operation>*.json} for hand-written ones.
+ */
+public final class Recordings {
+
+    private static final int REQUEST_HASH_LENGTH = 16;
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final Map<String, JsonNode> byRequestHash = new ConcurrentHashMap<>();
+    private final Map<StubOperation, List<JsonNode>> byOperation = new EnumMap<>(StubOperation.class);
+    private final Map<StubOperation, AtomicInteger> rotation = new EnumMap<>(StubOperation.class);
+
+    public Recordings(ObjectMapper objectMapper, Path directory) {
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        for (StubOperation operation : StubOperation.values()) {
+            byOperation.put(operation, new ArrayList<>());
+            rotation.put(operation, new AtomicInteger());
+        }
+        if (directory != null && Files.isDirectory(directory)) {
+            loadDirectory(directory);
+        }
+        for (StubOperation operation : StubOperation.values()) {
+            if (byOperation.get(operation).isEmpty()) {
+                byOperation.get(operation).add(loadBundled(operation));
+            }
+        }
+    }
+
+    /**
+     * The response recorded for exactly this request body, or null if there is none.
+     */
+    JsonNode exact(StubOperation operation, byte[] requestBody) {
+        return byRequestHash.get(operation.fileName() + "-" + requestHash(requestBody));
+    }
+
+    JsonNode next(StubOperation operation) {
+        List<JsonNode> candidates = byOperation.get(operation);
+        return candidates.get(Math.floorMod(rotation.get(operation).getAndIncrement(), candidates.size()));
+    }
+
+    void record(StubOperation operation, byte[] requestBody, JsonNode response) {
+        String name = operation.fileName() + "-" + requestHash(requestBody);
+        byRequestHash.put(name, response);
+        try {
+            Files.createDirectories(directory);
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(directory.resolve(name + ".json").toFile(), response);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write recording " + name, e);
+        }
+    }
+
+    private void loadDirectory(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .sorted()
+                    .forEach(this::loadFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read recordings from " + directory, e);
+        }
+    }
+
+    private void loadFile(Path file) {
+        String fileName = file.getFileName().toString();
+        String name = fileName.substring(0, fileName.length() - ".json".length());
+        for (StubOperation operation : StubOperation.values()) {
+            if (!name.startsWith(operation.fileName())) {
+                continue;
+            }
+            try {
+                JsonNode response = objectMapper.readTree(file.toFile());
+                byRequestHash.put(name, response);
+                byOperation.get(operation).add(response);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read recording " + file, e);
+            }
+            return;
+        }
+    }
+
+    private JsonNode loadBundled(StubOperation operation) {
+        String resource = "/recordings/" + operation.fileName() + ".json";
+        try (InputStream input = Recordings.class.getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalStateException("Missing bundled recording " + resource);
+            }
+            return objectMapper.readTree(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read bundled recording " + resource, e);
+        }
+    }
+
+    static String requestHash(byte[] requestBody) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(requestBody);
+            return HexFormat.of().formatHex(hash).substring(0, REQUEST_HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
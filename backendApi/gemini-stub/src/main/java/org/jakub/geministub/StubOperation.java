@@ -0,0 +1,31 @@
+package org.jakub.geministub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Locale;
+
+/**
+ * The backend's Gemini operations, told apart by the request payload since they all hit the same
+ * {@code generateContent} endpoint.
+ */
+public enum StubOperation {
+    RECIPE_GENERATION,
+    RECEIPT_SCAN,
+    SHOPPING_LIST_REVIEW;
+
+    static StubOperation of(JsonNode request) {
+        for (JsonNode part : request.path("contents").path(0).path("parts")) {
+            if (part.has("inline_data") || part.has("inlineData")) {
+                return RECEIPT_SCAN;
+            }
+            if (part.path("text").asText("").contains("reviewing a cooking app shopping list")) {
+                return SHOPPING_LIST_REVIEW;
+            }
+        }
+        return RECIPE_GENERATION;
+    }
+
+    String fileName() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
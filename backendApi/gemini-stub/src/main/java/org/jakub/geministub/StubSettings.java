@@ -0,0 +1,110 @@
+package org.jakub.geministub;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Stub server settings. {@code recordingsDir} adds recorded responses on top of the bundled ones, and
+ * with {@code upstreamBaseUrl} set the stub proxies every request there and records the responses into
+ * that directory instead of replaying.
+ */
+public record StubSettings(
+        int port,
+        Path recordingsDir,
+        String upstreamBaseUrl,
+        LatencyDistribution latency,
+        LatencyDistribution streamChunkDelay,
+        int streamChunks,
+        double throttledRate,
+        double serverErrorRate,
+        Set<String> failingModels,
+        long seed
+) {
+
+    public StubSettings {
+        streamChunks = Math.max(1, streamChunks);
+        throttledRate = clampRate(throttledRate);
+        serverErrorRate = clampRate(serverErrorRate);
+        failingModels = failingModels == null ? Set.of() : Set.copyOf(failingModels);
+    }
+
+    /**
+     * Instant replies from the bundled recordings on a random free port, without injected failures.
+     */
+    public static StubSettings defaults() {
+        return new StubSettings(0, null, null, LatencyDistribution.NONE, LatencyDistribution.NONE, 8, 0, 0, Set.of(), 42);
+    }
+
+    public StubSettings withLatency(LatencyDistribution latency, LatencyDistribution streamChunkDelay) {
+        return new StubSettings(port, recordingsDir, upstreamBaseUrl, latency, streamChunkDelay, streamChunks,
+                throttledRate, serverErrorRate, failingModels, seed);
+    }
+
+    public StubSettings withFailures(double throttledRate, double serverErrorRate, Set<String> failingModels) {
+        return new StubSettings(port, recordingsDir, upstreamBaseUrl, latency, streamChunkDelay, streamChunks,
+                throttledRate, serverErrorRate, failingModels, seed);
+    }
+
+    public StubSettings withRecordings(Path recordingsDir, String upstreamBaseUrl) {
+        return new StubSettings(port, recordingsDir, upstreamBaseUrl, latency, streamChunkDelay, streamChunks,
+                throttledRate, serverErrorRate, failingModels, seed);
+    }
+
+    /**
+     * Parses {@code --name=value} arguments, e.g. {@code --port=8089 --latency=lognormal:1800,0.5 --rate-429=0.05}.
+     */
+    public static StubSettings fromArgs(String[] args) {
+        StubSettings defaults = defaults();
+        int port = 8089;
+        Path recordingsDir = null;
+        String upstreamBaseUrl = null;
+        LatencyDistribution latency = defaults.latency();
+        LatencyDistribution streamChunkDelay = defaults.streamChunkDelay();
+        int streamChunks = defaults.streamChunks();
+        double throttledRate = 0;
+        double serverErrorRate = 0;
+        Set<String> failingModels = Set.of();
+        long seed = defaults.seed();
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "port" -> port = Integer.parseInt(value);
+                case "recordings" -> recordingsDir = Path.of(value);
+                case "record-from" -> upstreamBaseUrl = value;
+                case "latency" -> latency = LatencyDistribution.parse(value);
+                case "stream-chunk-delay" -> streamChunkDelay = LatencyDistribution.parse(value);
+                case "stream-chunks" -> streamChunks = Integer.parseInt(value);
+                case "rate-429" -> throttledRate = Double.parseDouble(value);
+                case "rate-5xx" -> serverErrorRate = Double.parseDouble(value);
+                case "failing-models" -> failingModels = Arrays.stream(value.split(","))
+                        .map(String::trim)
+                        .filter(model -> !model.isEmpty())
+                        .collect(Collectors.toSet());
+                case "seed" -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+
+        if (upstreamBaseUrl != null && recordingsDir == null) {
+            throw new IllegalArgumentException("--record-from needs --recordings to write to");
+        }
+        return new StubSettings(port, recordingsDir, upstreamBaseUrl, latency, streamChunkDelay, streamChunks,
+                throttledRate, serverErrorRate, failingModels, seed);
+    }
+
+    boolean recording() {
+        return upstreamBaseUrl != null;
+    }
+
+    private static double clampRate(double rate) {
+        return Math.max(0, Math.min(1, rate));
+    }
+}
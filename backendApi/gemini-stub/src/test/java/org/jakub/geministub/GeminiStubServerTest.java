@@ -0,0 +1,147 @@
+package org.jakub.geministub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiStubServerTest {
+
+    private static final String BATCH_REQUEST = """
+            {"contents":[{"parts":[{"text":"Pasta\\n- Generate 3 truly different recipes (not small variations)."}]}]}
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void replaysBundledRecipeShapedToTheRequestedCount() throws Exception {
+        try (GeminiStubServer stub = GeminiStubServer.start(StubSettings.defaults())) {
+            HttpResponse<String> response = post(stub, "test-model:generateContent", BATCH_REQUEST);
+
+            assertEquals(200, response.statusCode());
+            JsonNode recipes = objectMapper.readTree(text(objectMapper.readTree(response.body()))).path("recipes");
+            assertEquals(3, recipes.size());
+            assertTrue(recipes.path(2).path("ingredients").isArray());
+        }
+    }
+
+    @Test
+    void streamsTheRecordedTextInChunksWithUsageOnTheLastOne() throws Exception {
+        try (GeminiStubServer stub = GeminiStubServer.start(StubSettings.defaults())) {
+            HttpResponse<String> response = post(stub, "test-model:streamGenerateContent?alt=sse", BATCH_REQUEST);
+
+            List<JsonNode> chunks = response.body().lines()
+                    .filter(line -> line.startsWith("data: "))
+                    .map(line -> readTree(line.substring("data: ".length())))
+                    .toList();
+            assertEquals("text/event-stream", response.headers().firstValue("Content-Type").orElse(""));
+            assertEquals(8, chunks.size());
+            assertTrue(chunks.get(chunks.size() - 1).has("usageMetadata"));
+            assertTrue(chunks.stream().limit(chunks.size() - 1).noneMatch(chunk -> chunk.has("usageMetadata")));
+
+            StringBuilder streamed = new StringBuilder();
+            chunks.forEach(chunk -> streamed.append(text(chunk)));
+            assertEquals(3, objectMapper.readTree(streamed.toString()).path("recipes").size());
+        }
+    }
+
+    @Test
+    void injectsFailuresForFailingModelsAndByRate() throws Exception {
+        StubSettings settings = StubSettings.defaults().withFailures(1, 0, Set.of("broken-model"));
+        try (GeminiStubServer stub = GeminiStubServer.start(settings)) {
+            HttpResponse<String> broken = post(stub, "broken-model:generateContent", BATCH_REQUEST);
+            HttpResponse<String> throttled = post(stub, "test-model:generateContent", BATCH_REQUEST);
+
+            assertEquals(503, broken.statusCode());
+            assertEquals("UNAVAILABLE", objectMapper.readTree(broken.body()).path("error").path("status").asText());
+            assertEquals(429, throttled.statusCode());
+            assertEquals("1", throttled.headers().firstValue("Retry-After").orElse(""));
+        }
+    }
+
+    @Test
+    void replaysAnExactRecordingForTheSameRequestBody(@TempDir Path recordings) throws Exception {
+        String request = "{\"contents\":[{\"parts\":[{\"text\":\"Soup\"}]}]}";
+        String recorded = "{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"{\\\"name\\\":\\\"Recorded soup\\\"}\"}]}}]}";
+        Files.writeString(recordings.resolve("recipe-generation-" + Recordings.requestHash(request.getBytes()) + ".json"), recorded);
+
+        StubSettings settings = StubSettings.defaults().withRecordings(recordings, null);
+        try (GeminiStubServer stub = GeminiStubServer.start(settings)) {
+            HttpResponse<String> response = post(stub, "test-model:generateContent", request);
+
+            assertEquals("Recorded soup", objectMapper.readTree(text(objectMapper.readTree(response.body()))).path("name").asText());
+        }
+    }
+
+    @Test
+    void keepsEveryReviewCandidateMissing() throws Exception {
+        String prompt = """
+                You are reviewing a cooking app shopping list.
+
+                candidateMissingIngredients:
+                [{"name":"scallion","amount":2,"unit":"PIECES"},{"name":"rice","amount":200,"unit":"GRAMS"}]
+
+                fridgeItems:
+                [{"name":"green onion"}]
+                """;
+        String request = objectMapper.writeValueAsString(objectMapper.createObjectNode()
+                .set("contents", objectMapper.createArrayNode().add(objectMapper.createObjectNode()
+                        .set("parts", objectMapper.createArrayNode().add(objectMapper.createObjectNode().put("text", prompt))))));
+
+        try (GeminiStubServer stub = GeminiStubServer.start(StubSettings.defaults())) {
+            HttpResponse<String> response = post(stub, "test-model:generateContent", request);
+
+            JsonNode review = objectMapper.readTree(text(objectMapper.readTree(response.body())));
+            assertEquals(List.of("scallion", "rice"), objectMapper.convertValue(review.path("missingIngredientNames"), List.class));
+        }
+    }
+
+    @Test
+    void latencyDistributionsParseAndStayInRange() {
+        Random random = new Random(7);
+        LatencyDistribution uniform = LatencyDistribution.parse("uniform:100-200");
+        LatencyDistribution logNormal = LatencyDistribution.parse("lognormal:1000,0.5");
+
+        for (int sample = 0; sample < 1_000; sample++) {
+            long millis = uniform.sampleMillis(random);
+            assertTrue(millis >= 100 && millis <= 200);
+            assertTrue(logNormal.sampleMillis(random) > 0);
+        }
+        assertEquals(250, LatencyDistribution.parse("fixed:250").sampleMillis(random));
+        assertEquals(0, LatencyDistribution.parse("none").sampleMillis(random));
+    }
+
+    private HttpResponse<String> post(GeminiStubServer stub, String modelAction, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(stub.baseUrl() + "/models/" + modelAction))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String text(JsonNode response) {
+        return response.path("candidates").path(0).path("content").path("parts").path(0).path("text").asText();
+    }
+}
@@ -0,0 +1,56 @@
+package org.jakub.backendapi.config;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access-token validation throughput: building the HMAC {@link Algorithm} and verifier on every call, as
+ * {@code UserAuthProvider} used to, against the verifiers the {@link JwtKeyRing} builds once per key.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-0123456789-abcdefghij";
+
+    private final JwtKeyRing keyRing = new JwtKeyRing(SECRET, "primary", null);
+    private final String encodedSecret = Base64.getEncoder().encodeToString(SECRET.getBytes(StandardCharsets.UTF_8));
+    private String token;
+
+    @Setup(Level.Trial)
+    public void issueToken() {
+        token = keyRing.sign(JWT.create()
+                .withIssuer("cook@example.com")
+                .withClaim("type", "access")
+                .withClaim("role", "USER")
+                .withClaim("uid", 42L)
+                .withIssuedAt(new Date())
+                .withExpiresAt(new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(3))));
+    }
+
+    @Benchmark
+    public DecodedJWT verifierPerCall() {
+        return JWT.require(Algorithm.HMAC256(encodedSecret)).build().verify(token);
+    }
+
+    @Benchmark
+    public DecodedJWT keyRing() {
+        return keyRing.verify(token);
+    }
+}
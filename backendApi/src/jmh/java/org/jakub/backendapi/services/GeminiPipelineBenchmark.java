@@ -0,0 +1,93 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jakub.geministub.GeminiStubServer;
+import org.jakub.geministub.LatencyDistribution;
+import org.jakub.geministub.StubSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end recipe generation against the local Gemini stub: scheduling, retries on injected 5xx
+ * responses, model fallback and validation, with no network or quota. Sampled latencies show how the
+ * pipeline's tail responds to Gemini's latency distribution and error rate. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class GeminiPipelineBenchmark {
+
+    @Param({"none", "lognormal:800,0.5"})
+    public String latency;
+
+    @Param({"0", "0.1"})
+    public double serverErrorRate;
+
+    @Param({"1", "3"})
+    public int recipeCount;
+
+    @Param({"SINGLE_SHOT", "FAN_OUT"})
+    public RecipeGenerationStrategy.Mode strategy;
+
+    private GeminiStubServer stub;
+    private GeminiService geminiService;
+
+    @Setup(Level.Trial)
+    public void startStub() throws IOException {
+        LatencyDistribution responseLatency = LatencyDistribution.parse(latency);
+        stub = GeminiStubServer.start(StubSettings.defaults()
+                .withLatency(responseLatency, LatencyDistribution.NONE)
+                .withFailures(0, serverErrorRate, Set.of()));
+
+        geminiService = new GeminiService(
+                new ObjectMapper(),
+                new RestTemplate(),
+                RecipeGenerationCache.disabled(),
+                GeminiConcurrencyLimiter.unlimited(),
+                GeminiCircuitBreakers.disabled(),
+                GeminiHedgingPolicy.disabled(),
+                GeminiCallScheduler.defaults(),
+                ReceiptImagePreprocessor.validationOnly(),
+                new RecipeGenerationStrategy(strategy, 2, 0, 2),
+                GeminiTelemetry.disabled()
+        );
+        setField("geminiBaseUrl", stub.baseUrl());
+        setField("geminiApiKey", "benchmark-key");
+        setField("geminiModel", "primary-model");
+        setField("geminiFallbackModel", "fallback-model");
+        setField("responseSchemaEnabled", true);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopStub() {
+        stub.close();
+    }
+
+    @Benchmark
+    public String generateRecipes() {
+        return geminiService.generateRecipes("Quick pasta dinner", recipeCount);
+    }
+
+    private void setField(String name, Object value) {
+        Field field = ReflectionUtils.findField(GeminiService.class, name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, geminiService, value);
+    }
+}
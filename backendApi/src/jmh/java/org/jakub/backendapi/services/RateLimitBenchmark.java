@@ -0,0 +1,80 @@
+package org.jakub.backendapi.services;
+
+import org.jakub.backendapi.exceptions.AppException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate-limit checks spread over a million distinct client keys, as during a credential-stuffing run from
+ * many addresses, and concentrated on a single hot key. The tracked-key count and heap in use after a GC
+ * are printed after each iteration and stay flat at the {@code maxKeys} cap however many keys pass
+ * through. Run with {@code ./gradlew jmh}; add {@code -prof gc} for allocation per check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class RateLimitBenchmark {
+
+    private static final long WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    @Param({"1000000"})
+    public int distinctKeys;
+
+    @Param({"100000"})
+    public long maxKeys;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private String[] keys;
+    private RateLimitService rateLimitService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = new String[distinctKeys];
+        for (int i = 0; i < distinctKeys; i++) {
+            keys[i] = "login_10." + (i >>> 16 & 0xFF) + "." + (i >>> 8 & 0xFF) + "." + (i & 0xFF);
+        }
+        rateLimitService = new RateLimitService(maxKeys, Clock.systemUTC(), null);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportFootprint() {
+        System.gc();
+        long heapUsedMb = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+        System.out.printf("%n  tracked keys: %d, heap used after GC: %d MB%n", rateLimitService.trackedKeys(), heapUsedMb);
+    }
+
+    @Benchmark
+    public boolean distinctKeys() {
+        String key = keys[(int) (sequence.getAndIncrement() % distinctKeys)];
+        return check(key);
+    }
+
+    @Benchmark
+    public boolean hotKey() {
+        return check(keys[0]);
+    }
+
+    private boolean check(String key) {
+        try {
+            rateLimitService.assertAllowed(key, 10, WINDOW_MILLIS, "Too many attempts");
+            return true;
+        } catch (AppException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building the receipt-scan request body the old way (bytes, base64 string, serialized map) with
+ * streaming the file through {@link StreamingBase64Value}. Run with {@code ./gradlew jmh}; the gc profiler's
+ * {@code gc.alloc.rate.norm} is the bytes allocated per request body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReceiptPayloadBenchmark {
+
+    private static final int RECEIPT_SIZE_BYTES = 5 * 1024 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Path receipt;
+
+    @Setup(Level.Trial)
+    public void writeReceipt() throws IOException {
+        byte[] bytes = new byte[RECEIPT_SIZE_BYTES];
+        new Random(11).nextBytes(bytes);
+        receipt = Files.createTempFile("receipt-benchmark", ".jpg");
+        Files.write(receipt, bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteReceipt() throws IOException {
+        Files.deleteIfExists(receipt);
+    }
+
+    @Benchmark
+    public void bufferedBase64Payload() throws IOException {
+        byte[] bytes = Files.readAllBytes(receipt);
+        Map<String, Object> inlineData = new HashMap<>();
+        inlineData.put("mime_type", "image/jpeg");
+        inlineData.put("data", Base64.getEncoder().encodeToString(bytes));
+        objectMapper.writeValue(OutputStream.nullOutputStream(), payload(inlineData));
+    }
+
+    @Benchmark
+    public void streamingBase64Payload() throws IOException {
+        Map<String, Object> inlineData = new HashMap<>();
+        inlineData.put("mime_type", "image/jpeg");
+        inlineData.put("data", new StreamingBase64Value(new FileSystemResource(receipt), Files.size(receipt)));
+        objectMapper.writeValue(OutputStream.nullOutputStream(), payload(inlineData));
+    }
+
+    private static Map<String, Object> payload(Map<String, Object> inlineData) {
+        List<Object> parts = new ArrayList<>();
+        parts.add(Map.of("text", "Extract receipt items."));
+        parts.add(Map.of("inline_data", inlineData));
+        return Map.of("contents", List.of(Map.of("parts", parts)));
+    }
+}
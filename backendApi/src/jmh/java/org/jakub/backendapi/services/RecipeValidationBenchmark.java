@@ -0,0 +1,68 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares validating generated recipes by parsing into a Jackson tree and serializing it again with the
+ * single-pass {@link com.fasterxml.jackson.core.JsonParser} validator, for 1 to 5 recipes per response.
+ * Run with {@code ./gradlew jmh}; {@code gc.alloc.rate.norm} is the bytes allocated per validation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecipeValidationBenchmark {
+
+    @Param({"1", "2", "3", "4", "5"})
+    public int recipeCount;
+
+    private final RecipeJsonValidator validator = new RecipeJsonValidator(new ObjectMapper());
+    private String payload;
+
+    @Setup(Level.Trial)
+    public void buildPayload() {
+        if (recipeCount == 1) {
+            payload = recipe(1);
+            return;
+        }
+        payload = IntStream.rangeClosed(1, recipeCount)
+                .mapToObj(RecipeValidationBenchmark::recipe)
+                .collect(Collectors.joining(",", "{\"recipes\":[", "]}"));
+    }
+
+    @Benchmark
+    public String treeValidator() {
+        return validator.validateTree(payload, recipeCount);
+    }
+
+    @Benchmark
+    public String streamingValidator() {
+        return validator.validate(payload, recipeCount);
+    }
+
+    // Roughly the size of a real Gemini recipe: a dozen ingredients and eight steps.
+    private static String recipe(int index) {
+        String ingredients = IntStream.rangeClosed(1, 12)
+                .mapToObj(ingredient -> "{\"name\":\"Ingredient " + ingredient + "\",\"amount\":" + (ingredient * 25)
+                        + ",\"unit\":\"GRAMS\"}")
+                .collect(Collectors.joining(","));
+        String instructions = IntStream.rangeClosed(1, 8)
+                .mapToObj(step -> "\"Step " + step + ": stir the pan over medium heat until everything is glossy and fragrant.\"")
+                .collect(Collectors.joining(","));
+        return "{\"name\":\"Recipe " + index + "\",\"description\":\"A hearty weeknight dish with plenty of vegetables.\","
+                + "\"timeToPrepare\":\"35 min\",\"ingredients\":[" + ingredients + "],\"instructions\":[" + instructions + "],"
+                + "\"nutrition\":{\"calories\":640,\"protein\":32.5,\"carbs\":71,\"fats\":18.2}}";
+    }
+}
@@ -0,0 +1,29 @@
+package org.jakub.backendapi.config;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.net.URI;
+
+/**
+ * Registers each request with the caller's {@link RequestAbortHandle}, since a blocking socket read in
+ * HttpClient ignores thread interrupts and only stops when the request itself is cancelled.
+ */
+public class AbortableHttpComponentsClientHttpRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    public AbortableHttpComponentsClientHttpRequestFactory(HttpClient httpClient) {
+        super(httpClient);
+    }
+
+    @Override
+    protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+        ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+        if (request instanceof HttpUriRequestBase cancellable) {
+            RequestAbortHandle.attachToCurrent(cancellable::cancel);
+        }
+        return request;
+    }
+}
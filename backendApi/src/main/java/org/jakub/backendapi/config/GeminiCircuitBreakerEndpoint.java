@@ -0,0 +1,24 @@
+package org.jakub.backendapi.config;
+
+import org.jakub.backendapi.services.GeminiCircuitBreakers;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "geminiCircuitBreakers")
+public class GeminiCircuitBreakerEndpoint {
+
+    private final GeminiCircuitBreakers circuitBreakers;
+
+    public GeminiCircuitBreakerEndpoint(GeminiCircuitBreakers circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @ReadOperation
+    public Map<String, GeminiCircuitBreakers.BreakerSnapshot> circuitBreakers() {
+        return circuitBreakers.snapshot();
+    }
+}
@@ -0,0 +1,111 @@
+package org.jakub.backendapi.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Locale;
+
+@Configuration
+public class GeminiHttpClientConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiHttpClientConfig.class);
+
+    @Value("${gemini.http.protocol:HTTP_1_1}")
+    private String protocol;
+
+    @Value("${gemini.http.connect-timeout-ms:10000}")
+    private long connectTimeoutMs;
+
+    @Value("${gemini.http.read-timeout-ms:45000}")
+    private long readTimeoutMs;
+
+    @Value("${gemini.http.pool.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${gemini.http.pool.max-connections-per-route:20}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${gemini.http.pool.acquire-timeout-ms:5000}")
+    private long poolAcquireTimeoutMs;
+
+    @Value("${gemini.http.pool.keep-alive-ms:60000}")
+    private long keepAliveMs;
+
+    @Value("${gemini.http.pool.connection-ttl-ms:300000}")
+    private long connectionTtlMs;
+
+    @Bean
+    public ClientHttpRequestFactory geminiClientHttpRequestFactory() {
+        if (isHttp2()) {
+            // HTTP/2 multiplexes requests over one connection, so pool and per-route limits do not apply.
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                    .build();
+
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+            log.info("Gemini HTTP transport: HTTP/2 (multiplexed), read timeout {} ms", readTimeoutMs);
+            return requestFactory;
+        }
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(Math.max(1, maxConnections))
+                .setMaxConnPerRoute(Math.max(1, Math.min(maxConnections, maxConnectionsPerRoute)))
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setTimeToLive(TimeValue.ofMilliseconds(connectionTtlMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAliveMs))
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAliveMs))
+                .build();
+
+        log.info(
+                "Gemini HTTP transport: HTTP/1.1 pool (max {}, per route {}), keep-alive {} ms, read timeout {} ms",
+                maxConnections,
+                maxConnectionsPerRoute,
+                keepAliveMs,
+                readTimeoutMs
+        );
+        return new AbortableHttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    @Bean
+    public RestTemplate geminiRestTemplate(
+            @Qualifier("geminiClientHttpRequestFactory") ClientHttpRequestFactory geminiClientHttpRequestFactory
+    ) {
+        return new RestTemplate(geminiClientHttpRequestFactory);
+    }
+
+    private boolean isHttp2() {
+        String normalized = protocol == null ? "" : protocol.trim().toUpperCase(Locale.ROOT).replace('.', '_').replace('/', '_');
+        return normalized.equals("HTTP_2") || normalized.equals("H2");
+    }
+}
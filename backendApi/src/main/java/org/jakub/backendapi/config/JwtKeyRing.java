@@ -0,0 +1,200 @@
+package org.jakub.backendapi.config;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HMAC signing keys by key id, with their {@link Algorithm} and {@link JWTVerifier} built once per key
+ * rather than per token. Tokens are signed with the active key and carry its id in the {@code kid}
+ * header; tokens issued before key ids existed are verified with the {@code secret-key} property key.
+ *
+ * <p>The optional key-ring file ({@code security.jwt.key-ring.file}) is a properties file with
+ * {@code active=<kid>} and one {@code keys.<kid>=<secret>} line per key, and is re-read when it changes.
+ * To rotate without logging anyone out, add the new key, then make it active once every instance has it,
+ * and remove the old key only after the longest-lived token signed with it has expired.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyRing.class);
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final String ACTIVE_PROPERTY = "active";
+    private static final String KEY_PROPERTY_PREFIX = "keys.";
+
+    private record Keys(String activeKeyId, Algorithm activeAlgorithm, Map<String, JWTVerifier> verifiers,
+                        JWTVerifier defaultVerifier) {
+    }
+
+    private final String defaultKeyId;
+    private final String defaultSecret;
+    private final Path keyRingFile;
+    private final ScheduledExecutorService reloadTimer;
+    private volatile Keys keys;
+    private volatile FileTime loadedFileTime;
+
+    @Autowired
+    public JwtKeyRing(
+            @Value("${security.jwt.token.secret-key}") String secretKey,
+            @Value("${security.jwt.token.key-id:primary}") String keyId,
+            @Value("${security.jwt.key-ring.file:}") String keyRingFile,
+            @Value("${security.jwt.key-ring.reload-interval-seconds:30}") long reloadIntervalSeconds
+    ) {
+        this.defaultKeyId = StringUtils.hasText(keyId) ? keyId.trim() : "primary";
+        this.defaultSecret = secretKey;
+        this.keyRingFile = StringUtils.hasText(keyRingFile) ? Path.of(keyRingFile.trim()) : null;
+        requireStrongSecret("security.jwt.token.secret-key", secretKey);
+        reload();
+
+        if (this.keyRingFile != null && reloadIntervalSeconds > 0) {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "jwt-key-ring-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleWithFixedDelay(this::reloadIfChanged, reloadIntervalSeconds, reloadIntervalSeconds, TimeUnit.SECONDS);
+            this.reloadTimer = timer;
+        } else {
+            this.reloadTimer = null;
+        }
+    }
+
+    JwtKeyRing(String secretKey, String keyId, Path keyRingFile) {
+        this(secretKey, keyId, keyRingFile == null ? "" : keyRingFile.toString(), 0);
+    }
+
+    public String activeKeyId() {
+        return keys.activeKeyId();
+    }
+
+    /**
+     * Signs the token with the active key, stamping its id into the {@code kid} header.
+     */
+    public String sign(JWTCreator.Builder token) {
+        Keys current = keys;
+        return token.withKeyId(current.activeKeyId()).sign(current.activeAlgorithm());
+    }
+
+    /**
+     * Verifies the token with the key named by its {@code kid} header.
+     */
+    public DecodedJWT verify(String token) {
+        DecodedJWT decodedJWT = JWT.decode(token);
+        Keys current = keys;
+        String keyId = decodedJWT.getKeyId();
+        JWTVerifier verifier = keyId == null ? current.defaultVerifier() : current.verifiers().get(keyId);
+        if (verifier == null) {
+            throw new JWTVerificationException("Unknown signing key: " + keyId);
+        }
+        return verifier.verify(decodedJWT);
+    }
+
+    /**
+     * Re-reads the key-ring file. A file that is missing or invalid leaves the current keys in place.
+     */
+    public synchronized void reload() {
+        Map<String, String> secrets = new LinkedHashMap<>();
+        secrets.put(defaultKeyId, defaultSecret);
+        String activeKeyId = defaultKeyId;
+
+        if (keyRingFile != null) {
+            try {
+                FileTime fileTime = Files.getLastModifiedTime(keyRingFile);
+                Properties properties = new Properties();
+                try (Reader reader = Files.newBufferedReader(keyRingFile, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                }
+                for (String name : properties.stringPropertyNames()) {
+                    if (name.startsWith(KEY_PROPERTY_PREFIX)) {
+                        String keyId = name.substring(KEY_PROPERTY_PREFIX.length());
+                        String secret = properties.getProperty(name).trim();
+                        requireStrongSecret("JWT key '" + keyId + "'", secret);
+                        secrets.put(keyId, secret);
+                    }
+                }
+                activeKeyId = properties.getProperty(ACTIVE_PROPERTY, defaultKeyId).trim();
+                if (!secrets.containsKey(activeKeyId)) {
+                    throw new IllegalStateException("Active JWT key '" + activeKeyId + "' is not in the key ring");
+                }
+                loadedFileTime = fileTime;
+            } catch (IOException | IllegalStateException e) {
+                if (keys == null) {
+                    throw new IllegalStateException("Could not load JWT key ring from " + keyRingFile, e);
+                }
+                log.warn("Keeping the current JWT keys, could not reload {}: {}", keyRingFile, e.getMessage());
+                return;
+            }
+        }
+
+        Map<String, JWTVerifier> verifiers = new LinkedHashMap<>();
+        Algorithm activeAlgorithm = null;
+        for (Map.Entry<String, String> secret : secrets.entrySet()) {
+            Algorithm algorithm = algorithm(secret.getValue());
+            verifiers.put(secret.getKey(), JWT.require(algorithm).build());
+            if (secret.getKey().equals(activeKeyId)) {
+                activeAlgorithm = algorithm;
+            }
+        }
+
+        Keys previous = keys;
+        keys = new Keys(activeKeyId, activeAlgorithm, Map.copyOf(verifiers), verifiers.get(defaultKeyId));
+        if (previous != null && !previous.activeKeyId().equals(activeKeyId)) {
+            log.info("JWT signing key rotated from '{}' to '{}'", previous.activeKeyId(), activeKeyId);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (reloadTimer != null) {
+            reloadTimer.shutdownNow();
+        }
+    }
+
+    private void reloadIfChanged() {
+        try {
+            FileTime fileTime = Files.getLastModifiedTime(keyRingFile);
+            if (!fileTime.equals(loadedFileTime)) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.warn("Could not check JWT key ring {}: {}", keyRingFile, e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Could not reload JWT key ring {}: {}", keyRingFile, e.getMessage());
+        }
+    }
+
+    // Same derivation as the single-secret setup, so tokens issued before the key ring keep verifying.
+    private static Algorithm algorithm(String secret) {
+        return Algorithm.HMAC256(Base64.getEncoder().encodeToString(secret.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void requireStrongSecret(String name, String secret) {
+        if (!StringUtils.hasText(secret) || secret.length() < MIN_SECRET_LENGTH) {
+            throw new IllegalStateException(name + " must be set and at least " + MIN_SECRET_LENGTH + " characters long");
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package org.jakub.backendapi.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -8,8 +11,41 @@ import org.springframework.stereotype.Component;
 @Component
 public class PasswordConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(PasswordConfig.class);
+    private static final int MIN_STRENGTH = 4;
+    private static final int MAX_CALIBRATED_STRENGTH = 16;
+
+    /**
+     * BCrypt with the configured work factor. With {@code target-hash-ms} set, the factor is raised from
+     * there until one hash on this machine would take about that long; existing hashes with a lower factor
+     * are upgraded on the user's next login.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${security.password-hashing.bcrypt-strength:10}") int strength,
+            @Value("${security.password-hashing.target-hash-ms:0}") long targetHashMs
+    ) {
+        int effectiveStrength = Math.max(MIN_STRENGTH, Math.min(MAX_CALIBRATED_STRENGTH, strength));
+        if (targetHashMs > 0) {
+            effectiveStrength = calibrateStrength(effectiveStrength, targetHashMs);
+        }
+        return new BCryptPasswordEncoder(effectiveStrength);
+    }
+
+    // Each step doubles the cost, so one timed hash at the floor is enough to estimate the rest.
+    static int calibrateStrength(int minStrength, long targetHashMs) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode("calibration");
+        long startedAt = System.nanoTime();
+        probe.encode("calibration");
+        long elapsedMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+
+        int strength = minStrength;
+        while (strength < MAX_CALIBRATED_STRENGTH && elapsedMs * 2 <= targetHashMs) {
+            strength++;
+            elapsedMs *= 2;
+        }
+        log.info("BCrypt work factor {} (about {} ms per hash, target {} ms)", strength, elapsedMs, targetHashMs);
+        return strength;
     }
 }
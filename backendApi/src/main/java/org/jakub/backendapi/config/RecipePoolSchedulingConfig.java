@@ -0,0 +1,11 @@
+package org.jakub.backendapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "recipe-pool.enabled", havingValue = "true")
+public class RecipePoolSchedulingConfig {
+}
@@ -0,0 +1,83 @@
+package org.jakub.backendapi.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Lets another thread abort the HTTP request a call is blocked on, e.g. the losing call of a hedged pair.
+ * Requests created by {@link AbortableHttpComponentsClientHttpRequestFactory} inside {@link #run} attach
+ * themselves to the handle; aborting closes the connection instead of waiting for the response. The thread
+ * inside {@link #run} is interrupted as well, for clients that stop on interrupts instead.
+ */
+public final class RequestAbortHandle {
+
+    private static final ThreadLocal<RequestAbortHandle> CURRENT = new ThreadLocal<>();
+
+    private Runnable abortAction;
+    private Thread runner;
+    private boolean runnerInterrupted;
+    private boolean aborted;
+
+    public <T> T run(Supplier<T> call) {
+        RequestAbortHandle previous = CURRENT.get();
+        CURRENT.set(this);
+        synchronized (this) {
+            runner = Thread.currentThread();
+        }
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+            synchronized (this) {
+                abortAction = null;
+                runner = null;
+                if (runnerInterrupted) {
+                    // The interrupt was meant for the aborted call, not for whatever the thread runs next.
+                    runnerInterrupted = false;
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    public void abort() {
+        Runnable action;
+        synchronized (this) {
+            if (aborted) {
+                return;
+            }
+            aborted = true;
+            action = abortAction;
+            if (runner != null) {
+                // Under the lock, so the interrupt cannot land after run() has returned.
+                runnerInterrupted = true;
+                runner.interrupt();
+            }
+        }
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    public synchronized boolean isAborted() {
+        return aborted;
+    }
+
+    static void attachToCurrent(Runnable abortAction) {
+        RequestAbortHandle handle = CURRENT.get();
+        if (handle == null) {
+            return;
+        }
+        boolean abortNow;
+        synchronized (handle) {
+            abortNow = handle.aborted;
+            handle.abortAction = abortNow ? null : abortAction;
+        }
+        if (abortNow) {
+            abortAction.run();
+        }
+    }
+}
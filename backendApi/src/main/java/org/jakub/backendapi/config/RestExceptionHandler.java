@@ -4,6 +4,7 @@ import org.jakub.backendapi.dto.ErrorDto;
 import org.jakub.backendapi.exceptions.AppException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -19,8 +20,11 @@ public class RestExceptionHandler {
     @ExceptionHandler(value = {AppException.class})
     @ResponseBody
     public ResponseEntity<ErrorDto> handleAppException(AppException e) {
-        return ResponseEntity.status(e.getCode())
-                .body(new ErrorDto(e.getMessage()));
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(e.getCode());
+        if (e.getRetryAfterSeconds() != null) {
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+        }
+        return response.body(new ErrorDto(e.getMessage()));
     }
 
     @ExceptionHandler(value = {MethodArgumentTypeMismatchException.class})
@@ -1,10 +1,7 @@
 package org.jakub.backendapi.config;
 
 import com.auth0.jwt.JWT;
-import com.auth0.jwt.JWTVerifier;
-import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
-import jakarta.annotation.PostConstruct;
 import org.jakub.backendapi.dto.UserDto;
 import org.jakub.backendapi.services.UserService;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,15 +14,11 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 @Component
 public class UserAuthProvider {
 
-    @Value("${security.jwt.token.secret-key}")
-    private String secretKey;
-
     @Value("${security.jwt.cookie.secure:true}")
     private boolean secureCookie;
 
@@ -33,37 +26,30 @@ public class UserAuthProvider {
     private String sameSite;
 
     private final UserService userService;
+    private final JwtKeyRing keyRing;
 
-    public UserAuthProvider(UserService userService) {
+    public UserAuthProvider(UserService userService, JwtKeyRing keyRing) {
         this.userService = userService;
-    }
-
-    @PostConstruct
-    protected void init() {
-        if (!StringUtils.hasText(secretKey) || secretKey.length() < 32) {
-            throw new IllegalStateException("security.jwt.token.secret-key must be set and at least 32 characters long");
-        }
-        secretKey = Base64.getEncoder().encodeToString(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.keyRing = keyRing;
     }
 
     public String createToken(String email) {
         UserDto userDto = userService.findByEmail(email);
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + 259_200_000);
-        return JWT.create()
+        return keyRing.sign(JWT.create()
                 .withIssuer(email)
                 .withClaim("type", "access")
                 .withClaim("role", userDto.getRole().name())
+                .withClaim("uid", userDto.getId())
                 .withIssuedAt(now)
-                .withExpiresAt(expirationDate)
-                .sign(Algorithm.HMAC256(secretKey));
+                .withExpiresAt(expirationDate));
     }
 
     public Authentication validateToken(String token) {
         DecodedJWT decodedJWT;
         try {
-            JWTVerifier verifier = JWT.require(Algorithm.HMAC256(secretKey)).build();
-            decodedJWT = verifier.verify(token);
+            decodedJWT = keyRing.verify(token);
         } catch (com.auth0.jwt.exceptions.JWTVerificationException e) {
             throw new BadCredentialsException("Invalid token", e);
         }
@@ -73,7 +59,12 @@ public class UserAuthProvider {
             throw new BadCredentialsException("Invalid token: Issuer missing.");
         }
 
-        UserDto user = userService.findByEmail(issuer);
+        UserDto user = userService.findPrincipalByEmail(issuer);
+        // Tokens issued to a deleted account must not authenticate a new account registered with the same email.
+        Long tokenUserId = decodedJWT.getClaim("uid").asLong();
+        if (tokenUserId != null && !tokenUserId.equals(user.getId())) {
+            throw new BadCredentialsException("Invalid token: Subject no longer matches the user.");
+        }
 
         List<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
         return new UsernamePasswordAuthenticationToken(user, null, authorities);
@@ -82,18 +73,16 @@ public class UserAuthProvider {
     public String createRefreshToken(String email) {
         Date now = new Date();
         Date expirationDate = new Date(now.getTime() + 604_800_000); // 7 days
-        return JWT.create()
+        return keyRing.sign(JWT.create()
                 .withIssuer(email)
                 .withClaim("type", "refresh")
                 .withIssuedAt(now)
-                .withExpiresAt(expirationDate)
-                .sign(Algorithm.HMAC256(secretKey));
+                .withExpiresAt(expirationDate));
     }
 
     public boolean isRefreshTokenInvalid(String token) {
         try {
-            JWTVerifier verifier = JWT.require(Algorithm.HMAC256(secretKey)).build();
-            DecodedJWT decodedJWT = verifier.verify(token);
+            DecodedJWT decodedJWT = keyRing.verify(token);
 
             return decodedJWT.getExpiresAt().before(new Date()) || !"refresh".equals(decodedJWT.getClaim("type").asString());
         } catch (Exception e) {
@@ -2,12 +2,15 @@ package org.jakub.backendapi.controllers;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.jakub.backendapi.dto.FridgeIngredientDto;
+import org.jakub.backendapi.dto.ReceiptScanJobDto;
 import org.jakub.backendapi.dto.UserDto;
 import org.jakub.backendapi.entities.FridgeIngredient;
 import org.jakub.backendapi.mappers.FridgeIngredientMapper;
 import org.jakub.backendapi.services.FridgeService;
 import org.jakub.backendapi.services.GeminiService;
 import org.jakub.backendapi.services.RateLimitService;
+import org.jakub.backendapi.services.ReceiptScanCache;
+import org.jakub.backendapi.services.ReceiptScanJobService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -16,10 +19,13 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.jakub.backendapi.config.JwtUtils.getLoginFromToken;
@@ -32,15 +38,19 @@ public class FridgeController {
     private final FridgeIngredientMapper fridgeIngredientMapper;
     private final GeminiService geminiService;
     private final RateLimitService rateLimitService;
+    private final ReceiptScanCache receiptScanCache;
+    private final ReceiptScanJobService receiptScanJobService;
 
     @Value("${security.trusted-proxy-ips:}")
     private String trustedProxyIps;
 
-    public FridgeController(FridgeService fridgeService, FridgeIngredientMapper fridgeIngredientMapper, GeminiService geminiService, RateLimitService rateLimitService) {
+    public FridgeController(FridgeService fridgeService, FridgeIngredientMapper fridgeIngredientMapper, GeminiService geminiService, RateLimitService rateLimitService, ReceiptScanCache receiptScanCache, ReceiptScanJobService receiptScanJobService) {
         this.fridgeService = fridgeService;
         this.fridgeIngredientMapper = fridgeIngredientMapper;
         this.geminiService = geminiService;
         this.rateLimitService = rateLimitService;
+        this.receiptScanCache = receiptScanCache;
+        this.receiptScanJobService = receiptScanJobService;
     }
 
     @GetMapping("/getFridgeIngredients")
@@ -72,17 +82,51 @@ public class FridgeController {
     }
 
     @PostMapping(value = "/scanFridgeReceipt", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<List<FridgeIngredientDto>> scanFridgeReceipt(@RequestPart("file") MultipartFile file, HttpServletRequest request) {
+    public CompletableFuture<ResponseEntity<List<FridgeIngredientDto>>> scanFridgeReceipt(@RequestPart("file") MultipartFile file, HttpServletRequest request) {
+        // Re-uploads of an already scanned photo are answered from the cache and do not count against the limit.
+        String fingerprint = receiptScanCache.fingerprint(file);
+        Optional<List<FridgeIngredientDto>> cached = receiptScanCache.find(fingerprint);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(cached.get()));
+        }
+
+        assertCanScanReceipt(resolveClientKey(request));
+        return geminiService.extractFridgeIngredientsFromReceiptAsync(file).thenApply(items -> {
+            receiptScanCache.put(fingerprint, items);
+            return ResponseEntity.ok(items);
+        });
+    }
+
+    @PostMapping(value = "/scanFridgeReceipt/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ReceiptScanJobDto> submitFridgeReceiptScan(@RequestPart("file") MultipartFile file, HttpServletRequest request) {
         String clientKey = resolveClientKey(request);
+        String fingerprint = receiptScanCache.fingerprint(file);
+        Optional<List<FridgeIngredientDto>> cached = receiptScanCache.find(fingerprint);
+        if (cached.isPresent()) {
+            return ResponseEntity.accepted().body(receiptScanJobService.completed(clientKey, cached.get()));
+        }
+
+        assertCanScanReceipt(clientKey);
+        return ResponseEntity.accepted().body(receiptScanJobService.submit(clientKey, file, fingerprint));
+    }
+
+    @GetMapping("/scanFridgeReceipt/jobs/{jobId}")
+    public ResponseEntity<ReceiptScanJobDto> getFridgeReceiptScan(@PathVariable String jobId, HttpServletRequest request) {
+        return ResponseEntity.ok(receiptScanJobService.getJob(resolveClientKey(request), jobId));
+    }
+
+    @GetMapping(value = "/scanFridgeReceipt/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeFridgeReceiptScan(@PathVariable String jobId, HttpServletRequest request) {
+        return receiptScanJobService.subscribe(resolveClientKey(request), jobId);
+    }
+
+    private void assertCanScanReceipt(String clientKey) {
         rateLimitService.assertAllowed(
                 "scanFridgeReceipt:" + clientKey,
                 RECEIPT_SCAN_LIMIT_PER_MINUTE,
                 60_000L,
                 "Too many receipt scans. Please wait and try again."
         );
-
-        List<FridgeIngredientDto> detectedItems = geminiService.extractFridgeIngredientsFromReceipt(file);
-        return ResponseEntity.ok(detectedItems);
     }
 
     private String resolveClientKey(HttpServletRequest request) {
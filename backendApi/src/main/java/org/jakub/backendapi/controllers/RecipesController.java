@@ -5,10 +5,13 @@ import org.jakub.backendapi.dto.RecipeDto;
 import org.jakub.backendapi.dto.RecipeResponseDto;
 import org.jakub.backendapi.dto.UserDto;
 import org.jakub.backendapi.dto.UserPreferencesDto;
+import org.jakub.backendapi.exceptions.AppException;
 import org.jakub.backendapi.services.GeminiService;
 import org.jakub.backendapi.services.PostHogService;
 import org.jakub.backendapi.services.RateLimitService;
+import org.jakub.backendapi.services.RecipePoolService;
 import org.jakub.backendapi.services.RecipeService;
+import org.jakub.backendapi.services.RecipeStreamingService;
 import org.jakub.backendapi.services.UserPreferencesService;
 import org.jakub.backendapi.services.UserService;
 import org.springframework.beans.factory.annotation.Value;
@@ -16,17 +19,22 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 
@@ -40,6 +48,8 @@ public class RecipesController {
     private final GeminiService geminiService;
     private final PostHogService postHogService;
     private final RateLimitService rateLimitService;
+    private final RecipeStreamingService recipeStreamingService;
+    private final RecipePoolService recipePoolService;
 
     @Value("${app.limits.generate-recipe-requests-per-minute:${GENERATE_RECIPE_LIMIT_PER_MINUTE:15}}")
     private int generateRecipeLimitPerMinute;
@@ -47,13 +57,15 @@ public class RecipesController {
     @Value("${security.trusted-proxy-ips:}")
     private String trustedProxyIps;
 
-    public RecipesController(RecipeService recipeService, UserService userService, UserPreferencesService userPreferencesService, GeminiService geminiService, PostHogService postHogService, RateLimitService rateLimitService) {
+    public RecipesController(RecipeService recipeService, UserService userService, UserPreferencesService userPreferencesService, GeminiService geminiService, PostHogService postHogService, RateLimitService rateLimitService, RecipeStreamingService recipeStreamingService, RecipePoolService recipePoolService) {
         this.recipeService = recipeService;
         this.userService = userService;
         this.userPreferencesService = userPreferencesService;
         this.geminiService = geminiService;
         this.postHogService = postHogService;
         this.rateLimitService = rateLimitService;
+        this.recipeStreamingService = recipeStreamingService;
+        this.recipePoolService = recipePoolService;
     }
 
     @PostMapping("/addRecipe")
@@ -128,21 +140,71 @@ public class RecipesController {
         return ResponseEntity.ok(recipeResponseDto);
     }
 
-    public record GenerateRecipeRequest(String fullPrompt, String prompt, Integer count) {
+    public record GenerateRecipeRequest(String fullPrompt, String prompt, Integer count, Boolean skipCache) {
     }
 
     @PostMapping("/generateRecipe")
-    public ResponseEntity<String> createRecipe(@RequestBody GenerateRecipeRequest recipeRequest, HttpServletRequest request) {
-        String recipePrompt = recipeRequest != null && StringUtils.hasText(recipeRequest.fullPrompt())
-                ? recipeRequest.fullPrompt()
-            : (recipeRequest != null ? recipeRequest.prompt() : null);
+    public CompletableFuture<ResponseEntity<String>> createRecipe(@RequestBody GenerateRecipeRequest recipeRequest, HttpServletRequest request) {
+        String recipePrompt = resolveRecipePrompt(recipeRequest);
         String userEmail = getAuthenticatedUserEmail();
         int recipeCount = recipeRequest != null && recipeRequest.count() != null ? recipeRequest.count() : 1;
 
         if (!StringUtils.hasText(recipePrompt)) {
-            return ResponseEntity.badRequest().body("Missing prompt. Provide 'fullPrompt' in request body.");
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body("Missing prompt. Provide 'fullPrompt' in request body.")
+            );
+        }
+
+        assertCanGenerateRecipes(userEmail, request);
+
+        UserPreferencesDto preferences = resolvePromptPreferences(userEmail);
+        String promptWithPreferences = appendPreferencesToPrompt(recipePrompt, preferences);
+
+        boolean useCache = !Boolean.TRUE.equals(recipeRequest.skipCache());
+        if (useCache) {
+            recipePoolService.recordRequest(promptWithPreferences, recipeCount);
+            Optional<String> pooledRecipes = recipePoolService.take(promptWithPreferences, recipeCount);
+            if (pooledRecipes.isPresent()) {
+                recordSuccessfulGeneration(userEmail, recipeCount, preferences);
+                return CompletableFuture.completedFuture(ResponseEntity.ok(pooledRecipes.get()));
+            }
         }
+        return geminiService.generateRecipesAsync(promptWithPreferences, recipeCount, useCache)
+                .thenApply(generatedRecipe -> {
+                    recordSuccessfulGeneration(userEmail, recipeCount, preferences);
+                    return ResponseEntity.ok(generatedRecipe);
+                });
+    }
+
+    @PostMapping(value = "/generateRecipe/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRecipe(@RequestBody GenerateRecipeRequest recipeRequest, HttpServletRequest request) {
+        String recipePrompt = resolveRecipePrompt(recipeRequest);
+        String userEmail = getAuthenticatedUserEmail();
+        int recipeCount = recipeRequest != null && recipeRequest.count() != null ? recipeRequest.count() : 1;
+
+        if (!StringUtils.hasText(recipePrompt)) {
+            throw new AppException("Missing prompt. Provide 'fullPrompt' in request body.", HttpStatus.BAD_REQUEST);
+        }
+
+        assertCanGenerateRecipes(userEmail, request);
 
+        UserPreferencesDto preferences = resolvePromptPreferences(userEmail);
+        recipePrompt = appendPreferencesToPrompt(recipePrompt, preferences);
+
+        return recipeStreamingService.streamRecipes(
+                recipePrompt,
+                recipeCount,
+                () -> recordSuccessfulGeneration(userEmail, recipeCount, preferences)
+        );
+    }
+
+    private String resolveRecipePrompt(GenerateRecipeRequest recipeRequest) {
+        return recipeRequest != null && StringUtils.hasText(recipeRequest.fullPrompt())
+                ? recipeRequest.fullPrompt()
+            : (recipeRequest != null ? recipeRequest.prompt() : null);
+    }
+
+    private void assertCanGenerateRecipes(String userEmail, HttpServletRequest request) {
         String clientKey = resolveClientKey(request);
         rateLimitService.assertAllowed(
             "generateRecipe:" + clientKey,
@@ -154,12 +216,9 @@ public class RecipesController {
         if (StringUtils.hasText(userEmail)) {
             userService.assertCanCreateRecipe(userEmail);
         }
+    }
 
-        UserPreferencesDto preferences = resolvePromptPreferences(userEmail);
-        recipePrompt = appendPreferencesToPrompt(recipePrompt, preferences);
-
-        String generatedRecipe = geminiService.generateRecipes(recipePrompt, recipeCount);
-
+    private void recordSuccessfulGeneration(String userEmail, int recipeCount, UserPreferencesDto preferences) {
         if (StringUtils.hasText(userEmail)) {
             userService.incrementDailyRecipeCount(userEmail);
             captureUserEvent(userEmail, "recipe_generation_succeeded", Map.of(
@@ -168,7 +227,6 @@ public class RecipesController {
                     "hasDislikedIngredients", preferences != null && preferences.getDislikedIngredients() != null && preferences.getDislikedIngredients().length > 0
             ));
         }
-        return ResponseEntity.ok(generatedRecipe);
     }
 
     private void captureUserEvent(String userEmail, String eventName, Map<String, Object> properties) {
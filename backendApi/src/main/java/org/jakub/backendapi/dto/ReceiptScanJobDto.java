@@ -0,0 +1,87 @@
+package org.jakub.backendapi.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+public class ReceiptScanJobDto {
+    private String jobId;
+    private String status;
+    private List<FridgeIngredientDto> items;
+    private String errorMessage;
+    private Integer errorStatus;
+
+    public ReceiptScanJobDto() {
+    }
+
+    public ReceiptScanJobDto(String jobId, String status, List<FridgeIngredientDto> items, String errorMessage, Integer errorStatus) {
+        this.jobId = jobId;
+        this.status = status;
+        this.items = items;
+        this.errorMessage = errorMessage;
+        this.errorStatus = errorStatus;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<FridgeIngredientDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<FridgeIngredientDto> items) {
+        this.items = items;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Integer getErrorStatus() {
+        return errorStatus;
+    }
+
+    public void setErrorStatus(Integer errorStatus) {
+        this.errorStatus = errorStatus;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReceiptScanJobDto that = (ReceiptScanJobDto) o;
+        return Objects.equals(jobId, that.jobId) && Objects.equals(status, that.status) && Objects.equals(items, that.items) && Objects.equals(errorMessage, that.errorMessage) && Objects.equals(errorStatus, that.errorStatus);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(jobId, status, items, errorMessage, errorStatus);
+    }
+
+    @Override
+    public String toString() {
+        return "ReceiptScanJobDto{" +
+                "jobId='" + jobId + '\'' +
+                ", status='" + status + '\'' +
+                ", items=" + items +
+                ", errorMessage='" + errorMessage + '\'' +
+                ", errorStatus=" + errorStatus +
+                '}';
+    }
+}
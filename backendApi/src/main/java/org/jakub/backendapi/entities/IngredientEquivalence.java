@@ -0,0 +1,98 @@
+package org.jakub.backendapi.entities;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "ingredient_equivalence")
+public class IngredientEquivalence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "first_name", nullable = false)
+    private String firstName;
+
+    @Column(name = "second_name", nullable = false)
+    private String secondName;
+
+    @Column(nullable = false)
+    private boolean equivalent;
+
+    @Column(nullable = false)
+    private int confirmations = 1;
+
+    @Column(name = "last_reviewer", length = 64)
+    private String lastReviewer;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public IngredientEquivalence() {
+    }
+
+    public IngredientEquivalence(String firstName, String secondName, boolean equivalent, Instant createdAt) {
+        this.firstName = firstName;
+        this.secondName = secondName;
+        this.equivalent = equivalent;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getSecondName() {
+        return secondName;
+    }
+
+    public void setSecondName(String secondName) {
+        this.secondName = secondName;
+    }
+
+    public boolean isEquivalent() {
+        return equivalent;
+    }
+
+    public void setEquivalent(boolean equivalent) {
+        this.equivalent = equivalent;
+    }
+
+    public int getConfirmations() {
+        return confirmations;
+    }
+
+    public void setConfirmations(int confirmations) {
+        this.confirmations = confirmations;
+    }
+
+    public String getLastReviewer() {
+        return lastReviewer;
+    }
+
+    public void setLastReviewer(String lastReviewer) {
+        this.lastReviewer = lastReviewer;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
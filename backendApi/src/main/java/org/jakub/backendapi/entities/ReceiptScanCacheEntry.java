@@ -0,0 +1,53 @@
+package org.jakub.backendapi.entities;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "receipt_scan_cache")
+public class ReceiptScanCacheEntry {
+
+    @Id
+    @Column(length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String items;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public ReceiptScanCacheEntry() {
+    }
+
+    public ReceiptScanCacheEntry(String fingerprint, String items, Instant createdAt) {
+        this.fingerprint = fingerprint;
+        this.items = items;
+        this.createdAt = createdAt;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public String getItems() {
+        return items;
+    }
+
+    public void setItems(String items) {
+        this.items = items;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
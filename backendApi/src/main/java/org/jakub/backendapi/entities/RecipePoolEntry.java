@@ -0,0 +1,87 @@
+package org.jakub.backendapi.entities;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "recipe_pool_entry")
+public class RecipePoolEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "prompt_key", nullable = false, length = 64)
+    private String promptKey;
+
+    @Column(name = "recipe_count", nullable = false)
+    private int recipeCount;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String recipes;
+
+    @Column(name = "served_count", nullable = false)
+    private int servedCount;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public RecipePoolEntry() {
+    }
+
+    public RecipePoolEntry(String promptKey, int recipeCount, String recipes, Instant createdAt) {
+        this.promptKey = promptKey;
+        this.recipeCount = recipeCount;
+        this.recipes = recipes;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPromptKey() {
+        return promptKey;
+    }
+
+    public void setPromptKey(String promptKey) {
+        this.promptKey = promptKey;
+    }
+
+    public int getRecipeCount() {
+        return recipeCount;
+    }
+
+    public void setRecipeCount(int recipeCount) {
+        this.recipeCount = recipeCount;
+    }
+
+    public String getRecipes() {
+        return recipes;
+    }
+
+    public void setRecipes(String recipes) {
+        this.recipes = recipes;
+    }
+
+    public int getServedCount() {
+        return servedCount;
+    }
+
+    public void setServedCount(int servedCount) {
+        this.servedCount = servedCount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -4,16 +4,26 @@ import org.springframework.http.HttpStatus;
 
 public class AppException extends RuntimeException {
     private final HttpStatus code;
+    private final Long retryAfterSeconds;
 
     public AppException(String message, HttpStatus code) {
+        this(message, code, null);
+    }
+
+    public AppException(String message, HttpStatus code, Long retryAfterSeconds) {
         super(message);
         this.code = code;
+        this.retryAfterSeconds = retryAfterSeconds;
     }
 
     public HttpStatus getCode() {
         return code;
     }
 
+    public Long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
     @Override
     public String getMessage() {
         return super.getMessage();
@@ -0,0 +1,11 @@
+package org.jakub.backendapi.repositories;
+
+import org.jakub.backendapi.entities.IngredientEquivalence;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface IngredientEquivalenceRepository extends JpaRepository<IngredientEquivalence, Long> {
+    List<IngredientEquivalence> findByFirstNameIn(Collection<String> firstNames);
+}
@@ -0,0 +1,12 @@
+package org.jakub.backendapi.repositories;
+
+import org.jakub.backendapi.entities.ReceiptScanCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface ReceiptScanCacheRepository extends JpaRepository<ReceiptScanCacheEntry, String> {
+    @Transactional
+    long deleteByCreatedAtBefore(Instant cutoff);
+}
@@ -0,0 +1,48 @@
+package org.jakub.backendapi.repositories;
+
+import org.jakub.backendapi.entities.RecipePoolEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RecipePoolEntryRepository extends JpaRepository<RecipePoolEntry, Long> {
+
+    Optional<RecipePoolEntry> findFirstByPromptKeyAndRecipeCountAndCreatedAtAfterAndServedCountLessThanOrderByServedCountAscCreatedAtDesc(
+            String promptKey,
+            int recipeCount,
+            Instant freshAfter,
+            int maxServes
+    );
+
+    long countByPromptKeyAndRecipeCountAndCreatedAtAfterAndServedCountLessThan(
+            String promptKey,
+            int recipeCount,
+            Instant freshAfter,
+            int maxServes
+    );
+
+    /**
+     * Counts one serve unless the batch has already been served {@code maxServes} times; returns the rows updated.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE RecipePoolEntry e
+            SET e.servedCount = e.servedCount + 1
+            WHERE e.id = :id AND e.servedCount < :maxServes
+            """)
+    int incrementServedCount(@Param("id") Long id, @Param("maxServes") int maxServes);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM RecipePoolEntry e
+            WHERE e.createdAt < :freshAfter OR e.servedCount >= :maxServes
+            """)
+    int deleteRetired(@Param("freshAfter") Instant freshAfter, @Param("maxServes") int maxServes);
+}
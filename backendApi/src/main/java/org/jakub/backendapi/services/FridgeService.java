@@ -24,12 +24,14 @@ public class FridgeService {
     private final UserRepository userRepository;
     private final FridgeIngredientMapper fridgeIngredientMapper;
     private final UserService userService;
+    private final ShoppingListReviewCache shoppingListReviewCache;
 
-    public FridgeService(FridgeIngredientRepository fridgeIngredientRepository, UserRepository userRepository, FridgeIngredientMapper fridgeIngredientMapper, UserService userService) {
+    public FridgeService(FridgeIngredientRepository fridgeIngredientRepository, UserRepository userRepository, FridgeIngredientMapper fridgeIngredientMapper, UserService userService, ShoppingListReviewCache shoppingListReviewCache) {
         this.fridgeIngredientRepository = fridgeIngredientRepository;
         this.userRepository = userRepository;
         this.fridgeIngredientMapper = fridgeIngredientMapper;
         this.userService = userService;
+        this.shoppingListReviewCache = shoppingListReviewCache;
     }
 
     public List<FridgeIngredientDto> getFridgeIngredients(String email) {
@@ -58,11 +60,15 @@ public class FridgeService {
         if (!mergeCandidates.isEmpty()) {
             FridgeIngredient existingIngredient = mergeCandidates.get(0);
             existingIngredient.setAmount(mergeAmounts(existingIngredient.getAmount(), fridgeIngredientDto.getAmount()));
-            return fridgeIngredientRepository.save(existingIngredient);
+            FridgeIngredient mergedIngredient = fridgeIngredientRepository.save(existingIngredient);
+            shoppingListReviewCache.invalidateUser(email);
+            return mergedIngredient;
         }
 
         FridgeIngredient fridgeIngredient = fridgeIngredientMapper.toFridgeIngredientWithUser(fridgeIngredientDto, user);
-        return fridgeIngredientRepository.save(fridgeIngredient);
+        FridgeIngredient savedIngredient = fridgeIngredientRepository.save(fridgeIngredient);
+        shoppingListReviewCache.invalidateUser(email);
+        return savedIngredient;
     }
 
     public void deleteFridgeIngredient(Long id, String email) {
@@ -73,6 +79,7 @@ public class FridgeService {
             throw new AppException("You do not have permission to delete this fridge ingredient", HttpStatus.FORBIDDEN);
         }
         fridgeIngredientRepository.deleteById(id);
+        shoppingListReviewCache.invalidateUser(email);
 
         fridgeIngredientMapper.toFridgeIngredientDto(fridgeIngredient);
     }
@@ -88,6 +95,7 @@ public class FridgeService {
             throw new AppException("You do not have permission to change this fridge ingredient", HttpStatus.FORBIDDEN);
         }
 
+        shoppingListReviewCache.invalidateUser(email);
         if (amount == 0) {
             fridgeIngredientRepository.deleteById(id);
             return;
@@ -116,6 +124,7 @@ public class FridgeService {
             throw new AppException("You do not have permission to change this fridge ingredient", HttpStatus.FORBIDDEN);
         }
 
+        shoppingListReviewCache.invalidateUser(email);
         if (amount != null && amount == 0) {
             fridgeIngredientRepository.deleteById(id);
             return null;
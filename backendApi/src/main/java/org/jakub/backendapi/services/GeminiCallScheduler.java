@@ -0,0 +1,166 @@
+package org.jakub.backendapi.services;
+
+import jakarta.annotation.PreDestroy;
+import org.jakub.backendapi.exceptions.AppException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs Gemini calls off the servlet threads and schedules their retries on a timer, so a request in
+ * backoff holds no thread at all. Retry delays use exponential backoff with jitter and honor Retry-After.
+ */
+@Service
+public class GeminiCallScheduler {
+
+    private static final String BUSY_MESSAGE = "AI service is busy right now. Please try again shortly.";
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService timer;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long maxRetryAfterMillis;
+
+    @Autowired
+    public GeminiCallScheduler(
+            @Value("${gemini.calls.pool-size:32}") int poolSize,
+            @Value("${gemini.calls.queue-capacity:200}") int queueCapacity,
+            @Value("${gemini.retry.base-delay-ms:300}") long baseDelayMillis,
+            @Value("${gemini.retry.max-delay-ms:5000}") long maxDelayMillis,
+            @Value("${gemini.retry.max-retry-after-ms:20000}") long maxRetryAfterMillis
+    ) {
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.maxRetryAfterMillis = Math.max(0, maxRetryAfterMillis);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        int workerCount = Math.max(1, poolSize);
+        this.workers = new ThreadPoolExecutor(
+                workerCount,
+                workerCount,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "gemini-call-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        this.workers.allowCoreThreadTimeOut(true);
+
+        ScheduledThreadPoolExecutor retryTimer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "gemini-retry-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryTimer.setRemoveOnCancelPolicy(true);
+        this.timer = retryTimer;
+    }
+
+    static GeminiCallScheduler defaults() {
+        return new GeminiCallScheduler(4, 50, 300, 5_000, 20_000);
+    }
+
+    /**
+     * Starts an asynchronous Gemini pipeline on a worker thread; the returned future completes with its
+     * result. Fails with 503 when the worker pool and its queue are full.
+     */
+    public <T> CompletableFuture<T> dispatch(Supplier<CompletableFuture<T>> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, workers).thenCompose(future -> future);
+        } catch (RejectedExecutionException e) {
+            throw new AppException(BUSY_MESSAGE, HttpStatus.SERVICE_UNAVAILABLE, 5L);
+        }
+    }
+
+    /**
+     * Runs {@code task} on a worker thread. Fails with 503 when the worker pool and its queue are full.
+     */
+    public void execute(Runnable task) {
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw new AppException(BUSY_MESSAGE, HttpStatus.SERVICE_UNAVAILABLE, 5L);
+        }
+    }
+
+    /**
+     * Runs {@code task} on a worker thread once {@code delayMillis} has passed. The timer thread only
+     * hands the task over, so it never blocks on I/O itself.
+     */
+    public void schedule(Runnable task, long delayMillis, Runnable onRejected) {
+        try {
+            timer.schedule(() -> {
+                try {
+                    workers.execute(task);
+                } catch (RejectedExecutionException e) {
+                    onRejected.run();
+                }
+            }, Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            onRejected.run();
+        }
+    }
+
+    /**
+     * Delay before retry number {@code attempt} (1-based). A Retry-After header wins over the computed
+     * backoff; returns -1 when it asks for a longer wait than we are willing to hold the request for.
+     */
+    public long retryDelayMillis(int attempt, HttpHeaders responseHeaders) {
+        long retryAfterMillis = parseRetryAfterMillis(responseHeaders);
+        if (retryAfterMillis > maxRetryAfterMillis) {
+            return -1;
+        }
+        if (retryAfterMillis >= 0) {
+            // Spread clients told to come back at the same instant.
+            return retryAfterMillis + ThreadLocalRandom.current().nextLong(baseDelayMillis + 1);
+        }
+
+        long exponential = Math.min(maxDelayMillis, baseDelayMillis << Math.min(20, Math.max(0, attempt - 1)));
+        long half = exponential / 2;
+        return half + ThreadLocalRandom.current().nextLong(exponential - half + 1);
+    }
+
+    static long parseRetryAfterMillis(HttpHeaders responseHeaders) {
+        String retryAfter = responseHeaders == null ? null : responseHeaders.getFirst(HttpHeaders.RETRY_AFTER);
+        if (!StringUtils.hasText(retryAfter)) {
+            return -1;
+        }
+
+        String value = retryAfter.trim();
+        if (value.chars().allMatch(Character::isDigit)) {
+            try {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+            } catch (NumberFormatException e) {
+                return Long.MAX_VALUE;
+            }
+        }
+
+        try {
+            return Math.max(0, responseHeaders.getFirstDate(HttpHeaders.RETRY_AFTER) - System.currentTimeMillis());
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,232 @@
+package org.jakub.backendapi.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * One circuit breaker per Gemini model, tracking the failure rate over a count-based sliding window.
+ * An open breaker rejects calls until its open duration passes, then lets a few trial calls through
+ * (half-open) and closes again only if all of them succeed.
+ */
+@Service
+public class GeminiCircuitBreakers {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiCircuitBreakers.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    public record BreakerSnapshot(
+            State state,
+            double failureRatePercent,
+            int recordedCalls,
+            long retryAfterMillis
+    ) {
+    }
+
+    private final boolean enabled;
+    private final int slidingWindowSize;
+    private final int minimumCalls;
+    private final int failureRateThresholdPercent;
+    private final long openDurationMillis;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, ModelBreaker> breakers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public GeminiCircuitBreakers(
+            @Value("${gemini.circuit-breaker.enabled:true}") boolean enabled,
+            @Value("${gemini.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${gemini.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${gemini.circuit-breaker.failure-rate-threshold:50}") int failureRateThresholdPercent,
+            @Value("${gemini.circuit-breaker.open-duration-ms:30000}") long openDurationMillis,
+            @Value("${gemini.circuit-breaker.half-open-calls:2}") int halfOpenCalls
+    ) {
+        this(enabled, slidingWindowSize, minimumCalls, failureRateThresholdPercent, openDurationMillis, halfOpenCalls,
+                System::currentTimeMillis);
+    }
+
+    GeminiCircuitBreakers(
+            boolean enabled,
+            int slidingWindowSize,
+            int minimumCalls,
+            int failureRateThresholdPercent,
+            long openDurationMillis,
+            int halfOpenCalls,
+            LongSupplier clock
+    ) {
+        this.enabled = enabled;
+        this.slidingWindowSize = Math.max(1, slidingWindowSize);
+        this.minimumCalls = Math.max(1, Math.min(this.slidingWindowSize, minimumCalls));
+        this.failureRateThresholdPercent = Math.max(1, Math.min(100, failureRateThresholdPercent));
+        this.openDurationMillis = Math.max(1, openDurationMillis);
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.clock = clock;
+    }
+
+    static GeminiCircuitBreakers disabled() {
+        return new GeminiCircuitBreakers(false, 1, 1, 100, 1, 1, System::currentTimeMillis);
+    }
+
+    public boolean tryAcquirePermission(String model) {
+        return !enabled || breaker(model).tryAcquire(clock.getAsLong());
+    }
+
+    public void onSuccess(String model) {
+        if (enabled) {
+            breaker(model).onSuccess(clock.getAsLong());
+        }
+    }
+
+    public void onFailure(String model) {
+        if (enabled) {
+            breaker(model).onFailure(clock.getAsLong());
+        }
+    }
+
+    /**
+     * Releases a half-open trial permit for a call whose outcome says nothing about the model's health.
+     */
+    public void onIgnored(String model) {
+        if (enabled) {
+            breaker(model).onIgnored();
+        }
+    }
+
+    public long retryAfterMillis(String model) {
+        return enabled ? breaker(model).retryAfterMillis(clock.getAsLong()) : 0L;
+    }
+
+    public Map<String, BreakerSnapshot> snapshot() {
+        long now = clock.getAsLong();
+        Map<String, BreakerSnapshot> snapshot = new TreeMap<>();
+        breakers.forEach((model, breaker) -> snapshot.put(model, breaker.snapshot(now)));
+        return snapshot;
+    }
+
+    private ModelBreaker breaker(String model) {
+        return breakers.computeIfAbsent(model, ModelBreaker::new);
+    }
+
+    private final class ModelBreaker {
+        private final String model;
+        private final boolean[] failures = new boolean[slidingWindowSize];
+        private int nextIndex;
+        private int recordedCalls;
+        private int failedCalls;
+        private State state = State.CLOSED;
+        private long stateChangedAt;
+        private int halfOpenInFlight;
+        private int halfOpenSucceeded;
+
+        private ModelBreaker(String model) {
+            this.model = model;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+
+            if (state == State.OPEN) {
+                if (now - stateChangedAt < openDurationMillis) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN, now);
+            } else if (now - stateChangedAt >= openDurationMillis && halfOpenSucceeded == 0) {
+                // Trial calls that never reported back must not pin the breaker in half-open forever.
+                halfOpenInFlight = 0;
+                stateChangedAt = now;
+            }
+
+            if (halfOpenInFlight >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenInFlight++;
+            return true;
+        }
+
+        synchronized void onSuccess(long now) {
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+                halfOpenSucceeded++;
+                if (halfOpenSucceeded >= halfOpenCalls) {
+                    transitionTo(State.CLOSED, now);
+                }
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+        }
+
+        synchronized void onFailure(long now) {
+            if (state == State.HALF_OPEN) {
+                transitionTo(State.OPEN, now);
+            } else if (state == State.CLOSED) {
+                record(true);
+                if (recordedCalls >= minimumCalls && failedCalls * 100 >= failureRateThresholdPercent * recordedCalls) {
+                    transitionTo(State.OPEN, now);
+                }
+            }
+        }
+
+        synchronized void onIgnored() {
+            if (state == State.HALF_OPEN) {
+                halfOpenInFlight = Math.max(0, halfOpenInFlight - 1);
+            }
+        }
+
+        synchronized long retryAfterMillis(long now) {
+            return state == State.OPEN ? Math.max(0, openDurationMillis - (now - stateChangedAt)) : 0L;
+        }
+
+        synchronized BreakerSnapshot snapshot(long now) {
+            double failureRate = recordedCalls == 0 ? 0 : failedCalls * 100.0 / recordedCalls;
+            return new BreakerSnapshot(state, failureRate, recordedCalls, retryAfterMillis(now));
+        }
+
+        private void record(boolean failed) {
+            if (recordedCalls == failures.length) {
+                if (failures[nextIndex]) {
+                    failedCalls--;
+                }
+            } else {
+                recordedCalls++;
+            }
+
+            failures[nextIndex] = failed;
+            if (failed) {
+                failedCalls++;
+            }
+            nextIndex = (nextIndex + 1) % failures.length;
+        }
+
+        private void transitionTo(State newState, long now) {
+            if (state != newState) {
+                log.warn("Gemini circuit breaker for model '{}' changed from {} to {}", model, state, newState);
+            }
+
+            state = newState;
+            stateChangedAt = now;
+            halfOpenInFlight = 0;
+            halfOpenSucceeded = 0;
+            if (newState == State.CLOSED) {
+                Arrays.fill(failures, false);
+                nextIndex = 0;
+                recordedCalls = 0;
+                failedCalls = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package org.jakub.backendapi.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jakub.backendapi.exceptions.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead for outbound Gemini calls. The concurrency limit grows additively while calls succeed
+ * quickly and shrinks multiplicatively on 429s or slow responses; callers beyond the limit wait in a
+ * bounded queue and are rejected with 503 and Retry-After once it is full or the wait times out.
+ */
+@Service
+public class GeminiConcurrencyLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiConcurrencyLimiter.class);
+    private static final String BUSY_MESSAGE = "AI service is busy right now. Please try again shortly.";
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final long retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private final ArrayDeque<CompletableFuture<Void>> asyncWaiters = new ArrayDeque<>();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private volatile double limit;
+    private volatile int inFlight;
+    private volatile int waiting;
+    private long lastDecreaseNanos;
+
+    @Autowired
+    public GeminiConcurrencyLimiter(
+            @Value("${gemini.limiter.enabled:true}") boolean enabled,
+            @Value("${gemini.limiter.initial-limit:10}") int initialLimit,
+            @Value("${gemini.limiter.min-limit:2}") int minLimit,
+            @Value("${gemini.limiter.max-limit:${gemini.calls.pool-size:32}}") int maxLimit,
+            @Value("${gemini.limiter.queue-capacity:50}") int queueCapacity,
+            @Value("${gemini.limiter.max-wait-ms:10000}") long maxWaitMs,
+            @Value("${gemini.limiter.latency-threshold-ms:20000}") long latencyThresholdMs,
+            @Value("${gemini.limiter.backoff-ratio:0.75}") double backoffRatio,
+            @Value("${gemini.limiter.retry-after-seconds:5}") long retryAfterSeconds,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        this(enabled, initialLimit, minLimit, maxLimit, queueCapacity, maxWaitMs, latencyThresholdMs, backoffRatio, retryAfterSeconds);
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            registerMetrics(registry);
+        }
+    }
+
+    GeminiConcurrencyLimiter(
+            boolean enabled,
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            int queueCapacity,
+            long maxWaitMs,
+            long latencyThresholdMs,
+            double backoffRatio,
+            long retryAfterSeconds
+    ) {
+        this.enabled = enabled;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, latencyThresholdMs));
+        this.backoffRatio = Math.min(0.95, Math.max(0.1, backoffRatio));
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+    }
+
+    static GeminiConcurrencyLimiter unlimited() {
+        return new GeminiConcurrencyLimiter(false, 1, 1, 1, 0, 0, 1, 0.5, 1);
+    }
+
+    public <T> T execute(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        acquire();
+        long startedAt = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            T result = call.get();
+            succeeded = true;
+            return result;
+        } finally {
+            release(succeeded, System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #execute(Supplier)}: the permit is held until the returned future
+     * completes, not just until {@code call} returns. A caller that has to wait for a permit does not block:
+     * it joins the queue and {@code call} is started on {@code executor} once a permit frees up, so waiters
+     * never occupy the threads that in-flight calls need for their retries.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call, Executor executor) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        CompletableFuture<Void> permit = acquireAsync();
+        if (permit.isDone()) {
+            return runWithPermit(call);
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        permit.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+                return;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        runWithPermit(call).whenComplete((value, callFailure) -> {
+                            if (callFailure != null) {
+                                result.completeExceptionally(callFailure);
+                            } else {
+                                result.complete(value);
+                            }
+                        });
+                    } catch (RuntimeException | Error e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                releasePermit();
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs {@code call} only if a permit is free right now, for optional work such as a hedged request that
+     * is better skipped than queued. Returns {@code null} without calling it when every permit is taken.
+     */
+    public <T> CompletableFuture<T> tryExecuteAsync(Supplier<CompletableFuture<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+
+        lock.lock();
+        try {
+            if (inFlight >= currentLimit()) {
+                return null;
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        return runWithPermit(call);
+    }
+
+    private <T> CompletableFuture<T> runWithPermit(Supplier<CompletableFuture<T>> call) {
+        long startedAt = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException | Error e) {
+            release(false, System.nanoTime() - startedAt);
+            throw e;
+        }
+        return future.whenComplete((result, failure) -> release(failure == null, System.nanoTime() - startedAt));
+    }
+
+    /**
+     * Signals that Gemini throttled a request; shrinks the limit at most once per second so a burst
+     * of 429s from calls already in flight does not collapse it to the minimum.
+     */
+    public void recordThrottled() {
+        if (!enabled) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            decreaseLimit("Gemini returned 429");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int currentLimit() {
+        return (int) limit;
+    }
+
+    int inFlight() {
+        return inFlight;
+    }
+
+    int queueDepth() {
+        return waiting;
+    }
+
+    private void acquire() {
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return;
+            }
+
+            if (waiting >= queueCapacity) {
+                throw reject();
+            }
+
+            waiting++;
+            try {
+                long remainingNanos = maxWaitNanos;
+                while (inFlight >= currentLimit()) {
+                    if (remainingNanos <= 0) {
+                        throw reject();
+                    }
+                    remainingNanos = permitReleased.awaitNanos(remainingNanos);
+                }
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AppException("Gemini request interrupted.", HttpStatus.INTERNAL_SERVER_ERROR);
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Completes immediately when a permit is free; otherwise queues the caller and fails the returned future
+    // with 503 if no permit frees up within the max wait.
+    private CompletableFuture<Void> acquireAsync() {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                waiter.complete(null);
+                return waiter;
+            }
+            if (waiting >= queueCapacity) {
+                throw reject();
+            }
+            waiting++;
+            asyncWaiters.addLast(waiter);
+        } finally {
+            lock.unlock();
+        }
+
+        CompletableFuture.delayedExecutor(maxWaitNanos, TimeUnit.NANOSECONDS).execute(() -> {
+            if (removeAsyncWaiter(waiter)) {
+                waiter.completeExceptionally(reject());
+            }
+        });
+        return waiter;
+    }
+
+    private boolean removeAsyncWaiter(CompletableFuture<Void> waiter) {
+        lock.lock();
+        try {
+            if (asyncWaiters.remove(waiter)) {
+                waiting--;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(boolean succeeded, long latencyNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (succeeded) {
+                if (latencyNanos > latencyThresholdNanos) {
+                    decreaseLimit("Gemini latency " + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + " ms");
+                } else {
+                    limit = Math.min(maxLimit, limit + 1.0 / limit);
+                }
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        grantAsyncWaiters();
+    }
+
+    private void releasePermit() {
+        lock.lock();
+        try {
+            inFlight--;
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        grantAsyncWaiters();
+    }
+
+    // Waiters are completed outside the lock because completing one runs its continuation.
+    private void grantAsyncWaiters() {
+        while (true) {
+            CompletableFuture<Void> waiter;
+            lock.lock();
+            try {
+                if (asyncWaiters.isEmpty() || inFlight >= currentLimit()) {
+                    return;
+                }
+                waiter = asyncWaiters.pollFirst();
+                waiting--;
+                inFlight++;
+            } finally {
+                lock.unlock();
+            }
+            if (!waiter.complete(null)) {
+                lock.lock();
+                try {
+                    inFlight--;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void decreaseLimit(String reason) {
+        long now = System.nanoTime();
+        if (lastDecreaseNanos != 0 && now - lastDecreaseNanos < DECREASE_COOLDOWN_NANOS) {
+            return;
+        }
+
+        lastDecreaseNanos = now;
+        double previousLimit = limit;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        if ((int) previousLimit != (int) limit) {
+            log.warn("{}; lowering Gemini concurrency limit from {} to {}", reason, (int) previousLimit, (int) limit);
+        }
+    }
+
+    private AppException reject() {
+        rejectedCount.incrementAndGet();
+        return new AppException(BUSY_MESSAGE, HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds);
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("gemini.limiter.limit", this, GeminiConcurrencyLimiter::currentLimit)
+                .description("Current adaptive concurrency limit for Gemini calls")
+                .register(registry);
+        Gauge.builder("gemini.limiter.in_flight", this, GeminiConcurrencyLimiter::inFlight)
+                .description("Gemini calls currently in flight")
+                .register(registry);
+        Gauge.builder("gemini.limiter.queue_depth", this, GeminiConcurrencyLimiter::queueDepth)
+                .description("Callers waiting for a Gemini permit")
+                .register(registry);
+        FunctionCounter.builder("gemini.limiter.rejected", rejectedCount, AtomicLong::get)
+                .description("Gemini calls rejected because the bulkhead was full")
+                .register(registry);
+    }
+}
@@ -0,0 +1,133 @@
+package org.jakub.backendapi.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides when a slow primary Gemini call should be hedged with the fallback model. The hedge delay is
+ * a percentile of recent primary latencies per operation, so only the slow tail pays for a second call.
+ */
+@Service
+public class GeminiHedgingPolicy {
+
+    private final Set<GeminiOperation> enabledOperations;
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long initialDelayMillis;
+    private final int minSamples;
+    private final Map<GeminiOperation, LatencyWindow> latencies = new EnumMap<>(GeminiOperation.class);
+
+    @Autowired
+    public GeminiHedgingPolicy(
+            @Value("${gemini.hedging.recipe-generation.enabled:false}") boolean recipeGenerationEnabled,
+            @Value("${gemini.hedging.receipt-scan.enabled:false}") boolean receiptScanEnabled,
+            @Value("${gemini.hedging.shopping-list-review.enabled:false}") boolean shoppingListReviewEnabled,
+            @Value("${gemini.hedging.percentile:95}") double percentile,
+            @Value("${gemini.hedging.min-delay-ms:1500}") long minDelayMillis,
+            @Value("${gemini.hedging.initial-delay-ms:8000}") long initialDelayMillis,
+            @Value("${gemini.hedging.sample-window:200}") int sampleWindow,
+            @Value("${gemini.hedging.min-samples:20}") int minSamples
+    ) {
+        this(
+                enabledOperations(recipeGenerationEnabled, receiptScanEnabled, shoppingListReviewEnabled),
+                percentile,
+                minDelayMillis,
+                initialDelayMillis,
+                sampleWindow,
+                minSamples
+        );
+    }
+
+    GeminiHedgingPolicy(
+            Set<GeminiOperation> enabledOperations,
+            double percentile,
+            long minDelayMillis,
+            long initialDelayMillis,
+            int sampleWindow,
+            int minSamples
+    ) {
+        this.enabledOperations = enabledOperations.isEmpty()
+                ? EnumSet.noneOf(GeminiOperation.class)
+                : EnumSet.copyOf(enabledOperations);
+        this.percentile = Math.max(1, Math.min(100, percentile));
+        this.minDelayMillis = Math.max(0, minDelayMillis);
+        this.initialDelayMillis = Math.max(this.minDelayMillis, initialDelayMillis);
+        int windowSize = Math.max(1, sampleWindow);
+        this.minSamples = Math.max(1, Math.min(windowSize, minSamples));
+        for (GeminiOperation operation : GeminiOperation.values()) {
+            latencies.put(operation, new LatencyWindow(windowSize));
+        }
+    }
+
+    static GeminiHedgingPolicy disabled() {
+        return new GeminiHedgingPolicy(Set.of(), 95, 0, 0, 1, 1);
+    }
+
+    public boolean isEnabled(GeminiOperation operation) {
+        return enabledOperations.contains(operation);
+    }
+
+    public long hedgeDelayMillis(GeminiOperation operation) {
+        long observed = latencies.get(operation).percentile(percentile, minSamples);
+        return observed < 0 ? initialDelayMillis : Math.max(minDelayMillis, observed);
+    }
+
+    /**
+     * Records how long a primary call took to complete. Calls cut short by a winning hedge are not recorded.
+     */
+    public void recordPrimaryLatency(GeminiOperation operation, long latencyMillis) {
+        latencies.get(operation).record(latencyMillis);
+    }
+
+    private static Set<GeminiOperation> enabledOperations(
+            boolean recipeGenerationEnabled,
+            boolean receiptScanEnabled,
+            boolean shoppingListReviewEnabled
+    ) {
+        Set<GeminiOperation> operations = EnumSet.noneOf(GeminiOperation.class);
+        if (recipeGenerationEnabled) {
+            operations.add(GeminiOperation.RECIPE_GENERATION);
+        }
+        if (receiptScanEnabled) {
+            operations.add(GeminiOperation.RECEIPT_SCAN);
+        }
+        if (shoppingListReviewEnabled) {
+            operations.add(GeminiOperation.SHOPPING_LIST_REVIEW);
+        }
+        return operations;
+    }
+
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int nextIndex;
+        private int size;
+
+        private LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        synchronized void record(long latencyMillis) {
+            samples[nextIndex] = Math.max(0, latencyMillis);
+            nextIndex = (nextIndex + 1) % samples.length;
+            size = Math.min(samples.length, size + 1);
+        }
+
+        synchronized long percentile(double percentile, int minSamples) {
+            if (size < minSamples) {
+                return -1;
+            }
+
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, rank))];
+        }
+    }
+}
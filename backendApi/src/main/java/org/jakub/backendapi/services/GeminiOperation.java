@@ -0,0 +1,17 @@
+package org.jakub.backendapi.services;
+
+public enum GeminiOperation {
+    RECIPE_GENERATION("Error creating recipe"),
+    RECEIPT_SCAN("Gemini receipt scan request failed"),
+    SHOPPING_LIST_REVIEW("Error reviewing shopping list ingredients");
+
+    private final String errorLabel;
+
+    GeminiOperation(String errorLabel) {
+        this.errorLabel = errorLabel;
+    }
+
+    public String getErrorLabel() {
+        return errorLabel;
+    }
+}
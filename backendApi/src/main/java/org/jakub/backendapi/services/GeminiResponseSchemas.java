@@ -0,0 +1,118 @@
+package org.jakub.backendapi.services;
+
+import org.jakub.backendapi.entities.Enums.Unit;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gemini {@code responseSchema} definitions (OpenAPI subset) for the JSON contracts the app parses, so the
+ * model is constrained to the expected shape instead of only being asked for it in the prompt.
+ */
+final class GeminiResponseSchemas {
+
+    private static final Map<String, Object> RECIPE = object(
+            properties(
+                    "name", type("STRING"),
+                    "description", type("STRING"),
+                    "timeToPrepare", type("STRING"),
+                    "ingredients", nonEmptyArray(object(
+                            properties(
+                                    "name", type("STRING"),
+                                    "amount", type("NUMBER"),
+                                    "unit", type("STRING")
+                            ),
+                            List.of("name", "amount", "unit")
+                    )),
+                    "instructions", nonEmptyArray(type("STRING")),
+                    "nutrition", object(
+                            properties(
+                                    "calories", type("NUMBER"),
+                                    "protein", type("NUMBER"),
+                                    "carbs", type("NUMBER"),
+                                    "fats", type("NUMBER")
+                            ),
+                            List.of("calories", "protein", "carbs", "fats")
+                    )
+            ),
+            List.of("name", "description", "timeToPrepare", "ingredients", "instructions", "nutrition")
+    );
+
+    private static final Map<String, Object> RECEIPT_ITEMS = object(
+            properties("items", array(object(
+                    properties(
+                            "name", type("STRING"),
+                            "amount", nullable(type("NUMBER")),
+                            "unit", nullable(enumOf(Arrays.stream(Unit.values()).map(Enum::name).toList()))
+                    ),
+                    List.of("name")
+            ))),
+            List.of("items")
+    );
+
+    private GeminiResponseSchemas() {
+    }
+
+    static Map<String, Object> recipe() {
+        return RECIPE;
+    }
+
+    static Map<String, Object> recipeBatch(int recipeCount) {
+        Map<String, Object> recipes = array(RECIPE);
+        recipes.put("minItems", recipeCount);
+        recipes.put("maxItems", recipeCount);
+        return object(properties("recipes", recipes), List.of("recipes"));
+    }
+
+    static Map<String, Object> receiptItems() {
+        return RECEIPT_ITEMS;
+    }
+
+    private static Map<String, Object> type(String type) {
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", type);
+        return schema;
+    }
+
+    private static Map<String, Object> object(Map<String, Object> properties, List<String> required) {
+        Map<String, Object> schema = type("OBJECT");
+        schema.put("properties", properties);
+        schema.put("required", required);
+        schema.put("propertyOrdering", List.copyOf(properties.keySet()));
+        return schema;
+    }
+
+    private static Map<String, Object> array(Map<String, Object> items) {
+        Map<String, Object> schema = type("ARRAY");
+        schema.put("items", items);
+        return schema;
+    }
+
+    private static Map<String, Object> nonEmptyArray(Map<String, Object> items) {
+        Map<String, Object> schema = array(items);
+        schema.put("minItems", 1);
+        return schema;
+    }
+
+    private static Map<String, Object> nullable(Map<String, Object> schema) {
+        schema.put("nullable", true);
+        return schema;
+    }
+
+    private static Map<String, Object> enumOf(List<String> values) {
+        Map<String, Object> schema = type("STRING");
+        schema.put("format", "enum");
+        schema.put("enum", values);
+        return schema;
+    }
+
+    private static Map<String, Object> properties(Object... namesAndSchemas) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (int index = 0; index < namesAndSchemas.length; index += 2) {
+            properties.put((String) namesAndSchemas[index], namesAndSchemas[index + 1]);
+        }
+        return properties;
+    }
+}
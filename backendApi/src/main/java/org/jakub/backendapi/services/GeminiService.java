@@ -6,8 +6,11 @@ import org.jakub.backendapi.dto.ShoppingListGenerationItemDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.jakub.backendapi.dto.FridgeIngredientDto;
+import org.jakub.backendapi.config.RequestAbortHandle;
 import org.jakub.backendapi.entities.Enums.Unit;
 import org.jakub.backendapi.exceptions.AppException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -24,19 +27,29 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class GeminiService {
@@ -45,44 +58,97 @@ public class GeminiService {
     private static final String GENERIC_GEMINI_ERROR_MESSAGE =
             "Recipe generation service is temporarily unavailable. Please try again later.";
 
-    private static final long MAX_RECEIPT_FILE_SIZE_BYTES = 5L * 1024L * 1024L;
-    private static final int MAX_IMAGE_DIMENSION = 6000;
     private static final int MAX_RETRY_ATTEMPTS = 3;
-    private static final int GEMINI_CONNECT_TIMEOUT_MS = 10_000;
-    private static final int GEMINI_READ_TIMEOUT_MS = 45_000;
+    private static final int DEFAULT_CONNECT_TIMEOUT_MS = 10_000;
+    private static final int DEFAULT_READ_TIMEOUT_MS = 45_000;
     private static final int MIN_RECIPE_COUNT = 1;
     private static final int MAX_RECIPE_COUNT = 5;
-    private static final String INVALID_RECIPE_JSON_MESSAGE =
-            "Gemini returned recipe JSON in an invalid format.";
+    private static final String DEFAULT_GEMINI_BASE_URL = "https://generativelanguage.googleapis.com/v1beta";
+    private static final String INVALID_RECIPE_JSON_MESSAGE = RecipeJsonValidator.INVALID_RECIPE_JSON_MESSAGE;
+    private static final List<String> FAN_OUT_DIVERSITY_HINTS = List.of(
+            "Lean towards a quick weeknight dish from a European cuisine.",
+            "Lean towards an Asian cuisine and a stir-fried, steamed or braised dish.",
+            "Lean towards a vegetable-forward dish built around a grain, legume or pasta base.",
+            "Lean towards a baked, roasted or one-pot dish.",
+            "Lean towards a Latin American, Middle Eastern or African cuisine with a bold flavor profile."
+    );
 
     private static final Set<String> SUPPORTED_UNITS =
             java.util.Arrays.stream(Unit.values()).map(Enum::name).collect(Collectors.toSet());
 
-    private static final Set<String> ALLOWED_IMAGE_CONTENT_TYPES = Set.of(
-            MediaType.IMAGE_JPEG_VALUE,
-            MediaType.IMAGE_PNG_VALUE,
-            "image/webp"
-    );
-
     @Value("${gemini.api.key}")
     private String geminiApiKey;
 
+    @Value("${gemini.api.base-url:" + DEFAULT_GEMINI_BASE_URL + "}")
+    private String geminiBaseUrl;
+
     @Value("${gemini.api.model:}")
     private String geminiModel;
 
     @Value("${gemini.api.fallback-model:}")
     private String geminiFallbackModel;
 
+    @Value("${gemini.api.response-schema-enabled:true}")
+    private boolean responseSchemaEnabled;
+
     private final ObjectMapper objectMapper;
     private final RestTemplate restTemplate;
-
-    public GeminiService(ObjectMapper objectMapper) {
+    private final RecipeGenerationCache recipeGenerationCache;
+    private final GeminiConcurrencyLimiter concurrencyLimiter;
+    private final GeminiCircuitBreakers circuitBreakers;
+    private final GeminiHedgingPolicy hedgingPolicy;
+    private final GeminiCallScheduler callScheduler;
+    private final ReceiptImagePreprocessor receiptImagePreprocessor;
+    private final RecipeGenerationStrategy recipeGenerationStrategy;
+    private final GeminiTelemetry telemetry;
+    private final RecipeJsonValidator recipeJsonValidator;
+
+    @Autowired
+    public GeminiService(
+            ObjectMapper objectMapper,
+            @Qualifier("geminiRestTemplate") RestTemplate restTemplate,
+            RecipeGenerationCache recipeGenerationCache,
+            GeminiConcurrencyLimiter concurrencyLimiter,
+            GeminiCircuitBreakers circuitBreakers,
+            GeminiHedgingPolicy hedgingPolicy,
+            GeminiCallScheduler callScheduler,
+            ReceiptImagePreprocessor receiptImagePreprocessor,
+            RecipeGenerationStrategy recipeGenerationStrategy,
+            GeminiTelemetry telemetry
+    ) {
         this.objectMapper = objectMapper;
+        this.restTemplate = restTemplate;
+        this.recipeGenerationCache = recipeGenerationCache;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.circuitBreakers = circuitBreakers;
+        this.hedgingPolicy = hedgingPolicy;
+        this.callScheduler = callScheduler;
+        this.receiptImagePreprocessor = receiptImagePreprocessor;
+        this.recipeGenerationStrategy = recipeGenerationStrategy;
+        this.telemetry = telemetry;
+        this.recipeJsonValidator = new RecipeJsonValidator(objectMapper);
+    }
+
+    GeminiService(ObjectMapper objectMapper) {
+        this(
+                objectMapper,
+                defaultRestTemplate(),
+                RecipeGenerationCache.disabled(),
+                GeminiConcurrencyLimiter.unlimited(),
+                GeminiCircuitBreakers.disabled(),
+                GeminiHedgingPolicy.disabled(),
+                GeminiCallScheduler.defaults(),
+                ReceiptImagePreprocessor.validationOnly(),
+                RecipeGenerationStrategy.singleShot(),
+                GeminiTelemetry.disabled()
+        );
+    }
 
+    private static RestTemplate defaultRestTemplate() {
         SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
-        requestFactory.setConnectTimeout(GEMINI_CONNECT_TIMEOUT_MS);
-        requestFactory.setReadTimeout(GEMINI_READ_TIMEOUT_MS);
-        this.restTemplate = new RestTemplate(requestFactory);
+        requestFactory.setConnectTimeout(DEFAULT_CONNECT_TIMEOUT_MS);
+        requestFactory.setReadTimeout(DEFAULT_READ_TIMEOUT_MS);
+        return new RestTemplate(requestFactory);
     }
 
     @jakarta.annotation.PostConstruct
@@ -95,16 +161,167 @@ public class GeminiService {
     }
 
     public String generateRecipe(String recipePrompt) {
-        return generateValidatedRecipeResponse(recipePrompt, 1);
+        return await(generateValidatedRecipeResponse(recipePrompt, 1));
     }
 
+    /**
+     * Generates recipes on the calling thread without consulting the recipe cache.
+     */
     public String generateRecipes(String recipePrompt, Integer requestedCount) {
+        return await(generateRecipesUncached(recipePrompt, normalizeRecipeCount(requestedCount)));
+    }
+
+    /**
+     * Non-blocking variant of {@link #generateRecipes(String, Integer)}: the Gemini call runs on a worker
+     * thread and retries are scheduled on a timer, so the calling request thread is released at once.
+     */
+    public CompletableFuture<String> generateRecipesAsync(String recipePrompt, Integer requestedCount, boolean useCache) {
+        int recipeCount = normalizeRecipeCount(requestedCount);
+        if (!useCache) {
+            return callScheduler.dispatch(() -> generateRecipesUncached(recipePrompt, recipeCount));
+        }
+
+        return recipeGenerationCache.getOrGenerateAsync(
+                recipePrompt,
+                recipeCount,
+                () -> callScheduler.dispatch(() -> generateRecipesUncached(recipePrompt, recipeCount))
+        );
+    }
+
+    private CompletableFuture<String> generateRecipesUncached(String recipePrompt, int recipeCount) {
+        if (recipeCount > 1 && recipeGenerationStrategy.shouldFanOut(recipeCount)) {
+            return generateRecipesFanOut(recipePrompt, recipeCount);
+        }
+
+        String prompt = recipeCount == 1 ? recipePrompt : buildBatchRecipePrompt(recipePrompt, recipeCount);
+        long startedAt = System.nanoTime();
+        return generateValidatedRecipeResponse(prompt, recipeCount).thenApply(response -> {
+            recipeGenerationStrategy.recordSingleShot(recipeCount, elapsedMillis(startedAt));
+            return response;
+        });
+    }
+
+    /**
+     * Sends one single-recipe call per requested recipe in parallel, each steered towards a different style,
+     * and merges the answers into the batch format. An invalid answer only resends its own leg.
+     */
+    private CompletableFuture<String> generateRecipesFanOut(String recipePrompt, int recipeCount) {
+        List<CompletableFuture<String>> legs = new ArrayList<>(recipeCount);
+        for (int index = 0; index < recipeCount; index++) {
+            String legPrompt = buildFanOutRecipePrompt(recipePrompt, index, recipeCount);
+            legs.add(generateFanOutLeg(legPrompt, 1));
+        }
+
+        // Every leg is already validated compact JSON, so the batch can be assembled without re-parsing.
+        return CompletableFuture.allOf(legs.toArray(CompletableFuture[]::new)).thenApply(ignored -> legs.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.joining(",", "{\"recipes\":[", "]}")));
+    }
+
+    private CompletableFuture<String> generateFanOutLeg(String legPrompt, int attempt) {
+        long startedAt = System.nanoTime();
+        // Each leg is dispatched separately because the first HTTP attempt runs on the dispatching thread.
+        return callScheduler.dispatch(() -> generateValidatedRecipeResponse(legPrompt, 1))
+                .thenApply(recipe -> {
+                    recipeGenerationStrategy.recordFanOutLeg(elapsedMillis(startedAt));
+                    return recipe;
+                })
+                .exceptionallyCompose(failure -> {
+                    Throwable cause = unwrapFailure(failure);
+                    boolean invalidAnswer = cause instanceof AppException appException
+                            && appException.getCode() == HttpStatus.BAD_GATEWAY;
+                    if (invalidAnswer && attempt < recipeGenerationStrategy.legAttempts()) {
+                        log.warn("Retrying fan-out recipe leg after attempt {} failed: {}", attempt, cause.getMessage());
+                        return generateFanOutLeg(legPrompt, attempt + 1);
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    private String buildFanOutRecipePrompt(String recipePrompt, int recipeIndex, int recipeCount) {
+        return recipePrompt + """
+
+                Additional requirement:
+                - This is recipe %d of %d generated in parallel for the same request, so make it distinctive.
+                - %s
+                - Keep the recipe realistic and fully cookable.
+                """.formatted(
+                recipeIndex + 1,
+                recipeCount,
+                FAN_OUT_DIVERSITY_HINTS.get(recipeIndex % FAN_OUT_DIVERSITY_HINTS.size())
+        );
+    }
+
+    private static long elapsedMillis(long startedAtNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAtNanos);
+    }
+
+    /**
+     * Streams recipe generation through {@code streamGenerateContent}, reporting raw text deltas and every
+     * recipe object as soon as it is complete and valid. Returns the fully validated response.
+     */
+    public String streamRecipes(String recipePrompt, Integer requestedCount, RecipeStreamListener listener) {
+        return streamRecipes(recipePrompt, requestedCount, listener, new RequestAbortHandle());
+    }
+
+    /**
+     * Like {@link #streamRecipes(String, Integer, RecipeStreamListener)}; aborting {@code abortHandle} cuts
+     * the connection to Gemini, e.g. once the client that would read the stream is gone.
+     */
+    public String streamRecipes(
+            String recipePrompt,
+            Integer requestedCount,
+            RecipeStreamListener listener,
+            RequestAbortHandle abortHandle
+    ) {
+        if (!StringUtils.hasText(geminiApiKey)) {
+            throw new AppException("Gemini API key is not configured on the server.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        if (!StringUtils.hasText(geminiModel)) {
+            throw new AppException("Gemini model is not configured on the server.", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
         int recipeCount = normalizeRecipeCount(requestedCount);
-        if (recipeCount == 1) {
-            return generateValidatedRecipeResponse(recipePrompt, 1);
+        String prompt = recipeCount == 1 ? recipePrompt : buildBatchRecipePrompt(recipePrompt, recipeCount);
+
+        // A single recipe is the root object; batches nest each recipe inside {"recipes":[...]}.
+        RecipeJsonStreamScanner scanner = new RecipeJsonStreamScanner(recipeCount == 1 ? 1 : 3);
+        StringBuilder fullText = new StringBuilder();
+        AtomicInteger completedRecipes = new AtomicInteger();
+
+        invokeGeminiStream(buildTextPromptPayload(prompt, recipeSchema(recipeCount)), GeminiOperation.RECIPE_GENERATION, abortHandle, textDelta -> {
+            fullText.append(textDelta);
+            listener.onText(textDelta);
+            for (String recipeJson : scanner.append(textDelta)) {
+                int recipeIndex = completedRecipes.incrementAndGet();
+                if (recipeIndex > recipeCount) {
+                    throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
+                }
+                listener.onRecipe(recipeIndex, parseStreamedRecipe(recipeJson));
+            }
+        });
+
+        if (!StringUtils.hasText(fullText)) {
+            throw new AppException("Gemini returned an empty recipe response.", HttpStatus.BAD_GATEWAY);
+        }
+
+        return parseAndValidateGeneratedRecipeResponse(fullText.toString(), recipeCount);
+    }
+
+    private JsonNode parseStreamedRecipe(String recipeJson) {
+        JsonNode recipeNode;
+        try {
+            recipeNode = objectMapper.readTree(recipeJson);
+        } catch (IOException e) {
+            throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
         }
 
-        String batchPrompt = recipePrompt + """
+        recipeJsonValidator.validateRecipeNode(recipeNode);
+        return recipeNode;
+    }
+
+    private String buildBatchRecipePrompt(String recipePrompt, int recipeCount) {
+        return recipePrompt + """
 
                 Additional requirement:
                 - Generate %d truly different recipes (not small variations).
@@ -115,11 +332,30 @@ public class GeminiService {
                 {"recipes":[{"name":string,"description":string,"timeToPrepare":string,"ingredients":[{"name":string,"amount":number,"unit":string}],"instructions":[string],"nutrition":{"calories":number,"protein":number,"carbs":number,"fats":number}}]}
                 - The recipes array must contain exactly %d items.
                 """.formatted(recipeCount, recipeCount);
+    }
+
+    /**
+     * Generates a single-shot batch, bypassing the cache, and reports the tokens Gemini billed for it.
+     * Used for pre-generation, which has to stay within a token budget.
+     */
+    public GeneratedRecipes generateRecipesWithUsage(String recipePrompt, Integer requestedCount) {
+        int recipeCount = normalizeRecipeCount(requestedCount);
+        String prompt = recipeCount == 1 ? recipePrompt : buildBatchRecipePrompt(recipePrompt, recipeCount);
+        return await(requestValidatedRecipes(prompt, recipeCount, (recipesJson, responseBody) -> new GeneratedRecipes(
+                recipesJson,
+                responseBody.path("usageMetadata").path("totalTokenCount").asLong(0)
+        )));
+    }
 
-        return generateValidatedRecipeResponse(batchPrompt, recipeCount);
+    private CompletableFuture<String> generateValidatedRecipeResponse(String recipePrompt, int expectedRecipeCount) {
+        return requestValidatedRecipes(recipePrompt, expectedRecipeCount, (recipesJson, responseBody) -> recipesJson);
     }
 
-    private String generateValidatedRecipeResponse(String recipePrompt, int expectedRecipeCount) {
+    private <T> CompletableFuture<T> requestValidatedRecipes(
+            String recipePrompt,
+            int expectedRecipeCount,
+            BiFunction<String, JsonNode, T> resultFactory
+    ) {
         if (!StringUtils.hasText(geminiApiKey)) {
             throw new AppException("Gemini API key is not configured on the server.", HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -127,15 +363,14 @@ public class GeminiService {
             throw new AppException("Gemini model is not configured on the server.", HttpStatus.INTERNAL_SERVER_ERROR);
         }
 
-        Map<String, Object> payload = buildTextPromptPayload(recipePrompt);
-        JsonNode responseBody = invokeGemini(payload, "Error creating recipe");
-
-        String textResponse = extractTextFromGeminiResponse(responseBody);
-        if (!StringUtils.hasText(textResponse)) {
-            throw new AppException("Gemini returned an empty recipe response.", HttpStatus.BAD_GATEWAY);
-        }
-
-        return parseAndValidateGeneratedRecipeResponse(textResponse, expectedRecipeCount);
+        Map<String, Object> payload = buildTextPromptPayload(recipePrompt, recipeSchema(expectedRecipeCount));
+        return invokeGeminiAsync(payload, GeminiOperation.RECIPE_GENERATION, responseBody -> {
+            String textResponse = extractTextFromGeminiResponse(responseBody);
+            if (!StringUtils.hasText(textResponse)) {
+                throw new AppException("Gemini returned an empty recipe response.", HttpStatus.BAD_GATEWAY);
+            }
+            return resultFactory.apply(parseAndValidateGeneratedRecipeResponse(textResponse, expectedRecipeCount), responseBody);
+        });
     }
 
     private int normalizeRecipeCount(Integer requestedCount) {
@@ -146,6 +381,36 @@ public class GeminiService {
     }
 
     public List<FridgeIngredientDto> extractFridgeIngredientsFromReceipt(MultipartFile file) {
+        return await(requestReceiptItems(validateReceiptScan(file)));
+    }
+
+    /**
+     * Validates the upload on the calling thread, then runs the Gemini call on a worker thread. The multipart
+     * file stays readable until the async request completes, so the image is streamed from it, not copied.
+     */
+    public CompletableFuture<List<FridgeIngredientDto>> extractFridgeIngredientsFromReceiptAsync(MultipartFile file) {
+        ReceiptImagePreprocessor.ReceiptImage image = validateReceiptScan(file);
+        return callScheduler.dispatch(() -> requestReceiptItems(image));
+    }
+
+    /**
+     * Validates the upload and copies it off the multipart request, for scans that finish after the
+     * request has been answered.
+     */
+    public ReceiptImagePreprocessor.ReceiptImage prepareDetachedReceiptScan(MultipartFile file) {
+        ReceiptImagePreprocessor.ReceiptImage image = validateReceiptScan(file);
+        try {
+            return image.detached();
+        } catch (IOException e) {
+            throw new AppException("Could not read uploaded receipt image.", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    public List<FridgeIngredientDto> extractFridgeIngredientsFromReceipt(ReceiptImagePreprocessor.ReceiptImage image) {
+        return await(requestReceiptItems(image));
+    }
+
+    private ReceiptImagePreprocessor.ReceiptImage validateReceiptScan(MultipartFile file) {
         if (!StringUtils.hasText(geminiApiKey)) {
             throw new AppException("Gemini API key is not configured on the server.", HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -153,8 +418,10 @@ public class GeminiService {
             throw new AppException("Gemini model is not configured on the server.", HttpStatus.INTERNAL_SERVER_ERROR);
         }
 
-        ValidatedReceiptImage image = validateAndReadReceiptImage(file);
+        return receiptImagePreprocessor.prepare(file);
+    }
 
+    private CompletableFuture<List<FridgeIngredientDto>> requestReceiptItems(ReceiptImagePreprocessor.ReceiptImage image) {
         String prompt = """
                 You are extracting grocery receipt items for a cooking app.
                 Return ONLY strict JSON with this exact structure:
@@ -167,11 +434,9 @@ public class GeminiService {
                 - Do not add any text outside JSON.
                 """;
 
-        String base64Data = Base64.getEncoder().encodeToString(image.bytes());
-
         Map<String, Object> inlineData = new HashMap<>();
         inlineData.put("mime_type", image.mimeType());
-        inlineData.put("data", base64Data);
+        inlineData.put("data", new StreamingBase64Value(image.content(), image.sizeBytes()));
 
         List<Object> parts = new ArrayList<>();
         parts.add(Map.of("text", prompt));
@@ -182,18 +447,22 @@ public class GeminiService {
 
         Map<String, Object> payload = new HashMap<>();
         payload.put("contents", List.of(content));
+        payload.put("generationConfig", jsonGenerationConfig(GeminiResponseSchemas.receiptItems()));
 
-        JsonNode responseBody = invokeGemini(payload, "Gemini receipt scan request failed");
-        String rawJsonText = cleanJsonPayload(extractTextFromGeminiResponse(responseBody));
-        return parseReceiptItems(rawJsonText);
+        return invokeGeminiAsync(payload, GeminiOperation.RECEIPT_SCAN, responseBody ->
+                parseReceiptItems(cleanJsonPayload(extractTextFromGeminiResponse(responseBody))));
     }
 
-    public Set<String> resolveStillMissingIngredientNames(
+    /**
+     * Asks Gemini which candidates are still missing given the fridge contents, and which fridge item
+     * covers each candidate it drops. All names in the result are trimmed and lower-cased.
+     */
+    public ShoppingListReview reviewMissingIngredients(
             List<ShoppingListGenerationItemDto> candidateMissingIngredients,
             List<FridgeIngredientDto> fridgeItems
     ) {
         if (candidateMissingIngredients == null || candidateMissingIngredients.isEmpty()) {
-            return Set.of();
+            return new ShoppingListReview(Set.of(), Map.of());
         }
 
         if (!StringUtils.hasText(geminiApiKey)) {
@@ -205,12 +474,18 @@ public class GeminiService {
 
         String prompt = buildShoppingListReviewPrompt(candidateMissingIngredients, fridgeItems);
         Map<String, Object> payload = buildTextPromptPayload(prompt);
-        JsonNode responseBody = invokeGemini(payload, "Error reviewing shopping list ingredients");
-        String textResponse = cleanJsonPayload(extractTextFromGeminiResponse(responseBody));
-        return parseStillMissingIngredientNames(textResponse, candidateMissingIngredients);
+        return await(invokeGeminiAsync(payload, GeminiOperation.SHOPPING_LIST_REVIEW, responseBody -> parseShoppingListReview(
+                cleanJsonPayload(extractTextFromGeminiResponse(responseBody)),
+                candidateMissingIngredients,
+                fridgeItems
+        )));
     }
 
     private Map<String, Object> buildTextPromptPayload(String prompt) {
+        return buildTextPromptPayload(prompt, null);
+    }
+
+    private Map<String, Object> buildTextPromptPayload(String prompt, Map<String, Object> responseSchema) {
         List<Object> parts = new ArrayList<>();
         parts.add(Map.of("text", prompt));
 
@@ -220,10 +495,21 @@ public class GeminiService {
         Map<String, Object> payload = new HashMap<>();
         payload.put("contents", List.of(content));
 
+        payload.put("generationConfig", jsonGenerationConfig(responseSchema));
+        return payload;
+    }
+
+    private Map<String, Object> jsonGenerationConfig(Map<String, Object> responseSchema) {
         Map<String, Object> generationConfig = new HashMap<>();
         generationConfig.put("responseMimeType", "application/json");
-        payload.put("generationConfig", generationConfig);
-        return payload;
+        if (responseSchema != null && responseSchemaEnabled) {
+            generationConfig.put("responseSchema", responseSchema);
+        }
+        return generationConfig;
+    }
+
+    private static Map<String, Object> recipeSchema(int recipeCount) {
+        return recipeCount == 1 ? GeminiResponseSchemas.recipe() : GeminiResponseSchemas.recipeBatch(recipeCount);
     }
 
     private String buildShoppingListReviewPrompt(
@@ -245,14 +531,15 @@ public class GeminiService {
                 Decide which candidate missing recipe ingredients are still actually missing after considering fridge item synonyms or close ingredient equivalents.
 
                 Return ONLY strict JSON in this exact format:
-                {"missingIngredientNames":["name1","name2"]}
+                {"missingIngredientNames":["name1","name2"],"coveredIngredients":[{"ingredient":"name3","fridgeItem":"fridge name"}]}
 
                 Rules:
                 - Only include ingredient names that already appear in the candidateMissingIngredients list.
                 - Never add new ingredients.
                 - Never change quantities or units.
                 - Use the fridge items only to recognize naming variants or close equivalents, such as scallion vs green onion.
-                - If a fridge item reasonably covers a candidate ingredient, omit that candidate from the result.
+                - If a fridge item reasonably covers a candidate ingredient, omit that candidate from missingIngredientNames.
+                - For every omitted candidate, add one coveredIngredients entry with the candidate name and the exact name of the fridge item that covers it.
                 - If unsure, keep the ingredient in the result.
 
                 candidateMissingIngredients:
@@ -263,25 +550,420 @@ public class GeminiService {
                 """.formatted(candidateJson, fridgeJson);
     }
 
-    private JsonNode invokeGemini(Map<String, Object> payload, String operationLabel) {
-        List<String> modelsToTry = new ArrayList<>();
-        modelsToTry.add(geminiModel);
+    private <T> CompletableFuture<T> invokeGeminiAsync(
+            Map<String, Object> payload,
+            GeminiOperation operation,
+            Function<JsonNode, T> responseHandler
+    ) {
+        long startedAt = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = concurrencyLimiter.executeAsync(() -> {
+                if (hedgingPolicy.isEnabled(operation) && configuredModels().size() > 1) {
+                    return invokeGeminiHedgedAsync(payload, operation, responseHandler);
+                }
+                return invokeGeminiModelsAsync(payload, operation).thenApply(responseHandler);
+            }, callScheduler::execute);
+        } catch (RuntimeException e) {
+            telemetry.recordOperation(operation, startedAt, e);
+            throw e;
+        }
+        return result.whenComplete((ignored, failure) -> telemetry.recordOperation(operation, startedAt, failure));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AppException("Gemini request interrupted.", HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrapFailure(e);
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new AppException(GENERIC_GEMINI_ERROR_MESSAGE, HttpStatus.BAD_GATEWAY);
+        }
+    }
+
+    private static Throwable unwrapFailure(Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Sends the request to the primary model and, if it has not produced a valid answer within the hedge
+     * delay (or failed in a way that warrants the fallback), sends the same payload to the fallback model.
+     * The first valid result wins and the other call's HTTP request is aborted. No thread waits on the race:
+     * the hedge is started from the retry timer and the winner is picked in the calls' completion callbacks.
+     */
+    private <T> CompletableFuture<T> invokeGeminiHedgedAsync(
+            Map<String, Object> payload,
+            GeminiOperation operation,
+            Function<JsonNode, T> responseHandler
+    ) {
+        if (!circuitBreakers.tryAcquirePermission(geminiModel)) {
+            return invokeGeminiModelsAsync(payload, operation).thenApply(responseHandler);
+        }
+        return new HedgedCall<>(payload, operation, responseHandler).start();
+    }
+
+    private final class HedgedCall<T> {
+        private final Map<String, Object> payload;
+        private final GeminiOperation operation;
+        private final Function<JsonNode, T> responseHandler;
+        private final String primaryModel = geminiModel;
+        private final String fallbackModel = geminiFallbackModel;
+        private final RequestAbortHandle primaryAbort = new RequestAbortHandle();
+        private final RequestAbortHandle fallbackAbort = new RequestAbortHandle();
+        private final CompletableFuture<T> winner = new CompletableFuture<>();
+        private final long startedAt = System.nanoTime();
+
+        // Guarded by this: calls started (or about to start) whose outcome the race still waits for.
+        private int running = 1;
+        private boolean fallbackClaimed;
+        private RuntimeException lastFailure;
+
+        private HedgedCall(Map<String, Object> payload, GeminiOperation operation, Function<JsonNode, T> responseHandler) {
+            this.payload = payload;
+            this.operation = operation;
+            this.responseHandler = responseHandler;
+        }
+
+        CompletableFuture<T> start() {
+            winner.whenComplete((ignored, failure) -> {
+                primaryAbort.abort();
+                fallbackAbort.abort();
+            });
+            CompletableFuture<T> primary;
+            try {
+                primary = callScheduler.dispatch(() -> callModelAsync(primaryModel, primaryAbort));
+            } catch (RuntimeException e) {
+                circuitBreakers.onIgnored(primaryModel);
+                throw e;
+            }
+            primary.whenComplete((result, failure) -> callFinished(true, result, failure));
+            // A timer that fires after the race is decided does nothing; one that cannot run just means no hedge.
+            callScheduler.schedule(this::startHedge, hedgingPolicy.hedgeDelayMillis(operation), () -> log.debug(
+                    "Not hedging Gemini {}: the call pool is full.", operation));
+            return winner;
+        }
+
+        private void startHedge() {
+            if (!claimFallback()) {
+                return;
+            }
+            if (!circuitBreakers.tryAcquirePermission(fallbackModel)) {
+                fallbackSkipped();
+                return;
+            }
+            // The hedge is extra load on top of the primary, so it needs a permit of its own.
+            CompletableFuture<T> hedge = concurrencyLimiter.tryExecuteAsync(() -> {
+                log.info("Gemini {} is slow on '{}'; hedging with '{}'.", operation, primaryModel, fallbackModel);
+                return callModelAsync(fallbackModel, fallbackAbort);
+            });
+            if (hedge == null) {
+                log.debug("Not hedging Gemini {}: no concurrency permit is free.", operation);
+                circuitBreakers.onIgnored(fallbackModel);
+                fallbackSkipped();
+                return;
+            }
+            hedge.whenComplete((result, failure) -> callFinished(false, result, failure));
+        }
+
+        // Runs under the failed primary's permit, which is held until the race is decided.
+        private void startFallback() {
+            if (winner.isDone() || !circuitBreakers.tryAcquirePermission(fallbackModel)) {
+                fallbackSkipped();
+                return;
+            }
+            log.warn("Primary Gemini model '{}' failed. Falling back to '{}'.", primaryModel, fallbackModel);
+            callModelAsync(fallbackModel, fallbackAbort)
+                    .whenComplete((result, failure) -> callFinished(false, result, failure));
+        }
+
+        private CompletableFuture<T> callModelAsync(String model, RequestAbortHandle abortHandle) {
+            CompletableFuture<T> call;
+            try {
+                call = invokeGeminiWithModelAsync(payload, operation, model, abortHandle).thenApply(responseHandler);
+            } catch (RuntimeException e) {
+                call = CompletableFuture.failedFuture(e);
+            }
+            return call.whenComplete((result, failure) -> recordCallOutcome(model, abortHandle, failure));
+        }
+
+        private void recordCallOutcome(String model, RequestAbortHandle abortHandle, Throwable failure) {
+            if (failure == null) {
+                circuitBreakers.onSuccess(model);
+                return;
+            }
+            Throwable cause = unwrapFailure(failure);
+            if (cause instanceof RestClientResponseException e) {
+                recordModelOutcome(model, shouldFallbackToAlternativeModel(e));
+            } else if (cause instanceof RestClientException && !abortHandle.isAborted()) {
+                circuitBreakers.onFailure(model);
+            } else {
+                // Includes a call aborted because the other model won; that says nothing about this model's health.
+                circuitBreakers.onIgnored(model);
+            }
+        }
+
+        private void callFinished(boolean primary, T result, Throwable failure) {
+            if (failure == null) {
+                if (primary) {
+                    // Only completed primary calls are sampled; a primary cut short by the hedge has no latency.
+                    hedgingPolicy.recordPrimaryLatency(operation, elapsedMillis(startedAt));
+                }
+                if (winner.complete(result) && !primary) {
+                    log.info("Hedged Gemini {} answered first by fallback model '{}'.", operation, fallbackModel);
+                }
+                return;
+            }
+
+            Throwable cause = unwrapFailure(failure);
+            RuntimeException callFailure = cause instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new AppException(GENERIC_GEMINI_ERROR_MESSAGE, HttpStatus.BAD_GATEWAY);
+            boolean fallBack = false;
+            boolean exhausted;
+            synchronized (this) {
+                running--;
+                lastFailure = callFailure;
+                if (primary && !fallbackClaimed && !winner.isDone() && isFallbackEligible(callFailure)) {
+                    fallbackClaimed = true;
+                    running++;
+                    fallBack = true;
+                }
+                exhausted = running == 0;
+            }
+            if (fallBack) {
+                callScheduler.schedule(this::startFallback, 0, this::fallbackSkipped);
+            } else if (exhausted) {
+                failRace();
+            }
+        }
+
+        private synchronized boolean claimFallback() {
+            if (fallbackClaimed || winner.isDone()) {
+                return false;
+            }
+            fallbackClaimed = true;
+            running++;
+            return true;
+        }
+
+        private void fallbackSkipped() {
+            boolean exhausted;
+            synchronized (this) {
+                // A hedge skipped for lack of a permit still leaves the fallback available if the primary fails.
+                fallbackClaimed = false;
+                running--;
+                exhausted = running == 0;
+            }
+            if (exhausted) {
+                failRace();
+            }
+        }
+
+        private void failRace() {
+            if (winner.isDone()) {
+                return;
+            }
+            RuntimeException failure;
+            synchronized (this) {
+                failure = lastFailure;
+            }
+            winner.completeExceptionally(toAppException(operation.getErrorLabel(), failure));
+        }
+    }
+
+    private boolean isFallbackEligible(RuntimeException failure) {
+        if (failure instanceof RestClientResponseException responseException) {
+            return shouldFallbackToAlternativeModel(responseException);
+        }
+        return failure instanceof RestClientException;
+    }
+
+    private AppException toAppException(String operationLabel, RuntimeException failure) {
+        if (failure instanceof AppException appException) {
+            return appException;
+        }
+        if (failure instanceof RestClientResponseException responseException) {
+            return mapGeminiResponseException(operationLabel, responseException);
+        }
+        if (failure instanceof RestClientException clientException) {
+            return mapGeminiTransportException(operationLabel, clientException);
+        }
+        log.error("Gemini {} failed unexpectedly", operationLabel, failure);
+        return new AppException(GENERIC_GEMINI_ERROR_MESSAGE, HttpStatus.BAD_GATEWAY);
+    }
+
+    private CompletableFuture<JsonNode> invokeGeminiModelsAsync(Map<String, Object> payload, GeminiOperation operation) {
+        return invokeGeminiModelsAsync(payload, operation, configuredModels(), 0, false);
+    }
+
+    private CompletableFuture<JsonNode> invokeGeminiModelsAsync(
+            Map<String, Object> payload,
+            GeminiOperation operation,
+            List<String> modelsToTry,
+            int modelIndex,
+            boolean attemptedAnyModel
+    ) {
+        if (modelIndex >= modelsToTry.size()) {
+            return CompletableFuture.failedFuture(noModelSucceeded(operation.getErrorLabel(), modelsToTry, attemptedAnyModel));
+        }
+
+        String modelToUse = modelsToTry.get(modelIndex);
+        boolean canFallback = modelIndex == 0 && modelIndex + 1 < modelsToTry.size();
+
+        if (!circuitBreakers.tryAcquirePermission(modelToUse)) {
+            log.debug("Skipping Gemini model '{}' because its circuit breaker is open.", modelToUse);
+            return invokeGeminiModelsAsync(payload, operation, modelsToTry, modelIndex + 1, attemptedAnyModel);
+        }
+
+        return invokeGeminiWithModelAsync(payload, operation, modelToUse).handle((response, failure) -> {
+            if (failure == null) {
+                circuitBreakers.onSuccess(modelToUse);
+                return CompletableFuture.completedFuture(response);
+            }
+
+            Throwable cause = unwrapFailure(failure);
+            if (cause instanceof RestClientResponseException e) {
+                boolean modelFailure = shouldFallbackToAlternativeModel(e);
+                recordModelOutcome(modelToUse, modelFailure);
+                if (canFallback && modelFailure) {
+                    log.warn(
+                            "Primary Gemini model '{}' failed with status {}. Falling back to '{}'.",
+                            modelToUse,
+                            e.getStatusCode().value(),
+                            modelsToTry.get(modelIndex + 1)
+                    );
+                    return invokeGeminiModelsAsync(payload, operation, modelsToTry, modelIndex + 1, true);
+                }
+                return CompletableFuture.<JsonNode>failedFuture(mapGeminiResponseException(operation.getErrorLabel(), e));
+            }
+            if (cause instanceof RestClientException e) {
+                circuitBreakers.onFailure(modelToUse);
+                if (canFallback) {
+                    log.warn(
+                            "Primary Gemini model '{}' failed due to transport error. Falling back to '{}'. Cause: {}",
+                            modelToUse,
+                            modelsToTry.get(modelIndex + 1),
+                            e.getMessage()
+                    );
+                    return invokeGeminiModelsAsync(payload, operation, modelsToTry, modelIndex + 1, true);
+                }
+                return CompletableFuture.<JsonNode>failedFuture(mapGeminiTransportException(operation.getErrorLabel(), e));
+            }
+
+            circuitBreakers.onIgnored(modelToUse);
+            return CompletableFuture.<JsonNode>failedFuture(cause);
+        }).thenCompose(Function.identity());
+    }
+
+    private List<String> configuredModels() {
+        List<String> models = new ArrayList<>();
+        models.add(geminiModel);
 
         if (StringUtils.hasText(geminiFallbackModel)
                 && !geminiModel.equalsIgnoreCase(geminiFallbackModel)) {
-            modelsToTry.add(geminiFallbackModel);
+            models.add(geminiFallbackModel);
+        }
+        return models;
+    }
+
+    private void recordModelOutcome(String model, boolean modelFailure) {
+        if (modelFailure) {
+            circuitBreakers.onFailure(model);
+        } else {
+            // The model answered; a rejected request says nothing about its health.
+            circuitBreakers.onSuccess(model);
+        }
+    }
+
+    private AppException noModelSucceeded(String operationLabel, List<String> modelsToTry, boolean attemptedAnyModel) {
+        if (attemptedAnyModel) {
+            return new AppException(operationLabel + ": all configured AI models failed.", HttpStatus.BAD_GATEWAY);
+        }
+
+        long retryAfterMillis = modelsToTry.stream()
+                .mapToLong(circuitBreakers::retryAfterMillis)
+                .min()
+                .orElse(0L);
+        log.warn("Gemini {} skipped: circuit breakers are open for all configured models.", operationLabel);
+        return new AppException(
+                GENERIC_GEMINI_ERROR_MESSAGE,
+                HttpStatus.SERVICE_UNAVAILABLE,
+                Math.max(1L, (retryAfterMillis + 999L) / 1000L)
+        );
+    }
+
+    private void invokeGeminiStream(
+            Map<String, Object> payload,
+            GeminiOperation operation,
+            RequestAbortHandle abortHandle,
+            Consumer<String> textConsumer
+    ) {
+        long startedAt = System.nanoTime();
+        try {
+            concurrencyLimiter.execute(() -> {
+                streamGeminiModels(payload, operation, abortHandle, textConsumer);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            telemetry.recordOperation(operation, startedAt, e);
+            throw e;
         }
+        telemetry.recordOperation(operation, startedAt, null);
+    }
+
+    private void streamGeminiModels(
+            Map<String, Object> payload,
+            GeminiOperation operation,
+            RequestAbortHandle abortHandle,
+            Consumer<String> textConsumer
+    ) {
+        String operationLabel = operation.getErrorLabel();
+        List<String> modelsToTry = configuredModels();
+        boolean attemptedAnyModel = false;
+
+        AtomicBoolean receivedText = new AtomicBoolean(false);
+        Consumer<String> trackingConsumer = textDelta -> {
+            receivedText.set(true);
+            textConsumer.accept(textDelta);
+        };
 
         for (int modelIndex = 0; modelIndex < modelsToTry.size(); modelIndex++) {
             String modelToUse = modelsToTry.get(modelIndex);
             boolean canFallback = modelIndex == 0 && modelIndex + 1 < modelsToTry.size();
 
+            if (!circuitBreakers.tryAcquirePermission(modelToUse)) {
+                log.debug("Skipping Gemini model '{}' because its circuit breaker is open.", modelToUse);
+                continue;
+            }
+            attemptedAnyModel = true;
+
             try {
-                return invokeGeminiWithModel(payload, modelToUse);
+                streamGeminiWithModel(payload, operation, modelToUse, abortHandle, trackingConsumer);
+                circuitBreakers.onSuccess(modelToUse);
+                return;
             } catch (RestClientResponseException e) {
-                if (canFallback && shouldFallbackToAlternativeModel(e)) {
+                if (e.getStatusCode().value() == 429) {
+                    concurrencyLimiter.recordThrottled();
+                }
+                boolean modelFailure = shouldFallbackToAlternativeModel(e);
+                recordModelOutcome(modelToUse, modelFailure);
+                // Once text has been relayed to the client, switching models would splice two different answers.
+                if (canFallback && !receivedText.get() && modelFailure) {
                     log.warn(
-                            "Primary Gemini model '{}' failed with status {}. Falling back to '{}'.",
+                            "Primary Gemini model '{}' stream failed with status {}. Falling back to '{}'.",
                             modelToUse,
                             e.getStatusCode().value(),
                             modelsToTry.get(modelIndex + 1)
@@ -290,9 +972,15 @@ public class GeminiService {
                 }
                 throw mapGeminiResponseException(operationLabel, e);
             } catch (RestClientException e) {
-                if (canFallback) {
+                if (abortHandle.isAborted()) {
+                    // Cut off on purpose because nobody reads the stream any more; not the model's fault.
+                    circuitBreakers.onIgnored(modelToUse);
+                    throw e;
+                }
+                circuitBreakers.onFailure(modelToUse);
+                if (canFallback && !receivedText.get()) {
                     log.warn(
-                            "Primary Gemini model '{}' failed due to transport error. Falling back to '{}'. Cause: {}",
+                            "Primary Gemini model '{}' stream failed due to transport error. Falling back to '{}'. Cause: {}",
                             modelToUse,
                             modelsToTry.get(modelIndex + 1),
                             e.getMessage()
@@ -300,47 +988,206 @@ public class GeminiService {
                     continue;
                 }
                 throw mapGeminiTransportException(operationLabel, e);
+            } catch (RuntimeException e) {
+                circuitBreakers.onIgnored(modelToUse);
+                throw e;
+            }
+        }
+
+        throw noModelSucceeded(operationLabel, modelsToTry, attemptedAnyModel);
+    }
+
+    private void streamGeminiWithModel(
+            Map<String, Object> payload,
+            GeminiOperation operation,
+            String modelToUse,
+            RequestAbortHandle abortHandle,
+            Consumer<String> textConsumer
+    ) {
+        String endpoint = UriComponentsBuilder
+                .fromHttpUrl(modelsUrl() + "{model}:streamGenerateContent")
+                .queryParam("alt", "sse")
+                .buildAndExpand(modelToUse)
+                .toUriString();
+
+        long startedAt = System.nanoTime();
+        JsonNode lastChunk;
+        try {
+            lastChunk = abortHandle.run(() -> restTemplate.execute(endpoint, HttpMethod.POST, request -> {
+                request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                request.getHeaders().set("x-goog-api-key", geminiApiKey);
+                request.getBody().write(objectMapper.writeValueAsBytes(payload));
+            }, response -> {
+                try {
+                    return readGeminiEventStream(response.getBody(), textConsumer);
+                } catch (IOException | RuntimeException e) {
+                    // Closing the response would drain the rest of the stream; abort the request first.
+                    abortHandle.abort();
+                    throw e;
+                }
+            }));
+        } catch (RuntimeException e) {
+            telemetry.recordCall(operation, modelToUse, 1, startedAt, e);
+            throw e;
+        }
+        telemetry.recordCall(operation, modelToUse, 1, startedAt, null);
+        // Every chunk carries the running token usage, so the last one holds the totals.
+        telemetry.recordUsage(operation, modelToUse, lastChunk);
+    }
+
+    private String modelsUrl() {
+        String baseUrl = StringUtils.hasText(geminiBaseUrl) ? geminiBaseUrl.trim() : DEFAULT_GEMINI_BASE_URL;
+        while (baseUrl.endsWith("/")) {
+            baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+        }
+        return baseUrl + "/models/";
+    }
+
+    private JsonNode readGeminiEventStream(InputStream body, Consumer<String> textConsumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        StringBuilder eventData = new StringBuilder();
+        JsonNode lastChunk = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("data:")) {
+                eventData.append(line.substring(5).trim());
+            } else if (line.isEmpty() && eventData.length() > 0) {
+                lastChunk = relayStreamedChunk(eventData.toString(), textConsumer);
+                eventData.setLength(0);
             }
         }
 
-        throw new AppException(operationLabel + ": all configured AI models failed.", HttpStatus.BAD_GATEWAY);
+        if (eventData.length() > 0) {
+            lastChunk = relayStreamedChunk(eventData.toString(), textConsumer);
+        }
+        return lastChunk;
+    }
+
+    private JsonNode relayStreamedChunk(String chunkJson, Consumer<String> textConsumer) throws IOException {
+        JsonNode chunk = objectMapper.readTree(chunkJson);
+        if (chunk.has("error")) {
+            log.warn("Gemini stream returned an error: {}", chunk.path("error").path("message").asText(""));
+            throw new AppException(GENERIC_GEMINI_ERROR_MESSAGE, HttpStatus.BAD_GATEWAY);
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : chunk.path("candidates").path(0).path("content").path("parts")) {
+            text.append(part.path("text").asText(""));
+        }
+
+        if (text.length() > 0) {
+            textConsumer.accept(text.toString());
+        }
+        return chunk;
+    }
+
+    private CompletableFuture<JsonNode> invokeGeminiWithModelAsync(
+            Map<String, Object> payload,
+            GeminiOperation operation,
+            String modelToUse
+    ) {
+        return invokeGeminiWithModelAsync(payload, operation, modelToUse, new RequestAbortHandle());
     }
 
-    private JsonNode invokeGeminiWithModel(Map<String, Object> payload, String modelToUse) {
+    private CompletableFuture<JsonNode> invokeGeminiWithModelAsync(
+            Map<String, Object> payload,
+            GeminiOperation operation,
+            String modelToUse,
+            RequestAbortHandle abortHandle
+    ) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.set("x-goog-api-key", geminiApiKey);
 
         HttpEntity<Map<String, Object>> request = new HttpEntity<>(payload, headers);
         String endpoint = UriComponentsBuilder
-                .fromHttpUrl("https://generativelanguage.googleapis.com/v1beta/models/{model}:generateContent")
+                .fromHttpUrl(modelsUrl() + "{model}:generateContent")
                 .buildAndExpand(modelToUse)
                 .toUriString();
 
-        long backoffMillis = 300L;
-        for (int attempt = 1; attempt <= MAX_RETRY_ATTEMPTS; attempt++) {
-            try {
-                ResponseEntity<JsonNode> response = restTemplate.exchange(endpoint, HttpMethod.POST, request, JsonNode.class);
-                return response.getBody();
-            } catch (RestClientResponseException e) {
-                int statusCode = e.getStatusCode().value();
-                boolean retryableStatus = e.getStatusCode().is5xxServerError() || statusCode == 429;
-                if (retryableStatus && attempt < MAX_RETRY_ATTEMPTS) {
-                    sleepWithBackoff(backoffMillis);
-                    backoffMillis *= 2;
-                    continue;
-                }
-                throw e;
-            } catch (RestClientException e) {
-                if (attempt == MAX_RETRY_ATTEMPTS) {
-                    throw e;
-                }
-                sleepWithBackoff(backoffMillis);
-                backoffMillis *= 2;
+        CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        result.whenComplete((ignored, failure) -> {
+            if (result.isCancelled()) {
+                abortHandle.abort();
             }
+        });
+        attemptGeminiCall(endpoint, request, operation, modelToUse, 1, result, abortHandle);
+        return result;
+    }
+
+    /**
+     * Makes one attempt on the current thread. A retryable failure schedules the next attempt on the retry
+     * timer instead of sleeping, so no thread is held during backoff.
+     */
+    private void attemptGeminiCall(
+            String endpoint,
+            HttpEntity<Map<String, Object>> request,
+            GeminiOperation operation,
+            String model,
+            int attempt,
+            CompletableFuture<JsonNode> result,
+            RequestAbortHandle abortHandle
+    ) {
+        if (result.isDone() || abortHandle.isAborted()) {
+            // Cancelled while waiting for the retry, e.g. because a hedged call already won.
+            result.cancel(false);
+            return;
         }
 
-        throw new RestClientException("retry limit exceeded");
+        long startedAt = System.nanoTime();
+        try {
+            ResponseEntity<JsonNode> response = abortHandle.run(
+                    () -> restTemplate.exchange(endpoint, HttpMethod.POST, request, JsonNode.class));
+            telemetry.recordCall(operation, model, attempt, startedAt, null);
+            telemetry.recordUsage(operation, model, response.getBody());
+            result.complete(response.getBody());
+        } catch (RestClientResponseException e) {
+            telemetry.recordCall(operation, model, attempt, startedAt, e);
+            int statusCode = e.getStatusCode().value();
+            if (statusCode == 429) {
+                concurrencyLimiter.recordThrottled();
+            }
+            boolean retryableStatus = e.getStatusCode().is5xxServerError() || statusCode == 429;
+            long retryDelayMillis = retryableStatus && attempt < MAX_RETRY_ATTEMPTS
+                    ? callScheduler.retryDelayMillis(attempt, e.getResponseHeaders())
+                    : -1;
+            scheduleRetryOrFail(endpoint, request, operation, model, attempt, result, abortHandle, e, retryDelayMillis);
+        } catch (RestClientException e) {
+            if (abortHandle.isAborted()) {
+                result.cancel(false);
+                return;
+            }
+            telemetry.recordCall(operation, model, attempt, startedAt, e);
+            long retryDelayMillis = attempt < MAX_RETRY_ATTEMPTS ? callScheduler.retryDelayMillis(attempt, null) : -1;
+            scheduleRetryOrFail(endpoint, request, operation, model, attempt, result, abortHandle, e, retryDelayMillis);
+        } catch (RuntimeException e) {
+            telemetry.recordCall(operation, model, attempt, startedAt, e);
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void scheduleRetryOrFail(
+            String endpoint,
+            HttpEntity<Map<String, Object>> request,
+            GeminiOperation operation,
+            String model,
+            int attempt,
+            CompletableFuture<JsonNode> result,
+            RequestAbortHandle abortHandle,
+            RestClientException failure,
+            long retryDelayMillis
+    ) {
+        if (retryDelayMillis < 0) {
+            result.completeExceptionally(failure);
+            return;
+        }
+
+        callScheduler.schedule(
+                () -> attemptGeminiCall(endpoint, request, operation, model, attempt + 1, result, abortHandle),
+                retryDelayMillis,
+                () -> result.completeExceptionally(failure)
+        );
     }
 
     private boolean shouldFallbackToAlternativeModel(RestClientResponseException e) {
@@ -392,54 +1239,6 @@ public class GeminiService {
         return compact.length() > 300 ? compact.substring(0, 300) + "..." : compact;
     }
 
-    private void sleepWithBackoff(long millis) {
-        try {
-            Thread.sleep(millis);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new AppException("Gemini request interrupted.", HttpStatus.INTERNAL_SERVER_ERROR);
-        }
-    }
-
-    private ValidatedReceiptImage validateAndReadReceiptImage(MultipartFile file) {
-        if (file == null || file.isEmpty()) {
-            throw new AppException("Receipt image is required.", HttpStatus.BAD_REQUEST);
-        }
-
-        if (file.getSize() > MAX_RECEIPT_FILE_SIZE_BYTES) {
-            throw new AppException("Receipt image too large. Max size is 5MB.", HttpStatus.BAD_REQUEST);
-        }
-
-        String contentType = StringUtils.hasText(file.getContentType())
-                ? file.getContentType().toLowerCase(Locale.ROOT)
-                : "";
-
-        if (!ALLOWED_IMAGE_CONTENT_TYPES.contains(contentType)) {
-            throw new AppException("Only JPEG, PNG or WEBP images are supported for receipt scanning.", HttpStatus.BAD_REQUEST);
-        }
-
-        byte[] bytes;
-        try {
-            bytes = file.getBytes();
-        } catch (IOException e) {
-            throw new AppException("Could not read uploaded receipt image.", HttpStatus.BAD_REQUEST);
-        }
-
-        try (ByteArrayInputStream input = new ByteArrayInputStream(bytes)) {
-            BufferedImage image = ImageIO.read(input);
-            if (image == null) {
-                throw new AppException("Uploaded file is not a valid image.", HttpStatus.BAD_REQUEST);
-            }
-            if (image.getWidth() > MAX_IMAGE_DIMENSION || image.getHeight() > MAX_IMAGE_DIMENSION) {
-                throw new AppException("Receipt image dimensions are too large.", HttpStatus.BAD_REQUEST);
-            }
-        } catch (IOException e) {
-            throw new AppException("Could not validate uploaded receipt image.", HttpStatus.BAD_REQUEST);
-        }
-
-        return new ValidatedReceiptImage(contentType, bytes);
-    }
-
     private String extractTextFromGeminiResponse(JsonNode responseBody) {
         if (responseBody == null) {
             throw new AppException("Gemini returned an empty response.", HttpStatus.BAD_GATEWAY);
@@ -482,97 +1281,13 @@ public class GeminiService {
     }
 
     private String parseAndValidateGeneratedRecipeResponse(String payload, int expectedRecipeCount) {
-        JsonNode root;
-        try {
-            root = objectMapper.readTree(cleanJsonPayload(payload));
-        } catch (IOException e) {
-            throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-        }
-
-        if (expectedRecipeCount == 1) {
-            validateRecipeNode(root, 1);
-        } else {
-            if (!root.isObject()) {
-                throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-            }
-
-            JsonNode recipesNode = root.path("recipes");
-            if (!recipesNode.isArray() || recipesNode.size() != expectedRecipeCount) {
-                throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-            }
-
-            for (int index = 0; index < recipesNode.size(); index++) {
-                validateRecipeNode(recipesNode.get(index), index + 1);
-            }
-        }
-
-        try {
-            return objectMapper.writeValueAsString(root);
-        } catch (IOException e) {
-            throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-        }
-    }
-
-    private void validateRecipeNode(JsonNode recipeNode, int recipeIndex) {
-        if (!recipeNode.isObject()) {
-            throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-        }
-
-        requireTextField(recipeNode, "name");
-        requireTextField(recipeNode, "description");
-        requireTextField(recipeNode, "timeToPrepare");
-
-        JsonNode ingredientsNode = recipeNode.path("ingredients");
-        if (!ingredientsNode.isArray() || ingredientsNode.isEmpty()) {
-            throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-        }
-        for (int ingredientIndex = 0; ingredientIndex < ingredientsNode.size(); ingredientIndex++) {
-            JsonNode ingredientNode = ingredientsNode.get(ingredientIndex);
-            if (!ingredientNode.isObject()) {
-                throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-            }
-            requireTextField(ingredientNode, "name");
-            requireNumericField(ingredientNode, "amount");
-            requireTextField(ingredientNode, "unit");
-        }
-
-        JsonNode instructionsNode = recipeNode.path("instructions");
-        if (!instructionsNode.isArray() || instructionsNode.isEmpty()) {
-            throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-        }
-        for (JsonNode instructionNode : instructionsNode) {
-            if (!instructionNode.isTextual() || !StringUtils.hasText(instructionNode.asText())) {
-                throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-            }
-        }
-
-        JsonNode nutritionNode = recipeNode.path("nutrition");
-        if (!nutritionNode.isObject()) {
-            throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-        }
-        requireNumericField(nutritionNode, "calories");
-        requireNumericField(nutritionNode, "protein");
-        requireNumericField(nutritionNode, "carbs");
-        requireNumericField(nutritionNode, "fats");
-    }
-
-    private void requireTextField(JsonNode node, String fieldName) {
-        JsonNode fieldNode = node.get(fieldName);
-        if (fieldNode == null || !fieldNode.isTextual() || !StringUtils.hasText(fieldNode.asText())) {
-            throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-        }
+        return recipeJsonValidator.validate(cleanJsonPayload(payload), expectedRecipeCount);
     }
 
-    private void requireNumericField(JsonNode node, String fieldName) {
-        JsonNode fieldNode = node.get(fieldName);
-        if (fieldNode == null || !fieldNode.isNumber()) {
-            throw new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
-        }
-    }
-
-    private Set<String> parseStillMissingIngredientNames(
+    private ShoppingListReview parseShoppingListReview(
             String payload,
-            List<ShoppingListGenerationItemDto> candidateMissingIngredients
+            List<ShoppingListGenerationItemDto> candidateMissingIngredients,
+            List<FridgeIngredientDto> fridgeItems
     ) {
         JsonNode root;
         try {
@@ -586,11 +1301,7 @@ public class GeminiService {
             throw new AppException("Gemini shopping list review response missing 'missingIngredientNames' array.", HttpStatus.BAD_GATEWAY);
         }
 
-        Set<String> allowedNames = candidateMissingIngredients.stream()
-                .map(ShoppingListGenerationItemDto::getName)
-                .filter(StringUtils::hasText)
-                .map(value -> value.trim().toLowerCase(Locale.ROOT))
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<String> allowedNames = normalizedNames(candidateMissingIngredients.stream().map(ShoppingListGenerationItemDto::getName));
 
         Set<String> parsedNames = new LinkedHashSet<>();
         for (JsonNode node : namesNode) {
@@ -604,7 +1315,26 @@ public class GeminiService {
             }
         }
 
-        return parsedNames;
+        // coveredIngredients is optional: without it the review still decides what is missing, it just teaches nothing.
+        Set<String> fridgeNames = normalizedNames((fridgeItems == null ? List.<FridgeIngredientDto>of() : fridgeItems).stream()
+                .map(FridgeIngredientDto::getName));
+        Map<String, String> coveringFridgeItems = new HashMap<>();
+        for (JsonNode node : root.path("coveredIngredients")) {
+            String ingredient = node.path("ingredient").asText("").trim().toLowerCase(Locale.ROOT);
+            String fridgeItem = node.path("fridgeItem").asText("").trim().toLowerCase(Locale.ROOT);
+            if (allowedNames.contains(ingredient) && !parsedNames.contains(ingredient) && fridgeNames.contains(fridgeItem)) {
+                coveringFridgeItems.putIfAbsent(ingredient, fridgeItem);
+            }
+        }
+
+        return new ShoppingListReview(parsedNames, coveringFridgeItems);
+    }
+
+    private static Set<String> normalizedNames(Stream<String> names) {
+        return names
+                .filter(StringUtils::hasText)
+                .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
     private List<FridgeIngredientDto> parseReceiptItems(String payload) {
@@ -650,6 +1380,15 @@ public class GeminiService {
         return parsedItems;
     }
 
-    private record ValidatedReceiptImage(String mimeType, byte[] bytes) {
+    public record GeneratedRecipes(String recipesJson, long totalTokens) {
+    }
+
+    public record ShoppingListReview(Set<String> missingIngredientNames, Map<String, String> coveringFridgeItems) {
+    }
+
+    public interface RecipeStreamListener {
+        void onText(String textDelta);
+
+        void onRecipe(int recipeIndex, JsonNode recipe);
     }
 }
@@ -0,0 +1,138 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jakub.backendapi.exceptions.AppException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer timers and token summaries for Gemini calls, tagged by operation and model. Exposed on
+ * {@code /actuator/metrics} as {@code gemini.call.duration}, {@code gemini.operation.duration} and
+ * {@code gemini.tokens}.
+ */
+@Service
+public class GeminiTelemetry {
+
+    static final String CALL_DURATION = "gemini.call.duration";
+    static final String OPERATION_DURATION = "gemini.operation.duration";
+    static final String TOKENS = "gemini.tokens";
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public GeminiTelemetry(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.registry = meterRegistry.getIfAvailable();
+    }
+
+    GeminiTelemetry(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    static GeminiTelemetry disabled() {
+        return new GeminiTelemetry((MeterRegistry) null);
+    }
+
+    /**
+     * Records one HTTP attempt against one model; {@code failure} is null when the attempt succeeded.
+     */
+    public void recordCall(GeminiOperation operation, String model, int attempt, long startedAtNanos, Throwable failure) {
+        if (registry == null) {
+            return;
+        }
+
+        Timer.builder(CALL_DURATION)
+                .description("Duration of a single Gemini HTTP attempt")
+                .tag("operation", operationTag(operation))
+                .tag("model", model)
+                .tag("attempt", Integer.toString(attempt))
+                .tag("outcome", outcome(failure))
+                .register(registry)
+                .record(System.nanoTime() - startedAtNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a whole operation from the caller's point of view, including queueing, retries and fallbacks.
+     */
+    public void recordOperation(GeminiOperation operation, long startedAtNanos, Throwable failure) {
+        if (registry == null) {
+            return;
+        }
+
+        Timer.builder(OPERATION_DURATION)
+                .description("End-to-end duration of a Gemini operation")
+                .tag("operation", operationTag(operation))
+                .tag("outcome", outcome(failure))
+                .register(registry)
+                .record(System.nanoTime() - startedAtNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the {@code usageMetadata} token counts of a Gemini response, if it reported any.
+     */
+    public void recordUsage(GeminiOperation operation, String model, JsonNode response) {
+        if (registry == null || response == null) {
+            return;
+        }
+
+        JsonNode usage = response.path("usageMetadata");
+        recordTokens(operation, model, "prompt", usage.path("promptTokenCount"));
+        recordTokens(operation, model, "candidates", usage.path("candidatesTokenCount"));
+        recordTokens(operation, model, "total", usage.path("totalTokenCount"));
+    }
+
+    private void recordTokens(GeminiOperation operation, String model, String type, JsonNode count) {
+        if (!count.canConvertToLong()) {
+            return;
+        }
+
+        DistributionSummary.builder(TOKENS)
+                .description("Tokens reported by Gemini per call")
+                .baseUnit("tokens")
+                .tag("operation", operationTag(operation))
+                .tag("model", model)
+                .tag("type", type)
+                .register(registry)
+                .record(count.asLong());
+    }
+
+    private static String operationTag(GeminiOperation operation) {
+        return operation.name().toLowerCase(Locale.ROOT);
+    }
+
+    static String outcome(Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        if (cause == null) {
+            return "success";
+        }
+        if (cause instanceof RestClientResponseException e) {
+            int statusCode = e.getStatusCode().value();
+            if (statusCode == 429) {
+                return "throttled";
+            }
+            return e.getStatusCode().is5xxServerError() ? "server_error" : "client_error";
+        }
+        if (cause instanceof RestClientException) {
+            return "transport_error";
+        }
+        if (cause instanceof AppException e && e.getCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+            return "rejected";
+        }
+        return "error";
+    }
+}
@@ -0,0 +1,181 @@
+package org.jakub.backendapi.services;
+
+import com.google.api.client.auth.openidconnect.IdTokenVerifier;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.Key;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One Google ID-token verifier for the whole application, sharing its HTTP transport and Google's
+ * certificate cache across sign-ins. Certificates are cached for as long as Google's {@code Cache-Control}
+ * header allows and refreshed in the background ahead of expiry, so no sign-in waits on the fetch.
+ *
+ * <p>When {@code oauth.google.certs-file} points at a local JWKS file, tokens are verified against those
+ * RSA keys instead and Google is never contacted; this is meant for tests and offline environments.
+ */
+@Service
+public class GoogleTokenVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(GoogleTokenVerifier.class);
+    private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
+    private static final List<String> ISSUERS = List.of("accounts.google.com", "https://accounts.google.com");
+    private static final long RETRY_DELAY_SECONDS = 60;
+
+    public static class JsonWebKeySet extends GenericJson {
+        @Key
+        public List<JsonWebKey> keys;
+    }
+
+    public static class JsonWebKey extends GenericJson {
+        @Key
+        public String kid;
+        @Key
+        public String kty;
+        @Key
+        public String n;
+        @Key
+        public String e;
+    }
+
+    private final List<String> audience;
+    private final GoogleIdTokenVerifier verifier;
+    private final Map<String, PublicKey> localKeys;
+    private final long refreshAheadSeconds;
+    private final ScheduledExecutorService refreshTimer;
+
+    @Autowired
+    public GoogleTokenVerifier(
+            @Value("${oauth.google.client-id:}") String clientId,
+            @Value("${oauth.google.certs-file:}") String certsFile,
+            @Value("${oauth.google.certs-refresh-ahead-seconds:600}") long refreshAheadSeconds
+    ) {
+        this.audience = Collections.singletonList(clientId);
+        this.refreshAheadSeconds = refreshAheadSeconds;
+
+        if (StringUtils.hasText(certsFile)) {
+            this.verifier = null;
+            this.localKeys = loadJsonWebKeys(Path.of(certsFile.trim()));
+            this.refreshTimer = null;
+            log.info("Verifying Google ID tokens against {} local keys from {}", localKeys.size(), certsFile);
+            return;
+        }
+
+        GooglePublicKeysManager publicKeys = new GooglePublicKeysManager(new NetHttpTransport(), JSON_FACTORY);
+        this.verifier = new GoogleIdTokenVerifier.Builder(publicKeys)
+                .setAudience(audience)
+                .build();
+        this.localKeys = null;
+
+        if (refreshAheadSeconds > 0) {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "google-certs-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.refreshTimer = timer;
+            timer.schedule(this::refreshCertificates, 0, TimeUnit.SECONDS);
+        } else {
+            this.refreshTimer = null;
+        }
+    }
+
+    GoogleTokenVerifier(String clientId, Path certsFile) {
+        this(clientId, certsFile.toString(), 0);
+    }
+
+    /**
+     * Returns the verified token, or {@code null} when its signature, issuer, audience or lifetime is invalid.
+     */
+    public GoogleIdToken verify(String idTokenString) throws GeneralSecurityException, IOException {
+        if (verifier != null) {
+            return verifier.verify(idTokenString);
+        }
+
+        GoogleIdToken idToken = GoogleIdToken.parse(JSON_FACTORY, idTokenString);
+        PublicKey key = localKeys.get(idToken.getHeader().getKeyId());
+        boolean valid = key != null
+                && idToken.verifySignature(key)
+                && idToken.verifyIssuer(ISSUERS)
+                && idToken.verifyAudience(audience)
+                && idToken.verifyTime(System.currentTimeMillis(), IdTokenVerifier.DEFAULT_TIME_SKEW_SECONDS);
+        return valid ? idToken : null;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refreshTimer != null) {
+            refreshTimer.shutdownNow();
+        }
+    }
+
+    // The keys manager refreshes on demand within five minutes of expiry, so refreshing earlier than that
+    // keeps the fetch off the request path. Failures retry shortly and the cached certificates stay in use.
+    private void refreshCertificates() {
+        long delaySeconds = RETRY_DELAY_SECONDS;
+        try {
+            GooglePublicKeysManager publicKeys = verifier.getPublicKeysManager().refresh();
+            long secondsUntilExpiry = (publicKeys.getExpirationTimeMilliseconds() - System.currentTimeMillis()) / 1000;
+            delaySeconds = Math.max(RETRY_DELAY_SECONDS, secondsUntilExpiry - refreshAheadSeconds);
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            log.warn("Could not refresh Google public certificates: {}", e.getMessage());
+        }
+
+        if (!refreshTimer.isShutdown()) {
+            refreshTimer.schedule(this::refreshCertificates, delaySeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private static Map<String, PublicKey> loadJsonWebKeys(Path certsFile) {
+        try {
+            JsonWebKeySet keySet = JSON_FACTORY.fromString(Files.readString(certsFile, StandardCharsets.UTF_8), JsonWebKeySet.class);
+            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            Map<String, PublicKey> keys = new LinkedHashMap<>();
+            if (keySet.keys != null) {
+                for (JsonWebKey key : keySet.keys) {
+                    if (!"RSA".equals(key.kty) || key.kid == null || key.n == null || key.e == null) {
+                        continue;
+                    }
+                    BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(key.n));
+                    BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(key.e));
+                    keys.put(key.kid, keyFactory.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+                }
+            }
+            if (keys.isEmpty()) {
+                throw new IllegalStateException("No RSA keys in " + certsFile);
+            }
+            return Map.copyOf(keys);
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Could not load Google certificates from " + certsFile, e);
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package org.jakub.backendapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PreDestroy;
+import org.jakub.backendapi.entities.IngredientEquivalence;
+import org.jakub.backendapi.repositories.IngredientEquivalenceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether two ingredient names refer to the same thing, so the shopping-list review only asks
+ * Gemini about pairs nobody has decided yet. Seeded from a bundled dictionary of synonym groups and
+ * extended with the decisions Gemini has made in earlier reviews. A learned equivalence only takes effect
+ * once reviews for {@code equivalent-confirmations} different users agree; until then the pair is still
+ * reviewed, and a contradicting review replaces it. Learned decisions expire ({@code distinct-ttl-hours},
+ * {@code equivalent-ttl-hours}) so a pair is reviewed again later, and are written to the database in
+ * batches by a background writer.
+ */
+@Service
+public class IngredientSynonymIndex {
+
+    public enum Match {
+        EQUIVALENT,
+        DISTINCT,
+        UNKNOWN
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(IngredientSynonymIndex.class);
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private static final int DEFAULT_EQUIVALENT_CONFIRMATIONS = 2;
+    private static final Duration DEFAULT_DISTINCT_TTL = Duration.ofDays(7);
+    private static final Duration DEFAULT_EQUIVALENT_TTL = Duration.ofDays(30);
+    private static final long DEFAULT_WRITE_INTERVAL_MS = 5000;
+
+    private final Map<String, String> dictionaryGroups;
+    private final Cache<String, Decision> learnedDecisions;
+    private final Map<String, Decision> pendingWrites = new ConcurrentHashMap<>();
+    private final IngredientEquivalenceRepository repository;
+    private final int maxLearnedPairs;
+    private final int equivalentConfirmations;
+    private final Clock clock;
+    private final ScheduledExecutorService writer;
+    private volatile boolean learnedDecisionsLoaded;
+
+    @Autowired
+    public IngredientSynonymIndex(
+            @Value("${shopping-list.synonyms.dictionary:classpath:ingredient-synonyms.txt}") Resource dictionary,
+            @Value("${shopping-list.synonyms.learning-enabled:true}") boolean learningEnabled,
+            @Value("${shopping-list.synonyms.max-learned-pairs:100000}") int maxLearnedPairs,
+            @Value("${shopping-list.synonyms.equivalent-confirmations:2}") int equivalentConfirmations,
+            @Value("${shopping-list.synonyms.distinct-ttl-hours:168}") long distinctTtlHours,
+            @Value("${shopping-list.synonyms.equivalent-ttl-hours:720}") long equivalentTtlHours,
+            @Value("${shopping-list.synonyms.write-interval-ms:5000}") long writeIntervalMs,
+            IngredientEquivalenceRepository repository
+    ) {
+        this(readDictionary(dictionary), learningEnabled ? maxLearnedPairs : 0, equivalentConfirmations,
+                Duration.ofHours(distinctTtlHours), Duration.ofHours(equivalentTtlHours), writeIntervalMs,
+                Clock.systemUTC(), repository);
+    }
+
+    IngredientSynonymIndex(List<List<String>> synonymGroups, int maxLearnedPairs, IngredientEquivalenceRepository repository) {
+        this(synonymGroups, maxLearnedPairs, DEFAULT_DISTINCT_TTL, DEFAULT_WRITE_INTERVAL_MS, Clock.systemUTC(), repository);
+    }
+
+    IngredientSynonymIndex(
+            List<List<String>> synonymGroups,
+            int maxLearnedPairs,
+            Duration distinctTtl,
+            long writeIntervalMs,
+            Clock clock,
+            IngredientEquivalenceRepository repository
+    ) {
+        this(synonymGroups, maxLearnedPairs, DEFAULT_EQUIVALENT_CONFIRMATIONS, distinctTtl, DEFAULT_EQUIVALENT_TTL,
+                writeIntervalMs, clock, repository);
+    }
+
+    IngredientSynonymIndex(
+            List<List<String>> synonymGroups,
+            int maxLearnedPairs,
+            int equivalentConfirmations,
+            Duration distinctTtl,
+            Duration equivalentTtl,
+            long writeIntervalMs,
+            Clock clock,
+            IngredientEquivalenceRepository repository
+    ) {
+        this.dictionaryGroups = indexGroups(synonymGroups);
+        this.maxLearnedPairs = Math.max(0, maxLearnedPairs);
+        this.equivalentConfirmations = Math.max(1, equivalentConfirmations);
+        this.clock = clock;
+        if (this.maxLearnedPairs == 0) {
+            this.learnedDecisions = null;
+            this.repository = null;
+            this.writer = null;
+            this.learnedDecisionsLoaded = true;
+            return;
+        }
+
+        this.learnedDecisions = Caffeine.newBuilder()
+                .maximumSize(this.maxLearnedPairs)
+                .expireAfter(new DecisionExpiry(Math.max(0, distinctTtl.toMillis()), Math.max(0, equivalentTtl.toMillis())))
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .build();
+        this.repository = repository;
+        this.learnedDecisionsLoaded = repository == null;
+        if (repository == null) {
+            this.writer = null;
+            return;
+        }
+
+        long intervalMs = Math.max(1, writeIntervalMs);
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ingredient-synonym-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writer.scheduleWithFixedDelay(this::flushPendingWrites, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    static IngredientSynonymIndex empty() {
+        return new IngredientSynonymIndex(List.of(), 0, null);
+    }
+
+    /**
+     * Dictionary groups win, then learned decisions; anything else is left for the AI review. Two names in
+     * different dictionary groups are not assumed distinct, since the dictionary only lists known synonyms,
+     * and a learned equivalence still short of its confirmations is reported as unknown.
+     */
+    public Match match(String firstName, String secondName) {
+        String first = normalize(firstName);
+        String second = normalize(secondName);
+        if (first.isEmpty() || second.isEmpty()) {
+            return Match.UNKNOWN;
+        }
+        if (first.equals(second)) {
+            return Match.EQUIVALENT;
+        }
+
+        String firstGroup = dictionaryGroups.get(first);
+        String secondGroup = dictionaryGroups.get(second);
+        if (firstGroup != null && firstGroup.equals(secondGroup)) {
+            return Match.EQUIVALENT;
+        }
+
+        if (learnedDecisions != null) {
+            loadLearnedDecisions();
+            Decision learned = learnedDecisions.getIfPresent(pairKey(first, second));
+            if (learned != null && !learned.equivalent()) {
+                return Match.DISTINCT;
+            }
+            if (learned != null && learned.confirmations() >= equivalentConfirmations) {
+                return Match.EQUIVALENT;
+            }
+        }
+
+        return Match.UNKNOWN;
+    }
+
+    /**
+     * Remembers an AI review decision made for {@code reviewer}'s shopping list and queues it for the
+     * background writer when it is new or has changed. An equivalence counts one confirmation per reviewer
+     * in a row, so a single user's reviews never settle a pair for everybody.
+     */
+    public void learn(String firstName, String secondName, boolean equivalent, String reviewer) {
+        if (learnedDecisions == null) {
+            return;
+        }
+
+        String first = normalize(firstName);
+        String second = normalize(secondName);
+        if (first.isEmpty() || second.isEmpty() || first.equals(second)
+                || first.length() > MAX_NAME_LENGTH || second.length() > MAX_NAME_LENGTH) {
+            return;
+        }
+
+        loadLearnedDecisions();
+        String key = pairKey(first, second);
+        String reviewerKey = reviewerKey(reviewer);
+        Decision previous = learnedDecisions.getIfPresent(key);
+        Decision decision;
+        if (previous == null || previous.equivalent() != equivalent) {
+            decision = new Decision(equivalent, 1, reviewerKey, clock.millis());
+        } else if (equivalent && previous.confirmations() < equivalentConfirmations
+                && !reviewerKey.equals(previous.lastReviewer())) {
+            decision = new Decision(true, previous.confirmations() + 1, reviewerKey, clock.millis());
+        } else {
+            return;
+        }
+
+        learnedDecisions.put(key, decision);
+        if (repository != null) {
+            pendingWrites.put(key, decision);
+        }
+    }
+
+    /**
+     * Stores the queued decisions with one lookup and one batch save.
+     */
+    void flushPendingWrites() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+
+        Map<String, Decision> batch = new HashMap<>();
+        for (String key : pendingWrites.keySet()) {
+            Decision decision = pendingWrites.remove(key);
+            if (decision != null) {
+                batch.put(key, decision);
+            }
+        }
+
+        try {
+            Set<String> firstNames = new HashSet<>();
+            for (String key : batch.keySet()) {
+                firstNames.add(key.substring(0, key.indexOf('\n')));
+            }
+            Map<String, IngredientEquivalence> existing = new HashMap<>();
+            for (IngredientEquivalence entry : repository.findByFirstNameIn(firstNames)) {
+                existing.put(pairKey(entry.getFirstName(), entry.getSecondName()), entry);
+            }
+
+            List<IngredientEquivalence> entries = new ArrayList<>(batch.size());
+            batch.forEach((key, decision) -> {
+                Instant learnedAt = Instant.ofEpochMilli(decision.learnedAtMillis());
+                IngredientEquivalence entry = existing.get(key);
+                if (entry == null) {
+                    int separator = key.indexOf('\n');
+                    entry = new IngredientEquivalence(
+                            key.substring(0, separator), key.substring(separator + 1), decision.equivalent(), learnedAt);
+                }
+                entry.setEquivalent(decision.equivalent());
+                entry.setConfirmations(decision.confirmations());
+                entry.setLastReviewer(decision.lastReviewer());
+                entry.setCreatedAt(learnedAt);
+                entries.add(entry);
+            });
+            repository.saveAll(entries);
+        } catch (RuntimeException e) {
+            // Runs on the writer thread, where an escaping exception would stop all later writes.
+            log.warn("Could not store {} ingredient equivalences: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdownNow();
+        flushPendingWrites();
+    }
+
+    static String normalize(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Loaded on first use rather than at startup so the index can be built before the schema is migrated.
+    private void loadLearnedDecisions() {
+        if (learnedDecisionsLoaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (learnedDecisionsLoaded) {
+                return;
+            }
+            try {
+                PageRequest newestFirst = PageRequest.of(0, maxLearnedPairs, Sort.by(Sort.Direction.DESC, "createdAt"));
+                for (IngredientEquivalence entry : repository.findAll(newestFirst)) {
+                    learnedDecisions.put(
+                            pairKey(entry.getFirstName(), entry.getSecondName()),
+                            new Decision(
+                                    entry.isEquivalent(),
+                                    entry.getConfirmations(),
+                                    entry.getLastReviewer(),
+                                    entry.getCreatedAt().toEpochMilli()
+                            )
+                    );
+                }
+            } catch (DataAccessException e) {
+                log.warn("Could not load learned ingredient equivalences: {}", e.getMessage());
+            }
+            learnedDecisionsLoaded = true;
+        }
+    }
+
+    private static String pairKey(String first, String second) {
+        return first.compareTo(second) <= 0 ? first + "\n" + second : second + "\n" + first;
+    }
+
+    // Only a digest of the reviewer is kept, since learned decisions are shared by every user.
+    private static String reviewerKey(String reviewer) {
+        String normalized = reviewer == null ? "" : reviewer.trim().toLowerCase(Locale.ROOT);
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Decision(boolean equivalent, int confirmations, String lastReviewer, long learnedAtMillis) {
+    }
+
+    // Decisions expire counting from their latest review, so even a confirmed equivalence is re-checked eventually.
+    private static final class DecisionExpiry implements Expiry<String, Decision> {
+
+        private final long distinctTtlMillis;
+        private final long equivalentTtlMillis;
+
+        private DecisionExpiry(long distinctTtlMillis, long equivalentTtlMillis) {
+            this.distinctTtlMillis = distinctTtlMillis;
+            this.equivalentTtlMillis = equivalentTtlMillis;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Decision decision, long currentTime) {
+            long ttlMillis = decision.equivalent() ? equivalentTtlMillis : distinctTtlMillis;
+            long expiresAt = TimeUnit.MILLISECONDS.toNanos(decision.learnedAtMillis() + ttlMillis);
+            return Math.max(0, expiresAt - currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Decision decision, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, decision, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Decision decision, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private static Map<String, String> indexGroups(List<List<String>> synonymGroups) {
+        Map<String, String> groups = new HashMap<>();
+        for (List<String> group : synonymGroups) {
+            List<String> names = group.stream()
+                    .map(IngredientSynonymIndex::normalize)
+                    .filter(StringUtils::hasText)
+                    .toList();
+            if (names.isEmpty()) {
+                continue;
+            }
+
+            String canonical = names.get(0);
+            for (String name : names) {
+                String existing = groups.putIfAbsent(name, canonical);
+                if (existing != null && !existing.equals(canonical)) {
+                    log.warn("Ingredient '{}' is listed in more than one synonym group; keeping '{}'", name, existing);
+                }
+            }
+        }
+        return Map.copyOf(groups);
+    }
+
+    private static List<List<String>> readDictionary(Resource dictionary) {
+        if (dictionary == null || !dictionary.exists()) {
+            log.warn("Ingredient synonym dictionary not found; only learned equivalences will be used");
+            return List.of();
+        }
+
+        List<List<String>> groups = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(dictionary.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                groups.add(Arrays.asList(trimmed.split(",")));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read ingredient synonym dictionary", e);
+        }
+        return groups;
+    }
+}
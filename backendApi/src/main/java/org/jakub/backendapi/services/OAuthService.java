@@ -1,9 +1,6 @@
 package org.jakub.backendapi.services;
 
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
-import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
 import org.jakub.backendapi.dto.UserDto;
 import org.jakub.backendapi.entities.Enums.AuthMethod;
 import org.jakub.backendapi.entities.Enums.Role;
@@ -15,11 +12,9 @@ import org.jakub.backendapi.mappers.UserMapper;
 import org.jakub.backendapi.repositories.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
 import java.util.Optional;
 import java.util.List;
 
@@ -33,24 +28,19 @@ public class OAuthService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final UserService userService;
+    private final GoogleTokenVerifier googleTokenVerifier;
 
-    @Value("${oauth.google.client-id:}")
-    private String googleClientId;
-
-    public OAuthService(UserRepository userRepository, UserMapper userMapper, UserService userService) {
+    public OAuthService(UserRepository userRepository, UserMapper userMapper, UserService userService,
+                        GoogleTokenVerifier googleTokenVerifier) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
         this.userService = userService;
+        this.googleTokenVerifier = googleTokenVerifier;
     }
 
     public UserDto authenticateGoogle(String idTokenString, boolean acceptedTerms, boolean acceptedPrivacy) {
         try {
-            GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(
-                    new NetHttpTransport(), GsonFactory.getDefaultInstance())
-                    .setAudience(Collections.singletonList(googleClientId))
-                    .build();
-
-            GoogleIdToken idToken = verifier.verify(idTokenString);
+            GoogleIdToken idToken = googleTokenVerifier.verify(idTokenString);
             if (idToken == null) {
                 log.warn("Google sign-in failed: invalid ID token received");
                 throw new AppException(GENERIC_GOOGLE_AUTH_FAILURE_MESSAGE, HttpStatus.UNAUTHORIZED);
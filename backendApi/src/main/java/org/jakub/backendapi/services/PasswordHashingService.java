@@ -0,0 +1,221 @@
+package org.jakub.backendapi.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.jakub.backendapi.exceptions.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing and verification on a small dedicated pool, so a burst of logins burns at most
+ * that many cores. The calling request thread still waits for the result, so the pool bounds how many
+ * request threads are held behind BCrypt rather than freeing them: hashing threads plus queue capacity is
+ * capped at half of {@code server.tomcat.threads.max}. Work beyond the bounded queue, or still waiting
+ * after {@code max-wait-ms}, is rejected with 503 and Retry-After.
+ */
+@Service
+public class PasswordHashingService {
+
+    static final String HASH_DURATION = "auth.password.hash.duration";
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+    private static final String BUSY_MESSAGE = "Too many sign-in attempts right now. Please try again shortly.";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor workers;
+    private final long maxWaitMs;
+    private final long retryAfterSeconds;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    @Autowired
+    public PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            @Value("${security.password-hashing.enabled:true}") boolean enabled,
+            @Value("${security.password-hashing.threads:0}") int threads,
+            @Value("${security.password-hashing.queue-capacity:50}") int queueCapacity,
+            @Value("${security.password-hashing.max-wait-ms:5000}") long maxWaitMs,
+            @Value("${security.password-hashing.retry-after-seconds:2}") long retryAfterSeconds,
+            @Value("${server.tomcat.threads.max:200}") int requestThreads,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        this(passwordEncoder, enabled, resolveThreads(threads),
+                cappedQueueCapacity(resolveThreads(threads), queueCapacity, requestThreads),
+                Duration.ofMillis(maxWaitMs), retryAfterSeconds, meterRegistry.getIfAvailable());
+    }
+
+    PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            boolean enabled,
+            int threads,
+            int queueCapacity,
+            Duration maxWait,
+            long retryAfterSeconds,
+            MeterRegistry meterRegistry
+    ) {
+        this.passwordEncoder = passwordEncoder;
+        this.maxWaitMs = Math.max(1, maxWait.toMillis());
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        this.meterRegistry = meterRegistry;
+
+        if (!enabled) {
+            this.workers = null;
+            return;
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        int workerCount = Math.max(1, threads);
+        this.workers = new ThreadPoolExecutor(
+                workerCount,
+                workerCount,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        this.workers.allowCoreThreadTimeOut(true);
+        if (meterRegistry != null) {
+            registerMetrics(meterRegistry);
+        }
+    }
+
+    /**
+     * Hashes on the calling thread; for tests and callers that manage their own threads.
+     */
+    static PasswordHashingService inline(PasswordEncoder passwordEncoder) {
+        return new PasswordHashingService(passwordEncoder, false, 1, 1, Duration.ZERO, 1, null);
+    }
+
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run("verify", () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    public String encode(CharSequence rawPassword) {
+        return run("encode", () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Whether the hash was made with a lower work factor than the encoder now uses and should be replaced
+     * the next time the plain password is at hand.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private static int resolveThreads(int threads) {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Every queued or running hash holds a request thread, so together they may take at most half the pool.
+    static int cappedQueueCapacity(int threads, int queueCapacity, int requestThreads) {
+        int capped = Math.max(1, Math.min(queueCapacity, requestThreads / 2 - threads));
+        if (capped < queueCapacity) {
+            log.warn("Password hashing queue capacity {} would hold too many of the {} request threads; using {}",
+                    queueCapacity, requestThreads, capped);
+        }
+        return capped;
+    }
+
+    int queueDepth() {
+        return workers == null ? 0 : workers.getQueue().size();
+    }
+
+    int activeCount() {
+        return workers == null ? 0 : workers.getActiveCount();
+    }
+
+    private <T> T run(String operation, Supplier<T> work) {
+        if (workers == null) {
+            return timed(operation, work);
+        }
+
+        Future<T> future;
+        try {
+            future = workers.submit(() -> timed(operation, work));
+        } catch (RejectedExecutionException e) {
+            throw reject();
+        }
+
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw reject();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AppException("Password check interrupted.", HttpStatus.INTERNAL_SERVER_ERROR);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private <T> T timed(String operation, Supplier<T> work) {
+        long startedAt = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            if (meterRegistry != null) {
+                Timer.builder(HASH_DURATION)
+                        .description("Duration of a single password hash or verification")
+                        .tag("operation", operation)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private AppException reject() {
+        rejectedCount.incrementAndGet();
+        return new AppException(BUSY_MESSAGE, HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds);
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("auth.password.queue_depth", this, PasswordHashingService::queueDepth)
+                .description("Password hashes waiting for a hashing thread")
+                .register(registry);
+        Gauge.builder("auth.password.active", this, PasswordHashingService::activeCount)
+                .description("Password hashes currently running")
+                .register(registry);
+        FunctionCounter.builder("auth.password.rejected", rejectedCount, AtomicLong::get)
+                .description("Password hashes rejected because the hashing pool was saturated")
+                .register(registry);
+    }
+}
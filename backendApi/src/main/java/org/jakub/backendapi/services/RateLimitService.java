@@ -1,49 +1,181 @@
 package org.jakub.backendapi.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.jakub.backendapi.exceptions.AppException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
+/**
+ * Sliding-window rate limits kept as one packed {@code long} per key, updated with CAS: the index of the
+ * current fixed window and the request counts of that window and the previous one. The sliding count is
+ * the current count plus the previous count weighted by how much of the previous window the sliding
+ * window still covers, which approximates a per-request log without storing a timestamp per request.
+ *
+ * <p>A key is dropped two windows after its last request, when its sliding count is zero again, and at
+ * most {@code rate-limit.max-keys} keys are tracked, so a flood of distinct IPs cannot grow the heap.
+ */
 @Service
 public class RateLimitService {
 
-    private final ConcurrentHashMap<String, Deque<Long>> requestBuckets = new ConcurrentHashMap<>();
+    static final String CACHE_NAME = "rate-limit.keys";
+    private static final int MAX_COUNT = 0xFFFF;
 
-    public void assertAllowed(String key, int maxRequests, long windowMillis, String errorMessage) {
-        long now = System.currentTimeMillis();
-        Deque<Long> timestamps = requestBuckets.computeIfAbsent(key, ignored -> new ArrayDeque<>());
+    private final Cache<String, Window> windows;
+    private final Clock clock;
 
-        synchronized (timestamps) {
-            trimExpiredRequests(timestamps, now, windowMillis);
+    @Autowired
+    public RateLimitService(
+            @Value("${rate-limit.max-keys:100000}") long maxKeys,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        this(maxKeys, Clock.systemUTC(), meterRegistry.getIfAvailable());
+    }
 
-            if (timestamps.size() >= maxRequests) {
-                throw new AppException(errorMessage, HttpStatus.TOO_MANY_REQUESTS);
-            }
+    RateLimitService(long maxKeys, Clock clock, MeterRegistry meterRegistry) {
+        this.clock = clock;
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxKeys))
+                .expireAfter(new IdleAfterTwoWindows())
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, windows, CACHE_NAME);
+        }
+    }
 
-            timestamps.addLast(now);
+    public void assertAllowed(String key, int maxRequests, long windowMillis, String errorMessage) {
+        if (!window(key, windowMillis).tryAcquire(clock.millis(), maxRequests)) {
+            throw new AppException(errorMessage, HttpStatus.TOO_MANY_REQUESTS);
         }
     }
 
     public int getCurrentRequestCount(String key, long windowMillis) {
-        long now = System.currentTimeMillis();
-        Deque<Long> timestamps = requestBuckets.get(key);
-        if (timestamps == null) {
+        Window window = windows.getIfPresent(key);
+        if (window == null || window.windowMillis != windowMillis) {
             return 0;
         }
+        return (int) Math.ceil(window.slidingCount(clock.millis()));
+    }
+
+    long trackedKeys() {
+        windows.cleanUp();
+        return windows.estimatedSize();
+    }
 
-        synchronized (timestamps) {
-            trimExpiredRequests(timestamps, now, windowMillis);
-            return timestamps.size();
+    private Window window(String key, long windowMillis) {
+        Window window = windows.get(key, ignored -> new Window(windowMillis));
+        if (window.windowMillis != windowMillis) {
+            Window replacement = new Window(windowMillis);
+            windows.asMap().replace(key, window, replacement);
+            return windows.get(key, ignored -> replacement);
         }
+        return window;
     }
 
-    private void trimExpiredRequests(Deque<Long> timestamps, long now, long windowMillis) {
-        while (!timestamps.isEmpty() && now - timestamps.peekFirst() > windowMillis) {
-            timestamps.pollFirst();
+    static final class Window {
+
+        private static final AtomicLongFieldUpdater<Window> STATE =
+                AtomicLongFieldUpdater.newUpdater(Window.class, "state");
+
+        final long windowMillis;
+        // window index (high 32 bits) | previous window count (16 bits) | current window count (16 bits)
+        private volatile long state;
+
+        Window(long windowMillis) {
+            this.windowMillis = Math.max(1, windowMillis);
+        }
+
+        boolean tryAcquire(long now, int maxRequests) {
+            int index = windowIndex(now);
+            while (true) {
+                long current = state;
+                long rolled = roll(current, index);
+                if (slidingCount(rolled, now) + 1 > maxRequests) {
+                    if (rolled != current) {
+                        STATE.compareAndSet(this, current, rolled);
+                    }
+                    return false;
+                }
+                long next = pack(index(rolled), previousCount(rolled), Math.min(MAX_COUNT, currentCount(rolled) + 1));
+                if (STATE.compareAndSet(this, current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        double slidingCount(long now) {
+            return slidingCount(roll(state, windowIndex(now)), now);
+        }
+
+        private double slidingCount(long rolledState, long now) {
+            double previousWeight = (double) (windowMillis - Math.floorMod(now, windowMillis)) / windowMillis;
+            return previousCount(rolledState) * previousWeight + currentCount(rolledState);
+        }
+
+        // Moves the counts forward to the window containing now; after a skipped window there is nothing to
+        // carry over. A thread that read the clock just before another moved to the next window stays there.
+        private static long roll(long state, int index) {
+            int elapsedWindows = index - index(state);
+            if (elapsedWindows == 0 || elapsedWindows == -1) {
+                return state;
+            }
+            if (elapsedWindows == 1) {
+                return pack(index, currentCount(state), 0);
+            }
+            return pack(index, 0, 0);
+        }
+
+        private int windowIndex(long now) {
+            return (int) Math.floorDiv(now, windowMillis);
+        }
+
+        private static long pack(int index, int previousCount, int currentCount) {
+            return ((long) index << 32) | ((long) previousCount << 16) | currentCount;
+        }
+
+        private static int index(long state) {
+            return (int) (state >>> 32);
+        }
+
+        private static int previousCount(long state) {
+            return (int) (state >>> 16) & MAX_COUNT;
+        }
+
+        private static int currentCount(long state) {
+            return (int) state & MAX_COUNT;
+        }
+    }
+
+    // Two windows after a key's last request its sliding count is zero, so it can go.
+    private static final class IdleAfterTwoWindows implements Expiry<String, Window> {
+
+        @Override
+        public long expireAfterCreate(String key, Window window, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(2 * window.windowMillis);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Window window, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, window, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Window window, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, window, currentTime);
         }
     }
 }
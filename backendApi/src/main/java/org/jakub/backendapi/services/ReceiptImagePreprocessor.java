@@ -0,0 +1,224 @@
+package org.jakub.backendapi.services;
+
+import org.jakub.backendapi.exceptions.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Validates uploaded receipt images from their headers alone and, optionally, shrinks oversized ones
+ * to a maximum edge before they are sent to Gemini.
+ */
+@Service
+public class ReceiptImagePreprocessor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReceiptImagePreprocessor.class);
+
+    static final long MAX_RECEIPT_FILE_SIZE_BYTES = 5L * 1024L * 1024L;
+    private static final int MAX_IMAGE_DIMENSION = 6000;
+    private static final Set<String> ALLOWED_IMAGE_CONTENT_TYPES = Set.of(
+            MediaType.IMAGE_JPEG_VALUE,
+            MediaType.IMAGE_PNG_VALUE,
+            "image/webp"
+    );
+
+    /**
+     * An upload ready to send. {@code content} is the multipart file itself unless the image was downscaled,
+     * so the original bytes are never copied onto the heap.
+     */
+    public record ReceiptImage(String mimeType, long sizeBytes, InputStreamSource content) {
+
+        /**
+         * Copies the content onto the heap so the image outlives the request that uploaded it.
+         */
+        public ReceiptImage detached() throws IOException {
+            if (content instanceof ByteArrayResource) {
+                return this;
+            }
+            try (InputStream input = content.getInputStream()) {
+                return new ReceiptImage(mimeType, sizeBytes, new ByteArrayResource(input.readAllBytes()));
+            }
+        }
+    }
+
+    private record ImageSize(int width, int height) {
+        int longestEdge() {
+            return Math.max(width, height);
+        }
+    }
+
+    private final boolean downscaleEnabled;
+    private final int maxEdge;
+    private final float jpegQuality;
+
+    @Autowired
+    public ReceiptImagePreprocessor(
+            @Value("${gemini.receipt.downscale.enabled:true}") boolean downscaleEnabled,
+            @Value("${gemini.receipt.downscale.max-edge:3072}") int maxEdge,
+            @Value("${gemini.receipt.downscale.jpeg-quality:0.85}") float jpegQuality
+    ) {
+        this.downscaleEnabled = downscaleEnabled;
+        this.maxEdge = Math.max(256, maxEdge);
+        this.jpegQuality = Math.max(0.1f, Math.min(1.0f, jpegQuality));
+    }
+
+    static ReceiptImagePreprocessor validationOnly() {
+        return new ReceiptImagePreprocessor(false, MAX_IMAGE_DIMENSION, 1.0f);
+    }
+
+    public ReceiptImage prepare(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new AppException("Receipt image is required.", HttpStatus.BAD_REQUEST);
+        }
+
+        if (file.getSize() > MAX_RECEIPT_FILE_SIZE_BYTES) {
+            throw new AppException("Receipt image too large. Max size is 5MB.", HttpStatus.BAD_REQUEST);
+        }
+
+        String contentType = StringUtils.hasText(file.getContentType())
+                ? file.getContentType().toLowerCase(Locale.ROOT)
+                : "";
+
+        if (!ALLOWED_IMAGE_CONTENT_TYPES.contains(contentType)) {
+            throw new AppException("Only JPEG, PNG or WEBP images are supported for receipt scanning.", HttpStatus.BAD_REQUEST);
+        }
+
+        ImageSize size = readImageSize(file);
+        if (size.width() > MAX_IMAGE_DIMENSION || size.height() > MAX_IMAGE_DIMENSION) {
+            throw new AppException("Receipt image dimensions are too large.", HttpStatus.BAD_REQUEST);
+        }
+
+        ReceiptImage original = new ReceiptImage(contentType, file.getSize(), file);
+        if (!downscaleEnabled || size.longestEdge() <= maxEdge) {
+            return original;
+        }
+
+        byte[] downscaled = downscale(file, size);
+        if (downscaled == null || downscaled.length >= file.getSize()) {
+            return original;
+        }
+        return new ReceiptImage(MediaType.IMAGE_JPEG_VALUE, downscaled.length, new ByteArrayResource(downscaled));
+    }
+
+    private ImageSize readImageSize(MultipartFile file) {
+        try (InputStream upload = file.getInputStream();
+             ImageInputStream input = ImageIO.createImageInputStream(upload)) {
+            ImageReader reader = firstReader(input);
+            try {
+                reader.setInput(input, true, true);
+                return new ImageSize(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new AppException("Could not validate uploaded receipt image.", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private byte[] downscale(MultipartFile file, ImageSize size) {
+        try {
+            return encodeJpeg(scaleToMaxEdge(decodeSubsampled(file, size.longestEdge())));
+        } catch (IOException | AppException e) {
+            log.warn("Could not downscale receipt image, sending the original: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Subsampling rounds up, so the decoded raster is already within maxEdge and the full-size one is never
+    // allocated; the exact resize then only ever shrinks an image of at most maxEdge pixels on its long side.
+    BufferedImage decodeSubsampled(MultipartFile file, int longestEdge) throws IOException {
+        try (InputStream upload = file.getInputStream();
+             ImageInputStream input = ImageIO.createImageInputStream(upload)) {
+            ImageReader reader = firstReader(input);
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam readParam = reader.getDefaultReadParam();
+                int subsampling = subsampling(longestEdge, maxEdge);
+                readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, readParam);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    static int subsampling(int longestEdge, int maxEdge) {
+        return Math.max(1, (longestEdge + maxEdge - 1) / maxEdge);
+    }
+
+    private BufferedImage scaleToMaxEdge(BufferedImage image) {
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        // JPEG has no alpha channel, so transparent PNG areas are flattened onto white.
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No JPEG encoder available");
+        }
+
+        ImageWriter writer = writers.next();
+        ImageWriteParam writeParam = writer.getDefaultWriteParam();
+        writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        writeParam.setCompressionQuality(jpegQuality);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(image, null, null), writeParam);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    private static ImageReader firstReader(ImageInputStream input) {
+        Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+        if (readers == null || !readers.hasNext()) {
+            throw new AppException("Uploaded file is not a valid image.", HttpStatus.BAD_REQUEST);
+        }
+        return readers.next();
+    }
+}
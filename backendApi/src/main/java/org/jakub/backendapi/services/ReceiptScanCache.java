@@ -0,0 +1,208 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.jakub.backendapi.dto.FridgeIngredientDto;
+import org.jakub.backendapi.entities.ReceiptScanCacheEntry;
+import org.jakub.backendapi.repositories.ReceiptScanCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers parsed receipt scans by the SHA-256 of the uploaded image, so re-uploading the same photo
+ * skips the Gemini call. Entries can optionally be kept in the database to survive restarts.
+ */
+@Service
+public class ReceiptScanCache {
+
+    static final String CACHE_NAME = "gemini.receipts";
+
+    private static final Logger log = LoggerFactory.getLogger(ReceiptScanCache.class);
+    private static final TypeReference<List<FridgeIngredientDto>> ITEMS_TYPE = new TypeReference<>() {
+    };
+    private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+
+    private final Cache<String, List<FridgeIngredientDto>> cache;
+    private final ReceiptScanCacheRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Clock clock;
+    private final AtomicLong nextPurgeAtMillis = new AtomicLong();
+
+    @Autowired
+    public ReceiptScanCache(
+            @Value("${gemini.cache.receipts.enabled:true}") boolean enabled,
+            @Value("${gemini.cache.receipts.max-size:1000}") long maxSize,
+            @Value("${gemini.cache.receipts.ttl-minutes:1440}") long ttlMinutes,
+            @Value("${gemini.cache.receipts.persistent:false}") boolean persistent,
+            ReceiptScanCacheRepository repository,
+            ObjectMapper objectMapper,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        this(
+                enabled,
+                maxSize,
+                Duration.ofMinutes(ttlMinutes),
+                persistent ? repository : null,
+                objectMapper,
+                meterRegistry.getIfAvailable(),
+                Clock.systemUTC()
+        );
+    }
+
+    ReceiptScanCache(
+            boolean enabled,
+            long maxSize,
+            Duration ttl,
+            ReceiptScanCacheRepository repository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            Clock clock
+    ) {
+        this.ttl = ttl;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        if (!enabled || maxSize <= 0 || ttl.isZero() || ttl.isNegative()) {
+            this.cache = null;
+            this.repository = null;
+            return;
+        }
+
+        this.repository = repository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        }
+    }
+
+    static ReceiptScanCache disabled() {
+        return new ReceiptScanCache(false, 0, Duration.ZERO, null, null, null, Clock.systemUTC());
+    }
+
+    /**
+     * Hashes the content type and bytes of an upload. Returns null when caching is off or the upload
+     * would be rejected anyway, so such requests always take the regular validated path.
+     */
+    public String fingerprint(MultipartFile file) {
+        if (cache == null || file == null || file.isEmpty()
+                || file.getSize() > ReceiptImagePreprocessor.MAX_RECEIPT_FILE_SIZE_BYTES) {
+            return null;
+        }
+
+        String contentType = StringUtils.hasText(file.getContentType())
+                ? file.getContentType().toLowerCase(Locale.ROOT)
+                : "";
+        try (InputStream input = file.getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(contentType.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public Optional<List<FridgeIngredientDto>> find(String fingerprint) {
+        if (cache == null || fingerprint == null) {
+            return Optional.empty();
+        }
+
+        List<FridgeIngredientDto> cached = cache.getIfPresent(fingerprint);
+        if (cached != null || repository == null) {
+            return Optional.ofNullable(cached);
+        }
+
+        List<FridgeIngredientDto> stored = loadStored(fingerprint);
+        if (stored != null) {
+            cache.put(fingerprint, stored);
+        }
+        return Optional.ofNullable(stored);
+    }
+
+    public void put(String fingerprint, List<FridgeIngredientDto> items) {
+        if (cache == null || fingerprint == null || items == null) {
+            return;
+        }
+
+        List<FridgeIngredientDto> snapshot = List.copyOf(items);
+        cache.put(fingerprint, snapshot);
+        if (repository != null) {
+            store(fingerprint, snapshot);
+        }
+    }
+
+    private List<FridgeIngredientDto> loadStored(String fingerprint) {
+        try {
+            Optional<ReceiptScanCacheEntry> entry = repository.findById(fingerprint);
+            if (entry.isEmpty() || isExpired(entry.get())) {
+                return null;
+            }
+            return List.copyOf(objectMapper.readValue(entry.get().getItems(), ITEMS_TYPE));
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Could not read stored receipt scan: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(String fingerprint, List<FridgeIngredientDto> items) {
+        try {
+            Instant now = clock.instant();
+            repository.save(new ReceiptScanCacheEntry(fingerprint, objectMapper.writeValueAsString(items), now));
+            purgeExpiredIfDue(now);
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Could not store receipt scan: {}", e.getMessage());
+        }
+    }
+
+    private boolean isExpired(ReceiptScanCacheEntry entry) {
+        return entry.getCreatedAt().plus(ttl).isBefore(clock.instant());
+    }
+
+    // Scheduling is only enabled together with the recipe pool, so rather than depend on it, stale rows are
+    // swept from the write path at most once per interval.
+    private void purgeExpiredIfDue(Instant now) {
+        long due = nextPurgeAtMillis.get();
+        if (now.toEpochMilli() < due
+                || !nextPurgeAtMillis.compareAndSet(due, now.plus(PURGE_INTERVAL).toEpochMilli())) {
+            return;
+        }
+        repository.deleteByCreatedAtBefore(now.minus(ttl));
+    }
+}
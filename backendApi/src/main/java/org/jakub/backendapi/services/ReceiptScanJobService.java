@@ -0,0 +1,214 @@
+package org.jakub.backendapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.jakub.backendapi.dto.FridgeIngredientDto;
+import org.jakub.backendapi.dto.ReceiptScanJobDto;
+import org.jakub.backendapi.exceptions.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs receipt scans as background jobs on a dedicated, bounded pool, so clients can poll or subscribe
+ * for the result instead of holding a request open for the whole Gemini call. Jobs expire after a TTL.
+ */
+@Service
+public class ReceiptScanJobService {
+
+    static final String STATUS_PENDING = "PENDING";
+    static final String STATUS_COMPLETED = "COMPLETED";
+    static final String STATUS_FAILED = "FAILED";
+
+    private static final Logger log = LoggerFactory.getLogger(ReceiptScanJobService.class);
+    private static final String GENERIC_FAILURE_MESSAGE = "Something went wrong. Please try again later.";
+
+    private final GeminiService geminiService;
+    private final ReceiptScanCache receiptScanCache;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, ReceiptScanJob> jobs;
+    private final long eventsTimeoutMs;
+
+    @Autowired
+    public ReceiptScanJobService(
+            GeminiService geminiService,
+            ReceiptScanCache receiptScanCache,
+            @Value("${gemini.receipt-jobs.pool-size:4}") int poolSize,
+            @Value("${gemini.receipt-jobs.queue-capacity:20}") int queueCapacity,
+            @Value("${gemini.receipt-jobs.max-jobs:10000}") long maxJobs,
+            @Value("${gemini.receipt-jobs.ttl-minutes:15}") long ttlMinutes,
+            @Value("${gemini.receipt-jobs.events-timeout-ms:120000}") long eventsTimeoutMs
+    ) {
+        this(geminiService, receiptScanCache, poolSize, queueCapacity, maxJobs, Duration.ofMinutes(ttlMinutes), eventsTimeoutMs);
+    }
+
+    ReceiptScanJobService(
+            GeminiService geminiService,
+            ReceiptScanCache receiptScanCache,
+            int poolSize,
+            int queueCapacity,
+            long maxJobs,
+            Duration ttl,
+            long eventsTimeoutMs
+    ) {
+        this.geminiService = geminiService;
+        this.receiptScanCache = receiptScanCache;
+        this.eventsTimeoutMs = eventsTimeoutMs;
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxJobs))
+                .expireAfterWrite(ttl.isNegative() || ttl.isZero() ? Duration.ofMinutes(1) : ttl)
+                .build();
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        int workerCount = Math.max(1, poolSize);
+        // Each queued job holds its detached image, so the queue bound also caps the memory it can pin.
+        this.workers = new ThreadPoolExecutor(
+                workerCount,
+                workerCount,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "receipt-scan-job-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Validates and copies the upload on the calling thread, then queues the scan. The returned job is
+     * still pending; its result is cached under {@code fingerprint} when it succeeds.
+     */
+    public ReceiptScanJobDto submit(String owner, MultipartFile file, String fingerprint) {
+        ReceiptImagePreprocessor.ReceiptImage image = geminiService.prepareDetachedReceiptScan(file);
+        ReceiptScanJob job = new ReceiptScanJob(owner);
+        jobs.put(job.id, job);
+
+        try {
+            workers.execute(() -> runScan(job, image, fingerprint));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.id);
+            throw new AppException("Too many receipt scans in progress. Please try again shortly.", HttpStatus.SERVICE_UNAVAILABLE, 5L);
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Registers a job that is already finished, for scans answered from the receipt cache.
+     */
+    public ReceiptScanJobDto completed(String owner, List<FridgeIngredientDto> items) {
+        ReceiptScanJob job = new ReceiptScanJob(owner);
+        job.result.complete(items);
+        jobs.put(job.id, job);
+        return job.toDto();
+    }
+
+    public ReceiptScanJobDto getJob(String owner, String jobId) {
+        return findJob(owner, jobId).toDto();
+    }
+
+    /**
+     * Sends a single {@code done} or {@code error} event once the job finishes, then completes the stream.
+     */
+    public SseEmitter subscribe(String owner, String jobId) {
+        ReceiptScanJob job = findJob(owner, jobId);
+        SseEmitter emitter = new SseEmitter(eventsTimeoutMs);
+        job.result.whenComplete((items, failure) -> {
+            try {
+                ReceiptScanJobDto result = job.toDto();
+                if (failure == null) {
+                    emitter.send(SseEmitter.event().name("done").data(result, MediaType.APPLICATION_JSON));
+                } else {
+                    Map<String, Object> error = new LinkedHashMap<>();
+                    error.put("message", result.getErrorMessage());
+                    error.put("status", result.getErrorStatus());
+                    emitter.send(SseEmitter.event().name("error").data(error, MediaType.APPLICATION_JSON));
+                }
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Receipt scan job subscriber disconnected: {}", e.getMessage());
+            }
+        });
+        return emitter;
+    }
+
+    private ReceiptScanJob findJob(String owner, String jobId) {
+        ReceiptScanJob job = jobId == null ? null : jobs.getIfPresent(jobId);
+        // Other clients' jobs look exactly like missing ones, so job ids cannot be probed.
+        if (job == null || !Objects.equals(job.owner, owner)) {
+            throw new AppException("Receipt scan job not found.", HttpStatus.NOT_FOUND);
+        }
+        return job;
+    }
+
+    private void runScan(ReceiptScanJob job, ReceiptImagePreprocessor.ReceiptImage image, String fingerprint) {
+        try {
+            List<FridgeIngredientDto> items = geminiService.extractFridgeIngredientsFromReceipt(image);
+            receiptScanCache.put(fingerprint, items);
+            job.result.complete(items);
+        } catch (RuntimeException e) {
+            if (!(e instanceof AppException)) {
+                log.error("Receipt scan job {} failed", job.id, e);
+            }
+            job.result.completeExceptionally(e);
+        } finally {
+            // Rewrite the entry so a finished job stays readable for the full TTL.
+            jobs.put(job.id, job);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private static final class ReceiptScanJob {
+        private final String id = UUID.randomUUID().toString();
+        private final String owner;
+        private final CompletableFuture<List<FridgeIngredientDto>> result = new CompletableFuture<>();
+
+        private ReceiptScanJob(String owner) {
+            this.owner = owner;
+        }
+
+        private ReceiptScanJobDto toDto() {
+            if (!result.isDone()) {
+                return new ReceiptScanJobDto(id, STATUS_PENDING, null, null, null);
+            }
+
+            try {
+                return new ReceiptScanJobDto(id, STATUS_COMPLETED, result.join(), null, null);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof AppException appException) {
+                    return new ReceiptScanJobDto(id, STATUS_FAILED, null, appException.getMessage(), appException.getCode().value());
+                }
+                return new ReceiptScanJobDto(id, STATUS_FAILED, null, GENERIC_FAILURE_MESSAGE, HttpStatus.INTERNAL_SERVER_ERROR.value());
+            }
+        }
+    }
+}
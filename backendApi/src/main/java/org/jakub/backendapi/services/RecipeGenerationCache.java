@@ -0,0 +1,119 @@
+package org.jakub.backendapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+@Service
+public class RecipeGenerationCache {
+
+    static final String CACHE_NAME = "gemini.recipes";
+
+    private final Cache<String, String> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<String>> pendingGenerations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RecipeGenerationCache(
+            @Value("${gemini.cache.recipes.enabled:true}") boolean enabled,
+            @Value("${gemini.cache.recipes.max-size:500}") long maxSize,
+            @Value("${gemini.cache.recipes.ttl-minutes:360}") long ttlMinutes,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        this(enabled, maxSize, Duration.ofMinutes(ttlMinutes), meterRegistry.getIfAvailable());
+    }
+
+    RecipeGenerationCache(boolean enabled, long maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        if (!enabled || maxSize <= 0 || ttl.isZero() || ttl.isNegative()) {
+            this.cache = null;
+            return;
+        }
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        }
+    }
+
+    static RecipeGenerationCache disabled() {
+        return new RecipeGenerationCache(false, 0, Duration.ZERO, null);
+    }
+
+    /**
+     * Returns the cached recipe JSON for the prompt and count, generating it on a miss. A hit completes
+     * immediately; concurrent misses for the same key share the pending generation, which is cached only
+     * if it succeeds. The generation never runs inside the cache itself, so a slow Gemini call cannot
+     * hold up other keys.
+     */
+    public CompletableFuture<String> getOrGenerateAsync(
+            String recipePrompt,
+            int recipeCount,
+            Supplier<CompletableFuture<String>> generator
+    ) {
+        if (cache == null) {
+            return generator.get();
+        }
+
+        String key = cacheKey(recipePrompt, recipeCount);
+        String cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> existing = pendingGenerations.putIfAbsent(key, pending);
+        if (existing != null) {
+            return existing;
+        }
+
+        CompletableFuture<String> generation;
+        try {
+            generation = generator.get();
+        } catch (RuntimeException e) {
+            generation = CompletableFuture.failedFuture(e);
+        }
+        generation.whenComplete((recipes, failure) -> {
+            if (failure == null) {
+                cache.put(key, recipes);
+                pendingGenerations.remove(key, pending);
+                pending.complete(recipes);
+            } else {
+                pendingGenerations.remove(key, pending);
+                pending.completeExceptionally(failure);
+            }
+        });
+        return pending;
+    }
+
+    static String cacheKey(String recipePrompt, int recipeCount) {
+        String normalizedPrompt = recipePrompt == null
+                ? ""
+                : recipePrompt.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((recipeCount + "\n" + normalizedPrompt).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
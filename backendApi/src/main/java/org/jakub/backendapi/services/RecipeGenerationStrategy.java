@@ -0,0 +1,137 @@
+package org.jakub.backendapi.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Chooses between asking Gemini for a whole batch of recipes in one prompt and fanning out one
+ * single-recipe call per recipe. Output length drives Gemini latency, so once enough latencies have
+ * been observed, fan-out is picked only when it is expected to save a noticeable amount of time. Every
+ * {@code explore-every}-th automatic decision sends the batch as one prompt anyway, so the batch latency
+ * keeps being measured and a batch that got faster can win back.
+ */
+@Service
+public class RecipeGenerationStrategy {
+
+    public enum Mode {
+        AUTO,
+        SINGLE_SHOT,
+        FAN_OUT
+    }
+
+    private static final double EWMA_WEIGHT = 0.2;
+    // Waiting for the slowest of N parallel calls costs more than one average call.
+    private static final double FAN_OUT_STRAGGLER_FACTOR = 1.3;
+    private static final int MAX_TRACKED_COUNT = 5;
+    private static final long NO_SAMPLES = -1;
+    private static final int DEFAULT_EXPLORE_EVERY = 20;
+
+    private final Mode mode;
+    private final int minCount;
+    private final long minSavingMillis;
+    private final int legAttempts;
+    private final int exploreEvery;
+    private final AtomicLong autoDecisions = new AtomicLong();
+    // Index n holds the smoothed latency of a call that returned n recipes in one response.
+    private final AtomicLongArray averageLatencies = new AtomicLongArray(MAX_TRACKED_COUNT + 1);
+
+    @Autowired
+    public RecipeGenerationStrategy(
+            @Value("${gemini.recipes.fan-out.mode:auto}") String mode,
+            @Value("${gemini.recipes.fan-out.min-count:3}") int minCount,
+            @Value("${gemini.recipes.fan-out.min-saving-ms:2000}") long minSavingMillis,
+            @Value("${gemini.recipes.fan-out.leg-attempts:2}") int legAttempts,
+            @Value("${gemini.recipes.fan-out.explore-every:20}") int exploreEvery
+    ) {
+        this(parseMode(mode), minCount, minSavingMillis, legAttempts, exploreEvery);
+    }
+
+    RecipeGenerationStrategy(Mode mode, int minCount, long minSavingMillis, int legAttempts) {
+        this(mode, minCount, minSavingMillis, legAttempts, DEFAULT_EXPLORE_EVERY);
+    }
+
+    RecipeGenerationStrategy(Mode mode, int minCount, long minSavingMillis, int legAttempts, int exploreEvery) {
+        this.mode = mode;
+        this.minCount = Math.max(2, minCount);
+        this.minSavingMillis = Math.max(0, minSavingMillis);
+        this.legAttempts = Math.max(1, legAttempts);
+        // Zero turns exploration off.
+        this.exploreEvery = Math.max(0, exploreEvery);
+        for (int count = 0; count <= MAX_TRACKED_COUNT; count++) {
+            averageLatencies.set(count, NO_SAMPLES);
+        }
+    }
+
+    static RecipeGenerationStrategy singleShot() {
+        return new RecipeGenerationStrategy(Mode.SINGLE_SHOT, 2, 0, 1);
+    }
+
+    public boolean shouldFanOut(int recipeCount) {
+        if (recipeCount < 2 || mode == Mode.SINGLE_SHOT) {
+            return false;
+        }
+        if (mode == Mode.FAN_OUT) {
+            return true;
+        }
+        if (recipeCount < minCount) {
+            return false;
+        }
+        if (exploreEvery > 0 && autoDecisions.incrementAndGet() % exploreEvery == 0) {
+            return false;
+        }
+
+        long singleRecipeMillis = averageLatencies.get(1);
+        if (singleRecipeMillis == NO_SAMPLES) {
+            return true;
+        }
+
+        long batchMillis = averageLatencies.get(Math.min(recipeCount, MAX_TRACKED_COUNT));
+        if (batchMillis == NO_SAMPLES) {
+            batchMillis = singleRecipeMillis * recipeCount;
+        }
+        long fanOutMillis = Math.round(singleRecipeMillis * FAN_OUT_STRAGGLER_FACTOR);
+        return batchMillis - fanOutMillis >= minSavingMillis;
+    }
+
+    /**
+     * How many times a single fan-out leg may be sent before its failure fails the whole batch.
+     */
+    public int legAttempts() {
+        return legAttempts;
+    }
+
+    public void recordSingleShot(int recipeCount, long latencyMillis) {
+        record(Math.min(recipeCount, MAX_TRACKED_COUNT), latencyMillis);
+    }
+
+    public void recordFanOutLeg(long latencyMillis) {
+        record(1, latencyMillis);
+    }
+
+    long averageLatencyMillis(int recipeCount) {
+        return averageLatencies.get(recipeCount);
+    }
+
+    private void record(int recipeCount, long latencyMillis) {
+        if (recipeCount < 1) {
+            return;
+        }
+
+        long sample = Math.max(0, latencyMillis);
+        averageLatencies.getAndUpdate(recipeCount, previous -> previous == NO_SAMPLES
+                ? sample
+                : Math.round(previous + EWMA_WEIGHT * (sample - previous)));
+    }
+
+    private static Mode parseMode(String mode) {
+        if (mode == null || mode.isBlank()) {
+            return Mode.AUTO;
+        }
+        return Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
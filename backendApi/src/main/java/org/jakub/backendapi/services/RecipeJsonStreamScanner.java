@@ -0,0 +1,66 @@
+package org.jakub.backendapi.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incrementally scans streamed JSON text and returns every object that closes at the configured
+ * nesting depth, so recipes can be validated before the whole response has arrived.
+ */
+final class RecipeJsonStreamScanner {
+
+    private final int recipeDepth;
+    private final StringBuilder currentObject = new StringBuilder();
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private boolean capturing;
+
+    RecipeJsonStreamScanner(int recipeDepth) {
+        this.recipeDepth = recipeDepth;
+    }
+
+    List<String> append(String textDelta) {
+        List<String> completedObjects = new ArrayList<>();
+        for (int index = 0; index < textDelta.length(); index++) {
+            char character = textDelta.charAt(index);
+            if (capturing) {
+                currentObject.append(character);
+            }
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (character == '\\') {
+                    escaped = true;
+                } else if (character == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (character) {
+                case '"' -> inString = true;
+                case '{', '[' -> {
+                    depth++;
+                    if (character == '{' && depth == recipeDepth && !capturing) {
+                        capturing = true;
+                        currentObject.setLength(0);
+                        currentObject.append(character);
+                    }
+                }
+                case '}', ']' -> {
+                    if (capturing && character == '}' && depth == recipeDepth) {
+                        completedObjects.add(currentObject.toString());
+                        currentObject.setLength(0);
+                        capturing = false;
+                    }
+                    depth = Math.max(0, depth - 1);
+                }
+                default -> {
+                }
+            }
+        }
+        return completedObjects;
+    }
+}
@@ -0,0 +1,326 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jakub.backendapi.exceptions.AppException;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Validates generated recipe JSON. {@link #validate} checks and re-emits the payload in a single
+ * {@link JsonParser} pass without building a tree; {@link #validateTree} is the tree-based equivalent,
+ * kept for recipes that are already parsed and as the benchmark baseline.
+ */
+final class RecipeJsonValidator {
+
+    static final String INVALID_RECIPE_JSON_MESSAGE = "Gemini returned recipe JSON in an invalid format.";
+
+    private static final int NAME = 1;
+    private static final int DESCRIPTION = 1 << 1;
+    private static final int TIME_TO_PREPARE = 1 << 2;
+    private static final int INGREDIENTS = 1 << 3;
+    private static final int INSTRUCTIONS = 1 << 4;
+    private static final int NUTRITION = 1 << 5;
+    private static final int ALL_RECIPE_FIELDS = (1 << 6) - 1;
+
+    private static final int AMOUNT = 1 << 1;
+    private static final int UNIT = 1 << 2;
+    private static final int ALL_INGREDIENT_FIELDS = NAME | AMOUNT | UNIT;
+
+    private static final int CALORIES = 1;
+    private static final int PROTEIN = 1 << 1;
+    private static final int CARBS = 1 << 2;
+    private static final int FATS = 1 << 3;
+    private static final int ALL_NUTRITION_FIELDS = CALORIES | PROTEIN | CARBS | FATS;
+
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+
+    RecipeJsonValidator(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Validates a single recipe object, or {@code {"recipes":[...]}} with exactly {@code expectedRecipeCount}
+     * recipes, and returns it as compact JSON.
+     */
+    String validate(String payload, int expectedRecipeCount) {
+        StringWriter output = new StringWriter(payload.length());
+        try (JsonParser parser = jsonFactory.createParser(payload);
+             JsonGenerator generator = jsonFactory.createGenerator(output)) {
+            parser.nextToken();
+            if (expectedRecipeCount == 1) {
+                copyRecipe(parser, generator);
+            } else {
+                copyRecipeBatch(parser, generator, expectedRecipeCount);
+            }
+        } catch (IOException e) {
+            throw invalid();
+        }
+        return output.toString();
+    }
+
+    String validateTree(String payload, int expectedRecipeCount) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(payload);
+        } catch (IOException e) {
+            throw invalid();
+        }
+
+        if (expectedRecipeCount == 1) {
+            validateRecipeNode(root);
+        } else {
+            if (!root.isObject()) {
+                throw invalid();
+            }
+
+            JsonNode recipesNode = root.path("recipes");
+            if (!recipesNode.isArray() || recipesNode.size() != expectedRecipeCount) {
+                throw invalid();
+            }
+
+            for (JsonNode recipeNode : recipesNode) {
+                validateRecipeNode(recipeNode);
+            }
+        }
+
+        try {
+            return objectMapper.writeValueAsString(root);
+        } catch (IOException e) {
+            throw invalid();
+        }
+    }
+
+    void validateRecipeNode(JsonNode recipeNode) {
+        if (!recipeNode.isObject()) {
+            throw invalid();
+        }
+
+        requireTextField(recipeNode, "name");
+        requireTextField(recipeNode, "description");
+        requireTextField(recipeNode, "timeToPrepare");
+
+        JsonNode ingredientsNode = recipeNode.path("ingredients");
+        if (!ingredientsNode.isArray() || ingredientsNode.isEmpty()) {
+            throw invalid();
+        }
+        for (JsonNode ingredientNode : ingredientsNode) {
+            if (!ingredientNode.isObject()) {
+                throw invalid();
+            }
+            requireTextField(ingredientNode, "name");
+            requireNumericField(ingredientNode, "amount");
+            requireTextField(ingredientNode, "unit");
+        }
+
+        JsonNode instructionsNode = recipeNode.path("instructions");
+        if (!instructionsNode.isArray() || instructionsNode.isEmpty()) {
+            throw invalid();
+        }
+        for (JsonNode instructionNode : instructionsNode) {
+            if (!instructionNode.isTextual() || !StringUtils.hasText(instructionNode.asText())) {
+                throw invalid();
+            }
+        }
+
+        JsonNode nutritionNode = recipeNode.path("nutrition");
+        if (!nutritionNode.isObject()) {
+            throw invalid();
+        }
+        requireNumericField(nutritionNode, "calories");
+        requireNumericField(nutritionNode, "protein");
+        requireNumericField(nutritionNode, "carbs");
+        requireNumericField(nutritionNode, "fats");
+    }
+
+    private void copyRecipeBatch(JsonParser parser, JsonGenerator generator, int expectedRecipeCount) throws IOException {
+        requireToken(parser, JsonToken.START_OBJECT);
+        generator.writeStartObject();
+        boolean sawRecipes = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            if (!"recipes".equals(fieldName)) {
+                generator.copyCurrentStructure(parser);
+                continue;
+            }
+            if (sawRecipes) {
+                throw invalid();
+            }
+            sawRecipes = true;
+
+            generator.writeFieldName(fieldName);
+            parser.nextToken();
+            requireToken(parser, JsonToken.START_ARRAY);
+            generator.writeStartArray();
+            int recipeCount = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (++recipeCount > expectedRecipeCount) {
+                    throw invalid();
+                }
+                copyRecipe(parser, generator);
+            }
+            if (recipeCount != expectedRecipeCount) {
+                throw invalid();
+            }
+            generator.writeEndArray();
+        }
+        requireToken(parser, JsonToken.END_OBJECT);
+        if (!sawRecipes) {
+            throw invalid();
+        }
+        generator.writeEndObject();
+    }
+
+    private void copyRecipe(JsonParser parser, JsonGenerator generator) throws IOException {
+        requireToken(parser, JsonToken.START_OBJECT);
+        generator.writeStartObject();
+        int seenFields = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            switch (fieldName) {
+                case "name" -> seenFields |= copyText(parser, generator, NAME);
+                case "description" -> seenFields |= copyText(parser, generator, DESCRIPTION);
+                case "timeToPrepare" -> seenFields |= copyText(parser, generator, TIME_TO_PREPARE);
+                case "ingredients" -> {
+                    generator.writeFieldName(fieldName);
+                    copyNonEmptyArray(parser, generator, true);
+                    seenFields |= INGREDIENTS;
+                }
+                case "instructions" -> {
+                    generator.writeFieldName(fieldName);
+                    copyNonEmptyArray(parser, generator, false);
+                    seenFields |= INSTRUCTIONS;
+                }
+                case "nutrition" -> {
+                    generator.writeFieldName(fieldName);
+                    copyNutrition(parser, generator);
+                    seenFields |= NUTRITION;
+                }
+                default -> generator.copyCurrentStructure(parser);
+            }
+        }
+        requireToken(parser, JsonToken.END_OBJECT);
+        if (seenFields != ALL_RECIPE_FIELDS) {
+            throw invalid();
+        }
+        generator.writeEndObject();
+    }
+
+    private void copyNonEmptyArray(JsonParser parser, JsonGenerator generator, boolean ingredients) throws IOException {
+        parser.nextToken();
+        requireToken(parser, JsonToken.START_ARRAY);
+        generator.writeStartArray();
+        boolean empty = true;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            empty = false;
+            if (ingredients) {
+                copyIngredient(parser, generator);
+            } else {
+                requireText(parser);
+                generator.copyCurrentEvent(parser);
+            }
+        }
+        if (empty) {
+            throw invalid();
+        }
+        generator.writeEndArray();
+    }
+
+    private void copyIngredient(JsonParser parser, JsonGenerator generator) throws IOException {
+        requireToken(parser, JsonToken.START_OBJECT);
+        generator.writeStartObject();
+        int seenFields = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            switch (parser.currentName()) {
+                case "name" -> seenFields |= copyText(parser, generator, NAME);
+                case "amount" -> seenFields |= copyNumber(parser, generator, AMOUNT);
+                case "unit" -> seenFields |= copyText(parser, generator, UNIT);
+                default -> generator.copyCurrentStructure(parser);
+            }
+        }
+        requireToken(parser, JsonToken.END_OBJECT);
+        if (seenFields != ALL_INGREDIENT_FIELDS) {
+            throw invalid();
+        }
+        generator.writeEndObject();
+    }
+
+    private void copyNutrition(JsonParser parser, JsonGenerator generator) throws IOException {
+        parser.nextToken();
+        requireToken(parser, JsonToken.START_OBJECT);
+        generator.writeStartObject();
+        int seenFields = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            switch (parser.currentName()) {
+                case "calories" -> seenFields |= copyNumber(parser, generator, CALORIES);
+                case "protein" -> seenFields |= copyNumber(parser, generator, PROTEIN);
+                case "carbs" -> seenFields |= copyNumber(parser, generator, CARBS);
+                case "fats" -> seenFields |= copyNumber(parser, generator, FATS);
+                default -> generator.copyCurrentStructure(parser);
+            }
+        }
+        requireToken(parser, JsonToken.END_OBJECT);
+        if (seenFields != ALL_NUTRITION_FIELDS) {
+            throw invalid();
+        }
+        generator.writeEndObject();
+    }
+
+    // Called on the field name; copies the field and its value and returns the field's bit.
+    private int copyText(JsonParser parser, JsonGenerator generator, int fieldBit) throws IOException {
+        generator.writeFieldName(parser.currentName());
+        parser.nextToken();
+        requireText(parser);
+        generator.copyCurrentEvent(parser);
+        return fieldBit;
+    }
+
+    private int copyNumber(JsonParser parser, JsonGenerator generator, int fieldBit) throws IOException {
+        generator.writeFieldName(parser.currentName());
+        JsonToken token = parser.nextToken();
+        if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT) {
+            throw invalid();
+        }
+        generator.copyCurrentEvent(parser);
+        return fieldBit;
+    }
+
+    private static void requireText(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING || !StringUtils.hasText(parser.getText())) {
+            throw invalid();
+        }
+    }
+
+    private static void requireToken(JsonParser parser, JsonToken expected) {
+        if (parser.currentToken() != expected) {
+            throw invalid();
+        }
+    }
+
+    private static void requireTextField(JsonNode node, String fieldName) {
+        JsonNode fieldNode = node.get(fieldName);
+        if (fieldNode == null || !fieldNode.isTextual() || !StringUtils.hasText(fieldNode.asText())) {
+            throw invalid();
+        }
+    }
+
+    private static void requireNumericField(JsonNode node, String fieldName) {
+        JsonNode fieldNode = node.get(fieldName);
+        if (fieldNode == null || !fieldNode.isNumber()) {
+            throw invalid();
+        }
+    }
+
+    private static AppException invalid() {
+        return new AppException(INVALID_RECIPE_JSON_MESSAGE, HttpStatus.BAD_GATEWAY);
+    }
+}
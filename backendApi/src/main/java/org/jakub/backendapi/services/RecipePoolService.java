@@ -0,0 +1,239 @@
+package org.jakub.backendapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.jakub.backendapi.entities.RecipePoolEntry;
+import org.jakub.backendapi.exceptions.AppException;
+import org.jakub.backendapi.repositories.RecipePoolEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-generates recipe batches off-peak for the prompts (including the diet and disliked-ingredient
+ * preferences appended to them) requested most often since the last run, and serves them to
+ * {@code /generateRecipe}. Each prompt keeps a few batches that are rotated by how often they were
+ * served and retired once stale or served too often. Gemini spend is capped by a daily token budget.
+ */
+@Service
+public class RecipePoolService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipePoolService.class);
+    private static final int MAX_POOLED_RECIPE_COUNT = 5;
+
+    private static final class PromptStats {
+        private final String prompt;
+        private final int recipeCount;
+        private final AtomicLong requests = new AtomicLong();
+
+        private PromptStats(String prompt, int recipeCount) {
+            this.prompt = prompt;
+            this.recipeCount = recipeCount;
+        }
+    }
+
+    private final boolean enabled;
+    private final int minRequests;
+    private final int topPrompts;
+    private final int batchesPerPrompt;
+    private final int maxServes;
+    private final Duration maxAge;
+    private final long dailyTokenBudget;
+    private final long estimatedTokensPerRecipe;
+    private final RecipePoolEntryRepository repository;
+    private final GeminiService geminiService;
+    private final Clock clock;
+    private final Cache<String, PromptStats> promptStats;
+
+    private LocalDate budgetDay;
+    private long tokensSpentToday;
+
+    @Autowired
+    public RecipePoolService(
+            @Value("${recipe-pool.enabled:false}") boolean enabled,
+            @Value("${recipe-pool.min-requests:3}") int minRequests,
+            @Value("${recipe-pool.top-prompts:20}") int topPrompts,
+            @Value("${recipe-pool.batches-per-prompt:3}") int batchesPerPrompt,
+            @Value("${recipe-pool.max-serves-per-batch:3}") int maxServes,
+            @Value("${recipe-pool.max-age-hours:24}") long maxAgeHours,
+            @Value("${recipe-pool.max-tracked-prompts:10000}") long maxTrackedPrompts,
+            @Value("${recipe-pool.daily-token-budget:200000}") long dailyTokenBudget,
+            @Value("${recipe-pool.estimated-tokens-per-recipe:1500}") long estimatedTokensPerRecipe,
+            RecipePoolEntryRepository repository,
+            GeminiService geminiService
+    ) {
+        this(
+                enabled,
+                minRequests,
+                topPrompts,
+                batchesPerPrompt,
+                maxServes,
+                Duration.ofHours(maxAgeHours),
+                maxTrackedPrompts,
+                dailyTokenBudget,
+                estimatedTokensPerRecipe,
+                repository,
+                geminiService,
+                Clock.systemUTC()
+        );
+    }
+
+    RecipePoolService(
+            boolean enabled,
+            int minRequests,
+            int topPrompts,
+            int batchesPerPrompt,
+            int maxServes,
+            Duration maxAge,
+            long maxTrackedPrompts,
+            long dailyTokenBudget,
+            long estimatedTokensPerRecipe,
+            RecipePoolEntryRepository repository,
+            GeminiService geminiService,
+            Clock clock
+    ) {
+        this.enabled = enabled && maxTrackedPrompts > 0;
+        this.minRequests = Math.max(1, minRequests);
+        this.topPrompts = Math.max(0, topPrompts);
+        this.batchesPerPrompt = Math.max(1, batchesPerPrompt);
+        this.maxServes = Math.max(1, maxServes);
+        this.maxAge = maxAge;
+        this.dailyTokenBudget = Math.max(0, dailyTokenBudget);
+        this.estimatedTokensPerRecipe = Math.max(1, estimatedTokensPerRecipe);
+        this.repository = repository;
+        this.geminiService = geminiService;
+        this.clock = clock;
+        this.promptStats = this.enabled
+                ? Caffeine.newBuilder().maximumSize(maxTrackedPrompts).build()
+                : null;
+    }
+
+    public void recordRequest(String recipePrompt, int recipeCount) {
+        if (!isPoolable(recipePrompt, recipeCount)) {
+            return;
+        }
+
+        String key = RecipeGenerationCache.cacheKey(recipePrompt, recipeCount);
+        promptStats.get(key, ignored -> new PromptStats(recipePrompt, recipeCount)).requests.incrementAndGet();
+    }
+
+    /**
+     * Serves the least-served fresh batch for the prompt, if the pool has one. The serve is counted with a
+     * conditional update, so concurrent requests can never serve a batch more than {@code maxServes} times.
+     */
+    public Optional<String> take(String recipePrompt, int recipeCount) {
+        if (!isPoolable(recipePrompt, recipeCount)) {
+            return Optional.empty();
+        }
+
+        String key = RecipeGenerationCache.cacheKey(recipePrompt, recipeCount);
+        try {
+            // A batch that another request served for the last time in between is skipped for the next one.
+            for (int attempt = 0; attempt < batchesPerPrompt; attempt++) {
+                Optional<RecipePoolEntry> entry = repository
+                        .findFirstByPromptKeyAndRecipeCountAndCreatedAtAfterAndServedCountLessThanOrderByServedCountAscCreatedAtDesc(
+                                key, recipeCount, freshAfter(), maxServes);
+                if (entry.isEmpty()) {
+                    return Optional.empty();
+                }
+                if (repository.incrementServedCount(entry.get().getId(), maxServes) == 1) {
+                    return Optional.of(entry.get().getRecipes());
+                }
+            }
+            return Optional.empty();
+        } catch (DataAccessException e) {
+            log.warn("Could not read the recipe pool: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Retires stale batches and tops up the most requested prompts since the last run, stopping once
+     * the day's token budget is spent or Gemini is unavailable.
+     */
+    @Scheduled(cron = "${recipe-pool.cron:0 0 3 * * *}", zone = "${recipe-pool.zone:UTC}")
+    public void refill() {
+        if (!enabled) {
+            return;
+        }
+
+        List<PromptStats> popular = promptStats.asMap().values().stream()
+                .filter(stats -> stats.requests.get() >= minRequests)
+                .sorted(Comparator.comparingLong((PromptStats stats) -> stats.requests.get()).reversed())
+                .limit(topPrompts)
+                .toList();
+        promptStats.invalidateAll();
+
+        int retired = repository.deleteRetired(freshAfter(), maxServes);
+        int generated = 0;
+        for (PromptStats stats : popular) {
+            String key = RecipeGenerationCache.cacheKey(stats.prompt, stats.recipeCount);
+            long available = repository.countByPromptKeyAndRecipeCountAndCreatedAtAfterAndServedCountLessThan(
+                    key, stats.recipeCount, freshAfter(), maxServes);
+            for (long batch = available; batch < batchesPerPrompt; batch++) {
+                if (!hasBudgetFor(stats.recipeCount)) {
+                    log.info("Recipe pool refill stopped at the daily token budget after {} batches", generated);
+                    return;
+                }
+                try {
+                    GeminiService.GeneratedRecipes recipes = geminiService.generateRecipesWithUsage(stats.prompt, stats.recipeCount);
+                    spend(recipes.totalTokens() > 0 ? recipes.totalTokens() : estimatedTokens(stats.recipeCount));
+                    repository.save(new RecipePoolEntry(key, stats.recipeCount, recipes.recipesJson(), clock.instant()));
+                    generated++;
+                } catch (AppException e) {
+                    if (e.getCode() == HttpStatus.SERVICE_UNAVAILABLE || e.getCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                        log.warn("Recipe pool refill stopped, Gemini is unavailable: {}", e.getMessage());
+                        return;
+                    }
+                    log.warn("Recipe pool could not pre-generate a batch: {}", e.getMessage());
+                    spend(estimatedTokens(stats.recipeCount));
+                }
+            }
+        }
+        log.info("Recipe pool refill generated {} batches for {} prompts and retired {}", generated, popular.size(), retired);
+    }
+
+    private boolean isPoolable(String recipePrompt, int recipeCount) {
+        return enabled && recipePrompt != null && recipeCount >= 1 && recipeCount <= MAX_POOLED_RECIPE_COUNT;
+    }
+
+    private Instant freshAfter() {
+        return clock.instant().minus(maxAge);
+    }
+
+    private long estimatedTokens(int recipeCount) {
+        return estimatedTokensPerRecipe * recipeCount;
+    }
+
+    private synchronized boolean hasBudgetFor(int recipeCount) {
+        rollBudgetDay();
+        return tokensSpentToday + estimatedTokens(recipeCount) <= dailyTokenBudget;
+    }
+
+    private synchronized void spend(long tokens) {
+        rollBudgetDay();
+        tokensSpentToday += tokens;
+    }
+
+    private void rollBudgetDay() {
+        LocalDate today = LocalDate.now(clock);
+        if (!today.equals(budgetDay)) {
+            budgetDay = today;
+            tokensSpentToday = 0;
+        }
+    }
+}
@@ -107,6 +107,7 @@ public class RecipeService {
         return recipeRepository.save(recipe);
     }
 
+    @Transactional
     public Page<RecipeDto> findRecipesByUserId(long userId, Pageable pageable, String requesterEmail) {
         User requester = userRepository.findByEmail(requesterEmail)
                 .orElseThrow(() -> new AppException("Unknown user", HttpStatus.NOT_FOUND));
@@ -144,6 +145,7 @@ public class RecipeService {
         return recipeResponseDto;
     }
 
+    @Transactional
     public RecipeDto updateRecipe(Long id, RecipeDto recipeDto, String login) {
         Recipe recipe = recipeRepository.findById(id)
                 .orElseThrow(() -> new AppException("Recipe not found", HttpStatus.NOT_FOUND));
@@ -193,6 +195,7 @@ public class RecipeService {
         recipe.setNutritionFats(recipeDto.getNutrition().getFats());
     }
 
+    @Transactional
     public RecipeDto adminUpdateRecipe(Long id, RecipeDto recipeDto) {
         Recipe recipe = recipeRepository.findById(id)
                 .orElseThrow(() -> new AppException("Recipe not found", HttpStatus.NOT_FOUND));
@@ -272,6 +275,7 @@ public class RecipeService {
         return normalized;
     }
 
+    @Transactional
     public Page<RecipeDto> searchRecipes(String searchTerm, Pageable pageable) {
         String normalizedSearchTerm = searchTerm == null ? "" : searchTerm.trim();
         if (!StringUtils.hasText(normalizedSearchTerm)) {
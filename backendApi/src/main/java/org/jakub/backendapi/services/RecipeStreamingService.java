@@ -0,0 +1,169 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
+import org.jakub.backendapi.config.RequestAbortHandle;
+import org.jakub.backendapi.exceptions.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class RecipeStreamingService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeStreamingService.class);
+
+    private final GeminiService geminiService;
+    private final ThreadPoolExecutor streamExecutor;
+    private final long streamTimeoutMs;
+
+    public RecipeStreamingService(
+            GeminiService geminiService,
+            @Value("${gemini.stream.max-concurrent:8}") int maxConcurrentStreams,
+            @Value("${gemini.stream.queue-capacity:16}") int queueCapacity,
+            @Value("${gemini.stream.timeout-ms:120000}") long streamTimeoutMs
+    ) {
+        this.geminiService = geminiService;
+        this.streamTimeoutMs = streamTimeoutMs;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        int poolSize = Math.max(1, maxConcurrentStreams);
+        this.streamExecutor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "recipe-stream-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        this.streamExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public SseEmitter streamRecipes(String recipePrompt, int recipeCount, Runnable onSuccess) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        // Once the emitter has timed out or closed, nothing more can be sent, so the Gemini connection is cut
+        // right away rather than when the next chunk happens to arrive.
+        AtomicBoolean cancelled = new AtomicBoolean();
+        RequestAbortHandle abortHandle = new RequestAbortHandle();
+        Runnable cancel = () -> {
+            cancelled.set(true);
+            abortHandle.abort();
+        };
+        emitter.onTimeout(cancel);
+        emitter.onCompletion(cancel);
+        emitter.onError(failure -> cancel.run());
+        try {
+            streamExecutor.execute(() -> relayRecipeStream(emitter, cancelled, abortHandle, recipePrompt, recipeCount, onSuccess));
+        } catch (RejectedExecutionException e) {
+            throw new AppException("Too many recipe generations in progress. Please try again shortly.", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return emitter;
+    }
+
+    private void relayRecipeStream(
+            SseEmitter emitter,
+            AtomicBoolean cancelled,
+            RequestAbortHandle abortHandle,
+            String recipePrompt,
+            int recipeCount,
+            Runnable onSuccess
+    ) {
+        try {
+            String recipes = geminiService.streamRecipes(recipePrompt, recipeCount, new GeminiService.RecipeStreamListener() {
+                @Override
+                public void onText(String textDelta) {
+                    if (cancelled.get()) {
+                        throw new ClientDisconnectedException("Recipe stream closed before Gemini finished");
+                    }
+                    sendEvent(emitter, "chunk", Map.of("text", textDelta));
+                }
+
+                @Override
+                public void onRecipe(int recipeIndex, JsonNode recipe) {
+                    sendEvent(emitter, "recipe", Map.of("index", recipeIndex, "recipe", recipe));
+                }
+            }, abortHandle);
+
+            onSuccess.run();
+            sendEvent(emitter, "done", recipes);
+            emitter.complete();
+        } catch (ClientDisconnectedException e) {
+            log.debug("Recipe stream client disconnected: {}", e.getMessage());
+            emitter.complete();
+        } catch (RuntimeException e) {
+            if (cancelled.get()) {
+                log.debug("Recipe stream closed before Gemini finished: {}", e.getMessage());
+                emitter.complete();
+                return;
+            }
+            if (e instanceof AppException appException) {
+                sendError(emitter, appException.getMessage(), appException.getCode(), appException.getRetryAfterSeconds());
+                return;
+            }
+            log.error("Recipe stream failed", e);
+            sendError(emitter, "Something went wrong. Please try again later.", HttpStatus.INTERNAL_SERVER_ERROR, null);
+        }
+    }
+
+    private void sendEvent(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Thrown out of the stream reader, which aborts the upstream Gemini request.
+            throw new ClientDisconnectedException(e.getMessage(), e);
+        }
+    }
+
+    private void sendError(SseEmitter emitter, String message, HttpStatus status, Long retryAfterSeconds) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("message", message);
+        error.put("status", status.value());
+        if (retryAfterSeconds != null) {
+            error.put("retryAfterSeconds", retryAfterSeconds);
+        }
+
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("error")
+                    .data(error, MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        } catch (IllegalStateException e) {
+            log.debug("Recipe stream already closed, dropping error event: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        streamExecutor.shutdownNow();
+    }
+
+    private static final class ClientDisconnectedException extends RuntimeException {
+        private ClientDisconnectedException(String message) {
+            super(message);
+        }
+
+        private ClientDisconnectedException(String message, Exception cause) {
+            super(message, cause);
+        }
+    }
+}
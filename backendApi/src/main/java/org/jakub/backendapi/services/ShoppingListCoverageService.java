@@ -3,14 +3,17 @@ package org.jakub.backendapi.services;
 import org.jakub.backendapi.dto.FridgeIngredientDto;
 import org.jakub.backendapi.dto.RecipeIngredientDto;
 import org.jakub.backendapi.dto.ShoppingListGenerationItemDto;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 @Component
 public class ShoppingListCoverageService {
@@ -33,6 +36,17 @@ public class ShoppingListCoverageService {
         }
     }
 
+    private final IngredientSynonymIndex synonymIndex;
+
+    @Autowired
+    public ShoppingListCoverageService(IngredientSynonymIndex synonymIndex) {
+        this.synonymIndex = synonymIndex;
+    }
+
+    ShoppingListCoverageService() {
+        this(IngredientSynonymIndex.empty());
+    }
+
     public List<ShoppingListGenerationItemDto> findMissingItems(
             List<RecipeIngredientDto> recipeIngredients,
             List<FridgeIngredientDto> fridgeItems
@@ -56,7 +70,7 @@ public class ShoppingListCoverageService {
                 continue;
             }
 
-            List<FridgeIngredientDto> matchingFridgeItems = fridgeItemsByName.getOrDefault(normalizedName, List.of());
+            List<FridgeIngredientDto> matchingFridgeItems = findMatchingFridgeItems(normalizedName, fridgeItemsByName);
             if (matchingFridgeItems.isEmpty()) {
                 missingIngredients.add(toShoppingListItem(ingredient.getName(), ingredient.getAmount(), ingredient.getUnit()));
                 continue;
@@ -104,6 +118,103 @@ public class ShoppingListCoverageService {
         return missingIngredients;
     }
 
+    /**
+     * Returns the missing items the synonym index cannot settle: none of the fridge items is a known
+     * equivalent, and at least one of them has not been decided either way.
+     */
+    public List<ShoppingListGenerationItemDto> findItemsNeedingReview(
+            List<ShoppingListGenerationItemDto> missingItems,
+            List<FridgeIngredientDto> fridgeItems
+    ) {
+        Set<String> fridgeNames = distinctFridgeNames(fridgeItems);
+        List<ShoppingListGenerationItemDto> needingReview = new ArrayList<>();
+
+        for (ShoppingListGenerationItemDto item : missingItems == null ? List.<ShoppingListGenerationItemDto>of() : missingItems) {
+            boolean undecided = false;
+            boolean covered = false;
+            for (String fridgeName : fridgeNames) {
+                IngredientSynonymIndex.Match match = synonymIndex.match(item.getName(), fridgeName);
+                covered |= match == IngredientSynonymIndex.Match.EQUIVALENT;
+                undecided |= match == IngredientSynonymIndex.Match.UNKNOWN;
+            }
+            // A known equivalent that still leaves the item missing means the amounts fell short, which the AI cannot change.
+            if (undecided && !covered) {
+                needingReview.add(item);
+            }
+        }
+        return needingReview;
+    }
+
+    /**
+     * Returns the fridge items whose relation to at least one of the review candidates is still undecided.
+     */
+    public List<FridgeIngredientDto> findFridgeItemsForReview(
+            List<ShoppingListGenerationItemDto> reviewCandidates,
+            List<FridgeIngredientDto> fridgeItems
+    ) {
+        return safeFridgeItems(fridgeItems).stream()
+                .filter(fridgeItem -> reviewCandidates.stream().anyMatch(candidate ->
+                        synonymIndex.match(candidate.getName(), fridgeItem.getName()) == IngredientSynonymIndex.Match.UNKNOWN))
+                .toList();
+    }
+
+    /**
+     * Feeds an AI review of {@code reviewer}'s shopping list back into the synonym index. Candidates the AI
+     * kept are distinct from every reviewed fridge item until the index's distinct TTL runs out, since
+     * "keep it when unsure" is not a firm answer; candidates it dropped count as one confirmation that they
+     * are equivalent to the fridge item it named as covering them.
+     */
+    public void recordReview(
+            String reviewer,
+            List<ShoppingListGenerationItemDto> reviewCandidates,
+            List<FridgeIngredientDto> reviewedFridgeItems,
+            Set<String> stillMissingNames,
+            Map<String, String> coveringFridgeItems
+    ) {
+        Set<String> fridgeNames = distinctFridgeNames(reviewedFridgeItems);
+
+        for (ShoppingListGenerationItemDto candidate : reviewCandidates) {
+            String candidateName = normalizeIngredientName(candidate.getName());
+            if (stillMissingNames.contains(candidateName)) {
+                for (String fridgeName : fridgeNames) {
+                    if (synonymIndex.match(candidateName, fridgeName) == IngredientSynonymIndex.Match.UNKNOWN) {
+                        synonymIndex.learn(candidateName, fridgeName, false, reviewer);
+                    }
+                }
+                continue;
+            }
+
+            String coveringName = normalizeIngredientName(coveringFridgeItems.get(candidateName));
+            if (fridgeNames.contains(coveringName)) {
+                synonymIndex.learn(candidateName, coveringName, true, reviewer);
+            }
+        }
+    }
+
+    private List<FridgeIngredientDto> findMatchingFridgeItems(
+            String normalizedName,
+            Map<String, List<FridgeIngredientDto>> fridgeItemsByName
+    ) {
+        List<FridgeIngredientDto> matchingFridgeItems = new ArrayList<>();
+        for (Map.Entry<String, List<FridgeIngredientDto>> entry : fridgeItemsByName.entrySet()) {
+            if (synonymIndex.match(normalizedName, entry.getKey()) == IngredientSynonymIndex.Match.EQUIVALENT) {
+                matchingFridgeItems.addAll(entry.getValue());
+            }
+        }
+        return matchingFridgeItems;
+    }
+
+    private Set<String> distinctFridgeNames(List<FridgeIngredientDto> fridgeItems) {
+        Set<String> names = new LinkedHashSet<>();
+        for (FridgeIngredientDto fridgeItem : safeFridgeItems(fridgeItems)) {
+            String normalizedName = normalizeIngredientName(fridgeItem.getName());
+            if (StringUtils.hasText(normalizedName)) {
+                names.add(normalizedName);
+            }
+        }
+        return names;
+    }
+
     private List<RecipeIngredientDto> safeRecipeIngredients(List<RecipeIngredientDto> recipeIngredients) {
         return recipeIngredients == null ? List.of() : recipeIngredients;
     }
@@ -9,7 +9,8 @@ import org.jakub.backendapi.repositories.FridgeIngredientRepository;
 import org.jakub.backendapi.repositories.UserRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
@@ -23,26 +24,29 @@ public class ShoppingListGenerationService {
     private final FridgeIngredientRepository fridgeIngredientRepository;
     private final GeminiService geminiService;
     private final ShoppingListCoverageService shoppingListCoverageService;
+    private final ShoppingListReviewCache shoppingListReviewCache;
+    private final TransactionTemplate readOnlyTransaction;
 
     public ShoppingListGenerationService(
             UserRepository userRepository,
             FridgeIngredientRepository fridgeIngredientRepository,
             GeminiService geminiService,
-            ShoppingListCoverageService shoppingListCoverageService
+            ShoppingListCoverageService shoppingListCoverageService,
+            ShoppingListReviewCache shoppingListReviewCache,
+            PlatformTransactionManager transactionManager
     ) {
         this.userRepository = userRepository;
         this.fridgeIngredientRepository = fridgeIngredientRepository;
         this.geminiService = geminiService;
         this.shoppingListCoverageService = shoppingListCoverageService;
+        this.shoppingListReviewCache = shoppingListReviewCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
-    @Transactional(readOnly = true)
     public List<ShoppingListGenerationItemDto> generateMissingItems(String email, List<RecipeIngredientDto> recipeIngredients) {
-        User user = resolveUser(email);
         List<RecipeIngredientDto> safeRecipeIngredients = recipeIngredients == null ? List.of() : recipeIngredients;
-        List<FridgeIngredientDto> fridgeItems = fridgeIngredientRepository.findByUser_Id(user.getId()).stream()
-                .map(this::toFridgeIngredientDto)
-                .toList();
+        List<FridgeIngredientDto> fridgeItems = loadFridgeSnapshot(email);
 
         List<ShoppingListGenerationItemDto> deterministicMissingIngredients =
                 shoppingListCoverageService.findMissingItems(safeRecipeIngredients, fridgeItems);
@@ -51,29 +55,55 @@ public class ShoppingListGenerationService {
             return List.of();
         }
 
-        try {
-            Set<String> aiMissingIngredientNames =
-                    geminiService.resolveStillMissingIngredientNames(deterministicMissingIngredients, fridgeItems);
+        // Only items the synonym index cannot settle go to the AI review, along with the fridge items still in question.
+        List<ShoppingListGenerationItemDto> reviewCandidates =
+                shoppingListCoverageService.findItemsNeedingReview(deterministicMissingIngredients, fridgeItems);
+        if (reviewCandidates.isEmpty()) {
+            return deterministicMissingIngredients;
+        }
 
-            if (aiMissingIngredientNames.isEmpty()) {
-                return List.of();
-            }
+        List<FridgeIngredientDto> reviewFridgeItems =
+                shoppingListCoverageService.findFridgeItemsForReview(reviewCandidates, fridgeItems);
 
+        try {
+            GeminiService.ShoppingListReview review = shoppingListReviewCache.getOrReview(
+                    email,
+                    reviewCandidates,
+                    reviewFridgeItems,
+                    () -> geminiService.reviewMissingIngredients(reviewCandidates, reviewFridgeItems)
+            );
+            shoppingListCoverageService.recordReview(
+                    email,
+                    reviewCandidates,
+                    reviewFridgeItems,
+                    review.missingIngredientNames(),
+                    review.coveringFridgeItems()
+            );
+
+            Set<String> aiMissingIngredientNames = review.missingIngredientNames();
             return deterministicMissingIngredients.stream()
-                    .filter(item -> aiMissingIngredientNames.contains(normalizeName(item.getName())))
+                    .filter(item -> !reviewCandidates.contains(item)
+                            || aiMissingIngredientNames.contains(normalizeName(item.getName())))
                     .toList();
         } catch (RuntimeException exception) {
             return deterministicMissingIngredients;
         }
     }
 
-    private User resolveUser(String email) {
+    // The snapshot is read in its own short transaction so the pooled connection is returned before the AI review runs.
+    private List<FridgeIngredientDto> loadFridgeSnapshot(String email) {
         if (!StringUtils.hasText(email)) {
             throw new AppException("Unauthorized", HttpStatus.UNAUTHORIZED);
         }
 
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new AppException("User not found", HttpStatus.NOT_FOUND));
+        List<FridgeIngredientDto> fridgeItems = readOnlyTransaction.execute(status -> {
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new AppException("User not found", HttpStatus.NOT_FOUND));
+            return fridgeIngredientRepository.findByUser_Id(user.getId()).stream()
+                    .map(this::toFridgeIngredientDto)
+                    .toList();
+        });
+        return fridgeItems == null ? List.of() : fridgeItems;
     }
 
     private FridgeIngredientDto toFridgeIngredientDto(org.jakub.backendapi.entities.FridgeIngredient entity) {
@@ -0,0 +1,162 @@
+package org.jakub.backendapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.jakub.backendapi.dto.FridgeIngredientDto;
+import org.jakub.backendapi.dto.ShoppingListGenerationItemDto;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Remembers shopping-list AI reviews per user for a given set of candidate and fridge item names, so
+ * regenerating from the same recipe does not ask Gemini again. Any fridge change drops the user's entries.
+ */
+@Service
+public class ShoppingListReviewCache {
+
+    static final String CACHE_NAME = "gemini.shopping-reviews";
+
+    private record ReviewKey(String owner, String inputsHash) {
+    }
+
+    private final Cache<ReviewKey, GeminiService.ShoppingListReview> cache;
+    private final ConcurrentHashMap<ReviewKey, CompletableFuture<GeminiService.ShoppingListReview>> pendingReviews =
+            new ConcurrentHashMap<>();
+
+    @Autowired
+    public ShoppingListReviewCache(
+            @Value("${gemini.cache.shopping-reviews.enabled:true}") boolean enabled,
+            @Value("${gemini.cache.shopping-reviews.max-size:2000}") long maxSize,
+            @Value("${gemini.cache.shopping-reviews.ttl-minutes:60}") long ttlMinutes,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        this(enabled, maxSize, Duration.ofMinutes(ttlMinutes), meterRegistry.getIfAvailable());
+    }
+
+    ShoppingListReviewCache(boolean enabled, long maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        if (!enabled || maxSize <= 0 || ttl.isZero() || ttl.isNegative()) {
+            this.cache = null;
+            return;
+        }
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        }
+    }
+
+    static ShoppingListReviewCache disabled() {
+        return new ShoppingListReviewCache(false, 0, Duration.ZERO, null);
+    }
+
+    /**
+     * Returns the cached review for these inputs, running {@code reviewer} on a miss. Concurrent misses for
+     * the same inputs wait for one review, which runs outside the cache so invalidation never waits on
+     * Gemini. Failures are not cached, nor is a review that was invalidated while it ran.
+     */
+    public GeminiService.ShoppingListReview getOrReview(
+            String owner,
+            List<ShoppingListGenerationItemDto> candidates,
+            List<FridgeIngredientDto> fridgeItems,
+            Supplier<GeminiService.ShoppingListReview> reviewer
+    ) {
+        if (cache == null || owner == null) {
+            return reviewer.get();
+        }
+
+        ReviewKey key = new ReviewKey(normalizeOwner(owner), inputsHash(candidates, fridgeItems));
+        GeminiService.ShoppingListReview cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<GeminiService.ShoppingListReview> pending = new CompletableFuture<>();
+        CompletableFuture<GeminiService.ShoppingListReview> existing = pendingReviews.putIfAbsent(key, pending);
+        if (existing != null) {
+            return join(existing);
+        }
+
+        try {
+            GeminiService.ShoppingListReview review = reviewer.get();
+            if (pendingReviews.remove(key, pending)) {
+                cache.put(key, review);
+            }
+            pending.complete(review);
+            return review;
+        } catch (RuntimeException e) {
+            pendingReviews.remove(key, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidateUser(String owner) {
+        if (cache == null || owner == null) {
+            return;
+        }
+
+        String normalizedOwner = normalizeOwner(owner);
+        pendingReviews.keySet().removeIf(key -> key.owner().equals(normalizedOwner));
+        cache.asMap().keySet().removeIf(key -> key.owner().equals(normalizedOwner));
+    }
+
+    private static GeminiService.ShoppingListReview join(CompletableFuture<GeminiService.ShoppingListReview> review) {
+        try {
+            return review.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    static String inputsHash(List<ShoppingListGenerationItemDto> candidates, List<FridgeIngredientDto> fridgeItems) {
+        String canonicalInputs = sortedNames(candidates, ShoppingListGenerationItemDto::getName)
+                + "\u0000"
+                + sortedNames(fridgeItems, FridgeIngredientDto::getName);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonicalInputs.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static <T> String sortedNames(List<T> items, Function<T, String> nameOf) {
+        return (items == null ? List.<T>of() : items).stream()
+                .map(nameOf)
+                .map(IngredientSynonymIndex::normalize)
+                .filter(name -> !name.isEmpty())
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String normalizeOwner(String owner) {
+        return owner.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,49 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A JSON string value that base64-encodes its source while it is being written, so the binary content is
+ * never held as a byte array or string. The source is reopened on every write, which keeps retried and
+ * hedged requests working.
+ */
+final class StreamingBase64Value extends JsonSerializable.Base {
+
+    private final InputStreamSource content;
+    private final long length;
+
+    StreamingBase64Value(InputStreamSource content, long length) {
+        this.content = content;
+        this.length = length;
+    }
+
+    @Override
+    public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        InputStream input;
+        try {
+            input = content.getInputStream();
+        } catch (IOException e) {
+            // Not a transport failure: surface it as a serialization error rather than a Gemini outage.
+            throw JsonMappingException.from(generator, "Could not read receipt image", e);
+        }
+
+        try (input) {
+            generator.writeBinary(Base64Variants.MIME_NO_LINEFEEDS, input, length <= Integer.MAX_VALUE ? (int) length : -1);
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer)
+            throws IOException {
+        serialize(generator, serializers);
+    }
+}
@@ -0,0 +1,80 @@
+package org.jakub.backendapi.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.jakub.backendapi.dto.UserDto;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Authenticated principals by email, so validating an access token does not load the user on every
+ * request. {@link UserService} drops an entry whenever the user's role or plan changes or the user is
+ * deleted; the TTL bounds how long another instance can serve a stale principal.
+ */
+@Service
+public class UserPrincipalCache {
+
+    static final String CACHE_NAME = "auth.principals";
+
+    private final Cache<String, UserDto> cache;
+
+    @Autowired
+    public UserPrincipalCache(
+            @Value("${security.principal-cache.enabled:true}") boolean enabled,
+            @Value("${security.principal-cache.max-size:10000}") long maxSize,
+            @Value("${security.principal-cache.ttl-seconds:60}") long ttlSeconds,
+            ObjectProvider<MeterRegistry> meterRegistry
+    ) {
+        this(enabled, maxSize, Duration.ofSeconds(ttlSeconds), meterRegistry.getIfAvailable());
+    }
+
+    UserPrincipalCache(boolean enabled, long maxSize, Duration ttl, MeterRegistry meterRegistry) {
+        if (!enabled || maxSize <= 0 || ttl.isZero() || ttl.isNegative()) {
+            this.cache = null;
+            return;
+        }
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        }
+    }
+
+    static UserPrincipalCache disabled() {
+        return new UserPrincipalCache(false, 0, Duration.ZERO, null);
+    }
+
+    /**
+     * Returns a copy of the cached principal, running {@code loader} on a miss. Failures are not cached.
+     */
+    public UserDto get(String email, Function<String, UserDto> loader) {
+        if (cache == null || email == null) {
+            return loader.apply(email);
+        }
+        return copy(cache.get(email, loader));
+    }
+
+    public void invalidate(String email) {
+        if (cache != null && email != null) {
+            cache.invalidate(email);
+        }
+    }
+
+    // Principals end up in request code that may set fields on them, so callers never share the cached one.
+    private static UserDto copy(UserDto principal) {
+        UserDto copy = new UserDto(principal.getEmail(), principal.getId(), principal.getRole(), principal.getToken());
+        copy.setSubscriptionPlan(principal.getSubscriptionPlan());
+        return copy;
+    }
+}
@@ -13,10 +13,11 @@ import org.jakub.backendapi.entities.UserPreferences;
 import org.jakub.backendapi.exceptions.AppException;
 import org.jakub.backendapi.mappers.UserMapper;
 import org.jakub.backendapi.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.nio.CharBuffer;
@@ -31,16 +32,20 @@ public class UserService {
     public static final String TERMS_VERSION = "2026-05-30";
     public static final String PRIVACY_VERSION = "2026-05-30";
 
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
     private final UserMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final RecipePlanLimitService recipePlanLimitService;
+    private final UserPrincipalCache userPrincipalCache;
 
-    public UserService(UserRepository userRepository, UserMapper userMapper, PasswordEncoder passwordEncoder, RecipePlanLimitService recipePlanLimitService) {
+    public UserService(UserRepository userRepository, UserMapper userMapper, PasswordHashingService passwordHashingService, RecipePlanLimitService recipePlanLimitService, UserPrincipalCache userPrincipalCache) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.recipePlanLimitService = recipePlanLimitService;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
     public UserDto findByEmail(String email) {
@@ -49,6 +54,13 @@ public class UserService {
         return userMapper.toUserDto(user);
     }
 
+    /**
+     * The authenticated principal for an access token's subject, served from {@link UserPrincipalCache}.
+     */
+    public UserDto findPrincipalByEmail(String email) {
+        return userPrincipalCache.get(email, this::findByEmail);
+    }
+
     public UserDto getUserProfileByEmail(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new AppException("Unknown user", HttpStatus.NOT_FOUND));
@@ -93,7 +105,8 @@ public class UserService {
             throw new AppException("This account uses social login. Please sign in with " + user.getAuthMethod().name(), HttpStatus.BAD_REQUEST);
         }
 
-        if (passwordEncoder.matches(CharBuffer.wrap(credentialsDto.getPassword()), user.getPassword())) {
+        if (passwordHashingService.matches(CharBuffer.wrap(credentialsDto.getPassword()), user.getPassword())) {
+            rehashIfOutdated(user, credentialsDto.getPassword());
             return userMapper.toUserDto(user);
         }
         throw new AppException("Invalid password", HttpStatus.BAD_REQUEST);
@@ -107,7 +120,7 @@ public class UserService {
             throw new AppException("User already exists", HttpStatus.BAD_REQUEST);
         }
         User user = userMapper.signUpToUser(signUpDto);
-        user.setPassword(passwordEncoder.encode(CharBuffer.wrap(signUpDto.getPassword())));
+        user.setPassword(passwordHashingService.encode(CharBuffer.wrap(signUpDto.getPassword())));
         user.setRole(Role.USER);
         markPoliciesAccepted(user);
 
@@ -120,6 +133,20 @@ public class UserService {
         return userMapper.toUserDto(savedUser);
     }
 
+    // Upgrades hashes made with an older work factor while the plain password is at hand. The login has
+    // already succeeded, so a saturated hashing pool only postpones the upgrade to a later login.
+    private void rehashIfOutdated(User user, char[] password) {
+        if (!passwordHashingService.needsRehash(user.getPassword())) {
+            return;
+        }
+        try {
+            user.setPassword(passwordHashingService.encode(CharBuffer.wrap(password)));
+            userRepository.save(user);
+        } catch (AppException e) {
+            log.debug("Skipping password rehash for user {}: {}", user.getId(), e.getMessage());
+        }
+    }
+
     public void assertPoliciesAccepted(boolean acceptedTerms, boolean acceptedPrivacy) {
         if (!acceptedTerms || !acceptedPrivacy) {
             throw new AppException("You must accept the Terms of Service and acknowledge the Privacy Policy to create an account.", HttpStatus.BAD_REQUEST);
@@ -162,6 +189,7 @@ public class UserService {
         }
         user.setRole(role);
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail());
         return userMapper.toUserDto(updatedUser);
     }
 
@@ -169,6 +197,7 @@ public class UserService {
         User user = userRepository.findById(id).orElseThrow(() -> new AppException("User not found", HttpStatus.NOT_FOUND));
         user.setSubscriptionPlan(subscriptionPlan);
         User updatedUser = userRepository.save(user);
+        userPrincipalCache.invalidate(user.getEmail());
         return userMapper.toUserDto(updatedUser);
     }
 
@@ -178,6 +207,7 @@ public class UserService {
             throw new AppException("Cannot delete the last admin user.", HttpStatus.BAD_REQUEST);
         }
         userRepository.delete(user);
+        userPrincipalCache.invalidate(user.getEmail());
     }
 
 
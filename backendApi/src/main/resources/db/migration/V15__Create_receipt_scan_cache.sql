@@ -0,0 +1,7 @@
+CREATE TABLE receipt_scan_cache (
+    fingerprint VARCHAR(64) PRIMARY KEY,
+    items TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_receipt_scan_cache_created_at ON receipt_scan_cache(created_at);
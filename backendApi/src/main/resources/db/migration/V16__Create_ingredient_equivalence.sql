@@ -0,0 +1,9 @@
+CREATE TABLE ingredient_equivalence (
+    id BIGSERIAL PRIMARY KEY,
+    first_name VARCHAR(255) NOT NULL,
+    second_name VARCHAR(255) NOT NULL,
+    equivalent BOOLEAN NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE UNIQUE INDEX uk_ingredient_equivalence_names ON ingredient_equivalence(first_name, second_name);
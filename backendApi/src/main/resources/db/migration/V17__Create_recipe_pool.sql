@@ -0,0 +1,11 @@
+CREATE TABLE recipe_pool_entry (
+    id BIGSERIAL PRIMARY KEY,
+    prompt_key VARCHAR(64) NOT NULL,
+    recipe_count INTEGER NOT NULL,
+    recipes TEXT NOT NULL,
+    served_count INTEGER NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_recipe_pool_entry_prompt ON recipe_pool_entry(prompt_key, recipe_count);
+CREATE INDEX idx_recipe_pool_entry_created_at ON recipe_pool_entry(created_at);
@@ -0,0 +1,2 @@
+ALTER TABLE ingredient_equivalence ADD COLUMN confirmations INTEGER NOT NULL DEFAULT 1;
+ALTER TABLE ingredient_equivalence ADD COLUMN last_reviewer VARCHAR(64);
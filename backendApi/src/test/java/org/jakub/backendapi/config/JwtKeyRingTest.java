@@ -0,0 +1,86 @@
+package org.jakub.backendapi.config;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtKeyRingTest {
+
+    private static final String PRIMARY_SECRET = "primary-secret-0123456789-abcdefghij";
+    private static final String NEXT_SECRET = "next-secret-0123456789-abcdefghijklmn";
+
+    @Test
+    void signsWithActiveKeyIdAndVerifiesTheToken() {
+        JwtKeyRing keyRing = new JwtKeyRing(PRIMARY_SECRET, "primary", null);
+
+        String token = keyRing.sign(JWT.create().withIssuer("cook@example.com"));
+
+        assertEquals("primary", JWT.decode(token).getKeyId());
+        assertEquals("cook@example.com", keyRing.verify(token).getIssuer());
+    }
+
+    @Test
+    void verifiesTokensIssuedBeforeKeyIdsWithTheSecretKeyProperty() {
+        JwtKeyRing keyRing = new JwtKeyRing(PRIMARY_SECRET, "primary", null);
+        String legacyToken = JWT.create()
+                .withIssuer("cook@example.com")
+                .sign(Algorithm.HMAC256(Base64.getEncoder().encodeToString(PRIMARY_SECRET.getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals("cook@example.com", keyRing.verify(legacyToken).getIssuer());
+    }
+
+    @Test
+    void rotationKeepsTokensSignedWithThePreviousKeyValid(@TempDir Path directory) throws Exception {
+        Path keyRingFile = directory.resolve("jwt-keys.properties");
+        Files.writeString(keyRingFile, "active=primary\nkeys.next=" + NEXT_SECRET + "\n");
+        JwtKeyRing keyRing = new JwtKeyRing(PRIMARY_SECRET, "primary", keyRingFile);
+        String issuedBeforeRotation = keyRing.sign(JWT.create().withIssuer("cook@example.com"));
+
+        Files.writeString(keyRingFile, "active=next\nkeys.next=" + NEXT_SECRET + "\n");
+        keyRing.reload();
+        String issuedAfterRotation = keyRing.sign(JWT.create().withIssuer("chef@example.com"));
+
+        assertEquals("next", keyRing.activeKeyId());
+        assertEquals("next", JWT.decode(issuedAfterRotation).getKeyId());
+        assertEquals("cook@example.com", keyRing.verify(issuedBeforeRotation).getIssuer());
+        assertEquals("chef@example.com", keyRing.verify(issuedAfterRotation).getIssuer());
+    }
+
+    @Test
+    void invalidReloadKeepsTheCurrentKeys(@TempDir Path directory) throws Exception {
+        Path keyRingFile = directory.resolve("jwt-keys.properties");
+        Files.writeString(keyRingFile, "active=next\nkeys.next=" + NEXT_SECRET + "\n");
+        JwtKeyRing keyRing = new JwtKeyRing(PRIMARY_SECRET, "primary", keyRingFile);
+
+        Files.writeString(keyRingFile, "active=missing\nkeys.next=" + NEXT_SECRET + "\n");
+        keyRing.reload();
+
+        assertEquals("next", keyRing.activeKeyId());
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnUnknownOrForgedKey() {
+        JwtKeyRing keyRing = new JwtKeyRing(PRIMARY_SECRET, "primary", null);
+        JwtKeyRing otherRing = new JwtKeyRing(NEXT_SECRET, "primary", null);
+        String unknownKeyToken = JWT.create().withKeyId("retired").sign(Algorithm.HMAC256(NEXT_SECRET));
+        String forgedToken = otherRing.sign(JWT.create().withIssuer("cook@example.com"));
+
+        assertThrows(JWTVerificationException.class, () -> keyRing.verify(unknownKeyToken));
+        assertThrows(JWTVerificationException.class, () -> keyRing.verify(forgedToken));
+    }
+
+    @Test
+    void rejectsShortSecrets() {
+        assertThrows(IllegalStateException.class, () -> new JwtKeyRing("too-short", "primary", null));
+    }
+}
@@ -14,7 +14,7 @@ class UserAuthProviderTest {
 
     @Test
     void clearHttpOnlyCookiesShouldExpireAuthCookiesWithMatchingAttributes() {
-        UserAuthProvider userAuthProvider = new UserAuthProvider(null);
+        UserAuthProvider userAuthProvider = new UserAuthProvider(null, null);
         ReflectionTestUtils.setField(userAuthProvider, "secureCookie", true);
         ReflectionTestUtils.setField(userAuthProvider, "sameSite", "None");
 
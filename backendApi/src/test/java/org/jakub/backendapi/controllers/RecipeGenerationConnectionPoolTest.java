@@ -0,0 +1,141 @@
+package org.jakub.backendapi.controllers;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.jakub.backendapi.dto.UserDto;
+import org.jakub.backendapi.entities.Enums.Role;
+import org.jakub.backendapi.entities.User;
+import org.jakub.backendapi.repositories.UserRepository;
+import org.jakub.backendapi.services.GeminiService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=" + RecipeGenerationConnectionPoolTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=2000",
+        "spring.jpa.show-sql=false",
+        "security.jwt.token.secret-key=connection-pool-test-secret-key-0123456789",
+        "app.limits.generate-recipe-requests-per-minute=1000"
+})
+@AutoConfigureMockMvc
+class RecipeGenerationConnectionPoolTest {
+
+    static final int POOL_SIZE = 3;
+    private static final int IN_FLIGHT_GENERATIONS = POOL_SIZE * 4;
+    private static final int CRUD_SAMPLES = 20;
+    private static final long ALLOWED_LATENCY_DRIFT_MS = 500;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private GeminiService geminiService;
+
+    @Test
+    void crudLatencyShouldStayFlatWhileGenerationsWaitOnGemini() throws Exception {
+        User user = new User();
+        user.setEmail("pool-saturation@example.com");
+        user.setPassword("unused");
+        user.setRole(Role.USER);
+        user = userRepository.save(user);
+        Authentication auth = new UsernamePasswordAuthenticationToken(
+                new UserDto(user.getEmail(), user.getId(), Role.USER, null),
+                null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))
+        );
+
+        CountDownLatch generationsInFlight = new CountDownLatch(IN_FLIGHT_GENERATIONS);
+        CompletableFuture<String> geminiResponse = new CompletableFuture<>();
+        when(geminiService.generateRecipesAsync(anyString(), anyInt(), anyBoolean())).thenAnswer(invocation -> {
+            generationsInFlight.countDown();
+            return geminiResponse;
+        });
+
+        long baselineMs = measureWorstCrudLatencyMs();
+
+        ExecutorService clients = Executors.newFixedThreadPool(IN_FLIGHT_GENERATIONS);
+        List<Future<MvcResult>> generations = new ArrayList<>();
+        try {
+            for (int i = 0; i < IN_FLIGHT_GENERATIONS; i++) {
+                generations.add(clients.submit(() -> mockMvc.perform(post("/generateRecipe")
+                                .with(authentication(auth))
+                                .with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"prompt\":\"pasta\"}"))
+                        .andReturn()));
+            }
+
+            assertTrue(
+                    generationsInFlight.await(10, TimeUnit.SECONDS),
+                    "All generations should reach Gemini even though they outnumber pooled connections"
+            );
+            assertEquals(0, hikariPool().getActiveConnections());
+
+            long underLoadMs = measureWorstCrudLatencyMs();
+            assertTrue(
+                    underLoadMs <= baselineMs + ALLOWED_LATENCY_DRIFT_MS,
+                    "CRUD latency under load was " + underLoadMs + " ms, baseline " + baselineMs + " ms"
+            );
+        } finally {
+            geminiResponse.complete("{\"recipes\":[]}");
+            clients.shutdown();
+        }
+
+        for (Future<MvcResult> generation : generations) {
+            MvcResult started = generation.get(30, TimeUnit.SECONDS);
+            assertEquals(200, mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getStatus());
+        }
+    }
+
+    private long measureWorstCrudLatencyMs() throws Exception {
+        long worstNanos = 0;
+        for (int i = 0; i < CRUD_SAMPLES; i++) {
+            long start = System.nanoTime();
+            int status = mockMvc.perform(get("/getAllRecipes")).andReturn().getResponse().getStatus();
+            worstNanos = Math.max(worstNanos, System.nanoTime() - start);
+            assertEquals(200, status);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(worstNanos);
+    }
+
+    private HikariPoolMXBean hikariPool() throws Exception {
+        return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+    }
+}
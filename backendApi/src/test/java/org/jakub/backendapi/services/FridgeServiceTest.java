@@ -43,7 +43,7 @@ class FridgeServiceTest {
 
     @BeforeEach
     void setUp() {
-        UserService userService = new UserService(null, null, null, null) {
+        UserService userService = new UserService(null, null, null, null, null) {
             @Override
             public UserDto findByEmail(String email) {
                 return currentUser;
@@ -54,7 +54,8 @@ class FridgeServiceTest {
                 fridgeIngredientRepository,
                 userRepository,
                 fridgeIngredientMapper,
-                userService
+                userService,
+                ShoppingListReviewCache.disabled()
         );
     }
 
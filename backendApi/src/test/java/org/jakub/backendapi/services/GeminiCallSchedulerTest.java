@@ -0,0 +1,63 @@
+package org.jakub.backendapi.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiCallSchedulerTest {
+
+    private final GeminiCallScheduler scheduler = new GeminiCallScheduler(2, 10, 100, 1_000, 5_000);
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void retryDelayMillis_shouldApplyJitteredExponentialBackoffCappedAtMaxDelay() {
+        for (int i = 0; i < 50; i++) {
+            long first = scheduler.retryDelayMillis(1, null);
+            long third = scheduler.retryDelayMillis(3, null);
+            long tenth = scheduler.retryDelayMillis(10, null);
+
+            assertTrue(first >= 50 && first <= 100, "first retry delay " + first);
+            assertTrue(third >= 200 && third <= 400, "third retry delay " + third);
+            assertTrue(tenth >= 500 && tenth <= 1_000, "capped retry delay " + tenth);
+        }
+    }
+
+    @Test
+    void retryDelayMillis_shouldHonorRetryAfterAndGiveUpWhenItIsTooLong() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "2");
+        long delay = scheduler.retryDelayMillis(1, headers);
+        assertTrue(delay >= 2_000 && delay <= 2_100, "Retry-After delay " + delay);
+
+        headers.set(HttpHeaders.RETRY_AFTER, "30");
+        assertEquals(-1, scheduler.retryDelayMillis(1, headers));
+
+        headers.set(HttpHeaders.RETRY_AFTER, "not-a-date");
+        assertEquals(-1, GeminiCallScheduler.parseRetryAfterMillis(headers));
+    }
+
+    @Test
+    void schedule_shouldRunTaskOnWorkerThreadAfterDelay() throws Exception {
+        CountDownLatch ran = new CountDownLatch(1);
+        String[] threadName = new String[1];
+
+        scheduler.schedule(() -> {
+            threadName[0] = Thread.currentThread().getName();
+            ran.countDown();
+        }, 20, () -> {
+        });
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(threadName[0].startsWith("gemini-call-"), threadName[0]);
+    }
+}
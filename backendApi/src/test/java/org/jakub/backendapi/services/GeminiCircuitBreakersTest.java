@@ -0,0 +1,77 @@
+package org.jakub.backendapi.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiCircuitBreakersTest {
+
+    private final AtomicLong now = new AtomicLong(1_000L);
+    private final GeminiCircuitBreakers circuitBreakers =
+            new GeminiCircuitBreakers(true, 4, 4, 50, 10_000, 1, now::get);
+
+    @Test
+    void shouldOpenOnceFailureRateReachesThresholdOverTheWindow() {
+        circuitBreakers.onSuccess("primary");
+        circuitBreakers.onSuccess("primary");
+        circuitBreakers.onFailure("primary");
+        assertTrue(circuitBreakers.tryAcquirePermission("primary"));
+
+        circuitBreakers.onFailure("primary");
+
+        assertFalse(circuitBreakers.tryAcquirePermission("primary"));
+        assertEquals(GeminiCircuitBreakers.State.OPEN, circuitBreakers.snapshot().get("primary").state());
+        assertEquals(10_000L, circuitBreakers.retryAfterMillis("primary"));
+    }
+
+    @Test
+    void shouldSlideOldOutcomesOutOfTheWindow() {
+        circuitBreakers.onFailure("primary");
+        circuitBreakers.onSuccess("primary");
+        circuitBreakers.onSuccess("primary");
+        circuitBreakers.onSuccess("primary");
+        circuitBreakers.onSuccess("primary");
+        circuitBreakers.onFailure("primary");
+
+        assertEquals(25.0, circuitBreakers.snapshot().get("primary").failureRatePercent());
+        assertTrue(circuitBreakers.tryAcquirePermission("primary"));
+    }
+
+    @Test
+    void shouldCloseAfterSuccessfulHalfOpenTrial() {
+        tripBreaker();
+        now.addAndGet(10_000L);
+
+        assertTrue(circuitBreakers.tryAcquirePermission("primary"));
+        assertFalse(circuitBreakers.tryAcquirePermission("primary"));
+        assertEquals(GeminiCircuitBreakers.State.HALF_OPEN, circuitBreakers.snapshot().get("primary").state());
+
+        circuitBreakers.onSuccess("primary");
+
+        assertEquals(GeminiCircuitBreakers.State.CLOSED, circuitBreakers.snapshot().get("primary").state());
+        assertTrue(circuitBreakers.tryAcquirePermission("primary"));
+    }
+
+    @Test
+    void shouldReopenWhenHalfOpenTrialFails() {
+        tripBreaker();
+        now.addAndGet(10_000L);
+        assertTrue(circuitBreakers.tryAcquirePermission("primary"));
+
+        circuitBreakers.onFailure("primary");
+
+        assertEquals(GeminiCircuitBreakers.State.OPEN, circuitBreakers.snapshot().get("primary").state());
+        assertFalse(circuitBreakers.tryAcquirePermission("primary"));
+    }
+
+    private void tripBreaker() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreakers.onFailure("primary");
+        }
+        assertFalse(circuitBreakers.tryAcquirePermission("primary"));
+    }
+}
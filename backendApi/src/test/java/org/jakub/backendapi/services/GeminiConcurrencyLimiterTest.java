@@ -0,0 +1,173 @@
+package org.jakub.backendapi.services;
+
+import org.jakub.backendapi.exceptions.AppException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiConcurrencyLimiterTest {
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void execute_shouldRejectWithRetryAfterWhenLimitAndQueueAreFull() throws Exception {
+        GeminiConcurrencyLimiter limiter = new GeminiConcurrencyLimiter(true, 1, 1, 1, 0, 0, 60_000, 0.5, 7);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> inFlight = CompletableFuture.supplyAsync(() -> limiter.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+            return "done";
+        }), callers);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AppException exception = assertThrows(AppException.class, () -> limiter.execute(() -> "rejected"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getCode());
+        assertEquals(7L, exception.getRetryAfterSeconds());
+
+        release.countDown();
+        assertEquals("done", inFlight.get(5, TimeUnit.SECONDS));
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void execute_shouldLetQueuedCallerRunOnceAPermitIsReleased() throws Exception {
+        GeminiConcurrencyLimiter limiter = new GeminiConcurrencyLimiter(true, 1, 1, 1, 1, 5_000, 60_000, 0.5, 5);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> limiter.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+            return "first";
+        }), callers);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> limiter.execute(() -> "queued"), callers);
+        while (limiter.queueDepth() == 0) {
+            Thread.onSpinWait();
+        }
+
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void executeAsync_shouldQueueWithoutHoldingWorkersSoPendingRetriesStillRun() throws Exception {
+        GeminiConcurrencyLimiter limiter = new GeminiConcurrencyLimiter(true, 1, 1, 1, 10, 5_000, 60_000, 0.5, 5);
+        GeminiCallScheduler scheduler = new GeminiCallScheduler(2, 10, 100, 1_000, 5_000);
+        try {
+            // The permit holder is in backoff: its retry needs a worker once the timer fires.
+            CompletableFuture<String> retrying = scheduler.dispatch(() -> limiter.executeAsync(() -> {
+                CompletableFuture<String> result = new CompletableFuture<>();
+                scheduler.schedule(() -> result.complete("retried"), 100, () -> result.completeExceptionally(
+                        new IllegalStateException("retry rejected")));
+                return result;
+            }, scheduler::execute));
+            while (limiter.inFlight() == 0) {
+                Thread.onSpinWait();
+            }
+
+            // More callers than workers queue for the single permit.
+            List<CompletableFuture<String>> queued = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String name = "queued-" + i;
+                queued.add(scheduler.dispatch(() -> limiter.executeAsync(
+                        () -> CompletableFuture.completedFuture(name), scheduler::execute)));
+            }
+
+            assertEquals("retried", retrying.get(2, TimeUnit.SECONDS));
+            for (int i = 0; i < queued.size(); i++) {
+                assertEquals("queued-" + i, queued.get(i).get(2, TimeUnit.SECONDS));
+            }
+            assertEquals(0, limiter.inFlight());
+            assertEquals(0, limiter.queueDepth());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void executeAsync_shouldRejectQueuedCallerAfterMaxWait() {
+        GeminiConcurrencyLimiter limiter = new GeminiConcurrencyLimiter(true, 1, 1, 1, 1, 50, 60_000, 0.5, 5);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        limiter.executeAsync(() -> pending, Runnable::run);
+
+        CompletableFuture<String> queued = limiter.executeAsync(() -> CompletableFuture.completedFuture("late"), Runnable::run);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> queued.get(2, TimeUnit.SECONDS));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((AppException) exception.getCause()).getCode());
+        assertEquals(0, limiter.queueDepth());
+        pending.complete("done");
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void tryExecuteAsync_shouldSkipInsteadOfQueueingWhenNoPermitIsFree() throws Exception {
+        GeminiConcurrencyLimiter limiter = new GeminiConcurrencyLimiter(true, 1, 1, 1, 10, 5_000, 60_000, 0.5, 5);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        limiter.executeAsync(() -> pending, Runnable::run);
+
+        assertNull(limiter.tryExecuteAsync(() -> CompletableFuture.completedFuture("hedge")));
+        assertEquals(0, limiter.queueDepth());
+
+        pending.complete("done");
+        CompletableFuture<String> hedge = limiter.tryExecuteAsync(() -> CompletableFuture.completedFuture("hedge"));
+        assertEquals("hedge", hedge.get(2, TimeUnit.SECONDS));
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void recordThrottled_shouldShrinkLimitMultiplicatively() {
+        GeminiConcurrencyLimiter limiter = new GeminiConcurrencyLimiter(true, 10, 2, 40, 10, 1_000, 60_000, 0.5, 5);
+
+        limiter.recordThrottled();
+        assertEquals(5, limiter.currentLimit());
+
+        // A burst of 429s from calls that were already in flight only counts once.
+        limiter.recordThrottled();
+        assertEquals(5, limiter.currentLimit());
+    }
+
+    @Test
+    void execute_shouldGrowLimitAdditivelyOnFastSuccesses() {
+        GeminiConcurrencyLimiter limiter = new GeminiConcurrencyLimiter(true, 4, 1, 10, 10, 1_000, 60_000, 0.5, 5);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.execute(() -> "ok");
+        }
+        assertEquals(4, limiter.currentLimit());
+
+        limiter.execute(() -> "ok");
+        assertEquals(5, limiter.currentLimit());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.jakub.backendapi.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiHedgingPolicyTest {
+
+    @Test
+    void hedgeDelayMillis_shouldUseInitialDelayUntilEnoughSamplesAreRecorded() {
+        GeminiHedgingPolicy policy = new GeminiHedgingPolicy(Set.of(GeminiOperation.RECEIPT_SCAN), 90, 100, 5_000, 10, 5);
+
+        for (int i = 0; i < 4; i++) {
+            policy.recordPrimaryLatency(GeminiOperation.RECEIPT_SCAN, 1_000);
+        }
+
+        assertEquals(5_000, policy.hedgeDelayMillis(GeminiOperation.RECEIPT_SCAN));
+    }
+
+    @Test
+    void hedgeDelayMillis_shouldTrackConfiguredPercentileOfRecentLatencies() {
+        GeminiHedgingPolicy policy = new GeminiHedgingPolicy(Set.of(GeminiOperation.RECIPE_GENERATION), 90, 100, 5_000, 10, 5);
+
+        for (int latency = 1_000; latency <= 10_000; latency += 1_000) {
+            policy.recordPrimaryLatency(GeminiOperation.RECIPE_GENERATION, latency);
+        }
+        assertEquals(9_000, policy.hedgeDelayMillis(GeminiOperation.RECIPE_GENERATION));
+
+        // Older samples fall out of the window once it wraps.
+        for (int i = 0; i < 10; i++) {
+            policy.recordPrimaryLatency(GeminiOperation.RECIPE_GENERATION, 50);
+        }
+        assertEquals(100, policy.hedgeDelayMillis(GeminiOperation.RECIPE_GENERATION));
+    }
+
+    @Test
+    void isEnabled_shouldFollowPerOperationToggles() {
+        GeminiHedgingPolicy policy = new GeminiHedgingPolicy(Set.of(GeminiOperation.SHOPPING_LIST_REVIEW), 95, 100, 5_000, 10, 5);
+
+        assertTrue(policy.isEnabled(GeminiOperation.SHOPPING_LIST_REVIEW));
+        assertFalse(policy.isEnabled(GeminiOperation.RECIPE_GENERATION));
+        assertFalse(GeminiHedgingPolicy.disabled().isEnabled(GeminiOperation.RECEIPT_SCAN));
+    }
+}
@@ -0,0 +1,565 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.jakub.backendapi.config.AbortableHttpComponentsClientHttpRequestFactory;
+import org.jakub.backendapi.config.RequestAbortHandle;
+import org.jakub.backendapi.exceptions.AppException;
+import org.jakub.geministub.GeminiStubServer;
+import org.jakub.geministub.LatencyDistribution;
+import org.jakub.geministub.StubSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class GeminiServiceTest {
+
+    private static final String STREAM_URL =
+            "https://generativelanguage.googleapis.com/v1beta/models/test-model:streamGenerateContent?alt=sse";
+    private static final String RECIPE_JSON = """
+            {"name":"Pasta","description":"Quick dinner","timeToPrepare":"15 min",\
+            "ingredients":[{"name":"pasta","amount":200,"unit":"GRAMS"}],\
+            "instructions":["Boil the pasta"],\
+            "nutrition":{"calories":500,"protein":20,"carbs":80,"fats":10}}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MockRestServiceServer server;
+    private GeminiService geminiService;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        geminiService = new GeminiService(
+                objectMapper,
+                restTemplate,
+                RecipeGenerationCache.disabled(),
+                GeminiConcurrencyLimiter.unlimited(),
+                GeminiCircuitBreakers.disabled(),
+                GeminiHedgingPolicy.disabled(),
+                GeminiCallScheduler.defaults(),
+                ReceiptImagePreprocessor.validationOnly(),
+                RecipeGenerationStrategy.singleShot(),
+                GeminiTelemetry.disabled()
+        );
+        ReflectionTestUtils.setField(geminiService, "geminiApiKey", "test-key");
+        ReflectionTestUtils.setField(geminiService, "geminiModel", "test-model");
+    }
+
+    @Test
+    void streamRecipes_shouldReportRecipeAsSoonAsItsObjectCloses() throws Exception {
+        int splitAt = RECIPE_JSON.indexOf("\"instructions\"");
+        server.expect(requestTo(STREAM_URL))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess(
+                        sseEvent(RECIPE_JSON.substring(0, splitAt)) + sseEvent(RECIPE_JSON.substring(splitAt)),
+                        MediaType.TEXT_EVENT_STREAM
+                ));
+
+        List<String> textDeltas = new ArrayList<>();
+        List<JsonNode> recipes = new ArrayList<>();
+        String result = geminiService.streamRecipes("pasta", 1, new GeminiService.RecipeStreamListener() {
+            @Override
+            public void onText(String textDelta) {
+                textDeltas.add(textDelta);
+            }
+
+            @Override
+            public void onRecipe(int recipeIndex, JsonNode recipe) {
+                assertEquals(1, recipeIndex);
+                recipes.add(recipe);
+            }
+        });
+
+        assertEquals(2, textDeltas.size());
+        assertEquals(1, recipes.size());
+        assertEquals("Pasta", recipes.get(0).path("name").asText());
+        assertEquals(objectMapper.readTree(RECIPE_JSON), objectMapper.readTree(result));
+        server.verify();
+    }
+
+    @Test
+    void streamRecipes_shouldRejectInvalidRecipeBeforeStreamEnds() throws Exception {
+        String invalidRecipe = RECIPE_JSON.replace("\"instructions\":[\"Boil the pasta\"]", "\"instructions\":[]");
+        server.expect(requestTo(STREAM_URL))
+                .andRespond(withSuccess(sseEvent(invalidRecipe), MediaType.TEXT_EVENT_STREAM));
+
+        List<JsonNode> recipes = new ArrayList<>();
+        assertThrows(AppException.class, () -> geminiService.streamRecipes("pasta", 1, new GeminiService.RecipeStreamListener() {
+            @Override
+            public void onText(String textDelta) {
+            }
+
+            @Override
+            public void onRecipe(int recipeIndex, JsonNode recipe) {
+                recipes.add(recipe);
+            }
+        }));
+
+        assertEquals(List.of(), recipes);
+    }
+
+    @Test
+    void generateRecipe_shouldSkipPrimaryModelWhileItsCircuitIsOpen() throws Exception {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer fallbackServer = MockRestServiceServer.bindTo(restTemplate).build();
+        GeminiCircuitBreakers circuitBreakers = new GeminiCircuitBreakers(true, 2, 2, 50, 60_000, 1, () -> 1_000L);
+        GeminiService service = new GeminiService(
+                objectMapper,
+                restTemplate,
+                RecipeGenerationCache.disabled(),
+                GeminiConcurrencyLimiter.unlimited(),
+                circuitBreakers,
+                GeminiHedgingPolicy.disabled(),
+                GeminiCallScheduler.defaults(),
+                ReceiptImagePreprocessor.validationOnly(),
+                RecipeGenerationStrategy.singleShot(),
+                GeminiTelemetry.disabled()
+        );
+        ReflectionTestUtils.setField(service, "geminiApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "geminiModel", "test-model");
+        ReflectionTestUtils.setField(service, "geminiFallbackModel", "fallback-model");
+        circuitBreakers.onFailure("test-model");
+        circuitBreakers.onFailure("test-model");
+
+        fallbackServer.expect(requestTo("https://generativelanguage.googleapis.com/v1beta/models/fallback-model:generateContent"))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess(objectMapper.writeValueAsString(textResponse(RECIPE_JSON)), MediaType.APPLICATION_JSON));
+
+        String result = service.generateRecipe("pasta");
+
+        assertEquals(objectMapper.readTree(RECIPE_JSON), objectMapper.readTree(result));
+        assertEquals(GeminiCircuitBreakers.State.OPEN, circuitBreakers.snapshot().get("test-model").state());
+        fallbackServer.verify();
+    }
+
+    @Test
+    void generateRecipe_shouldRetryThrottledCallAfterRetryAfterDelay() throws Exception {
+        String generateUrl = "https://generativelanguage.googleapis.com/v1beta/models/test-model:generateContent";
+        HttpHeaders throttledHeaders = new HttpHeaders();
+        throttledHeaders.set(HttpHeaders.RETRY_AFTER, "0");
+        server.expect(requestTo(generateUrl))
+                .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).headers(throttledHeaders));
+        server.expect(requestTo(generateUrl))
+                .andRespond(withSuccess(objectMapper.writeValueAsString(textResponse(RECIPE_JSON)), MediaType.APPLICATION_JSON));
+
+        String result = geminiService.generateRecipesAsync("pasta", 1, false).get(5, TimeUnit.SECONDS);
+
+        assertEquals(objectMapper.readTree(RECIPE_JSON), objectMapper.readTree(result));
+        server.verify();
+    }
+
+    @Test
+    void generateRecipe_shouldHedgeSlowPrimaryAndCancelItWhenFallbackAnswersFirst() throws Exception {
+        JsonNode fallbackResponse = objectMapper.valueToTree(textResponse(RECIPE_JSON));
+        CountDownLatch primaryCancelled = new CountDownLatch(1);
+        RestTemplate restTemplate = new RestTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> ResponseEntity<T> exchange(
+                    String url,
+                    HttpMethod method,
+                    HttpEntity<?> requestEntity,
+                    Class<T> responseType,
+                    Object... uriVariables
+            ) {
+                if (url.contains("fallback-model")) {
+                    return (ResponseEntity<T>) ResponseEntity.ok(fallbackResponse);
+                }
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    primaryCancelled.countDown();
+                    Thread.currentThread().interrupt();
+                }
+                throw new ResourceAccessException("primary call cancelled");
+            }
+        };
+        GeminiHedgingPolicy hedgingPolicy = new GeminiHedgingPolicy(
+                Set.of(GeminiOperation.RECIPE_GENERATION), 95, 50, 50, 10, 5);
+        GeminiService service = new GeminiService(
+                objectMapper,
+                restTemplate,
+                RecipeGenerationCache.disabled(),
+                GeminiConcurrencyLimiter.unlimited(),
+                GeminiCircuitBreakers.disabled(),
+                hedgingPolicy,
+                GeminiCallScheduler.defaults(),
+                ReceiptImagePreprocessor.validationOnly(),
+                RecipeGenerationStrategy.singleShot(),
+                GeminiTelemetry.disabled()
+        );
+        ReflectionTestUtils.setField(service, "geminiApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "geminiModel", "test-model");
+        ReflectionTestUtils.setField(service, "geminiFallbackModel", "fallback-model");
+
+        String result = service.generateRecipe("pasta");
+
+        assertEquals(objectMapper.readTree(RECIPE_JSON), objectMapper.readTree(result));
+        assertTrue(primaryCancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void generateRecipe_shouldNotHedgeWithoutAFreeConcurrencyPermit() throws Exception {
+        JsonNode response = objectMapper.valueToTree(textResponse(RECIPE_JSON));
+        AtomicInteger fallbackCalls = new AtomicInteger();
+        RestTemplate restTemplate = new RestTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> ResponseEntity<T> exchange(
+                    String url,
+                    HttpMethod method,
+                    HttpEntity<?> requestEntity,
+                    Class<T> responseType,
+                    Object... uriVariables
+            ) {
+                if (url.contains("fallback-model")) {
+                    fallbackCalls.incrementAndGet();
+                } else {
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return (ResponseEntity<T>) ResponseEntity.ok(response);
+            }
+        };
+        GeminiService service = new GeminiService(
+                objectMapper,
+                restTemplate,
+                RecipeGenerationCache.disabled(),
+                new GeminiConcurrencyLimiter(true, 1, 1, 1, 10, 5_000, 60_000, 0.5, 5),
+                GeminiCircuitBreakers.disabled(),
+                new GeminiHedgingPolicy(Set.of(GeminiOperation.RECIPE_GENERATION), 95, 50, 50, 10, 5),
+                GeminiCallScheduler.defaults(),
+                ReceiptImagePreprocessor.validationOnly(),
+                RecipeGenerationStrategy.singleShot(),
+                GeminiTelemetry.disabled()
+        );
+        ReflectionTestUtils.setField(service, "geminiApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "geminiModel", "test-model");
+        ReflectionTestUtils.setField(service, "geminiFallbackModel", "fallback-model");
+
+        String result = service.generateRecipe("pasta");
+
+        // The only permit belongs to the slow primary, so the hedge is skipped rather than exceeding the limit.
+        assertEquals(objectMapper.readTree(RECIPE_JSON), objectMapper.readTree(result));
+        assertEquals(0, fallbackCalls.get());
+    }
+
+    @Test
+    void generateRecipe_shouldAbortTheLosingHttpRequestWhenFallbackAnswersFirst() throws Exception {
+        byte[] responseBody = objectMapper.writeValueAsBytes(textResponse(RECIPE_JSON));
+        CountDownLatch releasePrimary = new CountDownLatch(1);
+        ExecutorService serverThreads = Executors.newCachedThreadPool();
+        HttpServer gemini = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        gemini.setExecutor(serverThreads);
+        gemini.createContext("/v1beta/models/", exchange -> {
+            try (exchange) {
+                exchange.getRequestBody().readAllBytes();
+                if (exchange.getRequestURI().getPath().contains("test-model")) {
+                    releasePrimary.await(10, TimeUnit.SECONDS);
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, responseBody.length);
+                exchange.getResponseBody().write(responseBody);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        gemini.start();
+
+        CountDownLatch primaryReturned = new CountDownLatch(1);
+        RestTemplate restTemplate = new RestTemplate(
+                new AbortableHttpComponentsClientHttpRequestFactory(HttpClients.createDefault())) {
+            @Override
+            public <T> ResponseEntity<T> exchange(
+                    String url,
+                    HttpMethod method,
+                    HttpEntity<?> requestEntity,
+                    Class<T> responseType,
+                    Object... uriVariables
+            ) {
+                try {
+                    return super.exchange(url, method, requestEntity, responseType, uriVariables);
+                } finally {
+                    if (url.contains("test-model")) {
+                        primaryReturned.countDown();
+                    }
+                }
+            }
+        };
+        GeminiHedgingPolicy hedgingPolicy = new GeminiHedgingPolicy(
+                Set.of(GeminiOperation.RECIPE_GENERATION), 95, 50, 50, 10, 5);
+        GeminiService service = new GeminiService(
+                objectMapper,
+                restTemplate,
+                RecipeGenerationCache.disabled(),
+                GeminiConcurrencyLimiter.unlimited(),
+                GeminiCircuitBreakers.disabled(),
+                hedgingPolicy,
+                GeminiCallScheduler.defaults(),
+                ReceiptImagePreprocessor.validationOnly(),
+                RecipeGenerationStrategy.singleShot(),
+                GeminiTelemetry.disabled()
+        );
+        ReflectionTestUtils.setField(service, "geminiBaseUrl", "http://127.0.0.1:" + gemini.getAddress().getPort() + "/v1beta");
+        ReflectionTestUtils.setField(service, "geminiApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "geminiModel", "test-model");
+        ReflectionTestUtils.setField(service, "geminiFallbackModel", "fallback-model");
+
+        try {
+            String result = service.generateRecipe("pasta");
+
+            assertEquals(objectMapper.readTree(RECIPE_JSON), objectMapper.readTree(result));
+            // The primary's socket read ignores the interrupt; only aborting the request ends it before the server answers.
+            assertTrue(primaryReturned.await(2, TimeUnit.SECONDS));
+        } finally {
+            releasePrimary.countDown();
+            gemini.stop(0);
+            serverThreads.shutdownNow();
+        }
+    }
+
+    @Test
+    void generateRecipes_shouldFanOutAndResendOnlyTheLegThatReturnedInvalidJson() throws Exception {
+        JsonNode validResponse = objectMapper.valueToTree(textResponse(RECIPE_JSON));
+        JsonNode invalidResponse = objectMapper.valueToTree(textResponse("{\"name\":\"Pasta\""));
+        AtomicInteger calls = new AtomicInteger();
+        RestTemplate restTemplate = new RestTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> ResponseEntity<T> exchange(
+                    String url,
+                    HttpMethod method,
+                    HttpEntity<?> requestEntity,
+                    Class<T> responseType,
+                    Object... uriVariables
+            ) {
+                JsonNode body = calls.incrementAndGet() == 1 ? invalidResponse : validResponse;
+                return (ResponseEntity<T>) ResponseEntity.ok(body);
+            }
+        };
+        GeminiService service = new GeminiService(
+                objectMapper,
+                restTemplate,
+                RecipeGenerationCache.disabled(),
+                GeminiConcurrencyLimiter.unlimited(),
+                GeminiCircuitBreakers.disabled(),
+                GeminiHedgingPolicy.disabled(),
+                GeminiCallScheduler.defaults(),
+                ReceiptImagePreprocessor.validationOnly(),
+                new RecipeGenerationStrategy(RecipeGenerationStrategy.Mode.FAN_OUT, 2, 0, 2),
+                GeminiTelemetry.disabled()
+        );
+        ReflectionTestUtils.setField(service, "geminiApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "geminiModel", "test-model");
+
+        JsonNode result = objectMapper.readTree(service.generateRecipes("pasta", 3));
+
+        assertEquals(3, result.path("recipes").size());
+        assertEquals(objectMapper.readTree(RECIPE_JSON), result.path("recipes").get(0));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void generateRecipes_shouldConstrainBatchWithResponseSchema() throws Exception {
+        String generateUrl = "https://generativelanguage.googleapis.com/v1beta/models/test-model:generateContent";
+        ReflectionTestUtils.setField(geminiService, "responseSchemaEnabled", true);
+        String batch = "{\"recipes\":[" + RECIPE_JSON + "," + RECIPE_JSON + "]}";
+        server.expect(requestTo(generateUrl))
+                .andExpect(jsonPath("$.generationConfig.responseMimeType").value("application/json"))
+                .andExpect(jsonPath("$.generationConfig.responseSchema.properties.recipes.minItems").value(2))
+                .andExpect(jsonPath("$.generationConfig.responseSchema.properties.recipes.items.required[0]").value("name"))
+                .andRespond(withSuccess(objectMapper.writeValueAsString(textResponse(batch)), MediaType.APPLICATION_JSON));
+
+        String result = geminiService.generateRecipes("pasta", 2);
+
+        assertEquals(objectMapper.readTree(batch), objectMapper.readTree(result));
+        server.verify();
+    }
+
+    @Test
+    void generateRecipe_shouldRecordAttemptLatencyAndTokenUsage() throws Exception {
+        String generateUrl = "https://generativelanguage.googleapis.com/v1beta/models/test-model:generateContent";
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer meteredServer = MockRestServiceServer.bindTo(restTemplate).build();
+        GeminiService service = new GeminiService(
+                objectMapper,
+                restTemplate,
+                RecipeGenerationCache.disabled(),
+                GeminiConcurrencyLimiter.unlimited(),
+                GeminiCircuitBreakers.disabled(),
+                GeminiHedgingPolicy.disabled(),
+                GeminiCallScheduler.defaults(),
+                ReceiptImagePreprocessor.validationOnly(),
+                RecipeGenerationStrategy.singleShot(),
+                new GeminiTelemetry(meterRegistry)
+        );
+        ReflectionTestUtils.setField(service, "geminiApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "geminiModel", "test-model");
+        Map<String, Object> response = Map.of(
+                "candidates", textResponse(RECIPE_JSON).get("candidates"),
+                "usageMetadata", Map.of("promptTokenCount", 120, "candidatesTokenCount", 380, "totalTokenCount", 500)
+        );
+        meteredServer.expect(requestTo(generateUrl)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        meteredServer.expect(requestTo(generateUrl))
+                .andRespond(withSuccess(objectMapper.writeValueAsString(response), MediaType.APPLICATION_JSON));
+
+        service.generateRecipe("pasta");
+
+        assertEquals(1, meterRegistry.get(GeminiTelemetry.CALL_DURATION)
+                .tags("operation", "recipe_generation", "model", "test-model", "attempt", "1", "outcome", "server_error")
+                .timer().count());
+        assertEquals(1, meterRegistry.get(GeminiTelemetry.CALL_DURATION)
+                .tags("attempt", "2", "outcome", "success")
+                .timer().count());
+        assertEquals(1, meterRegistry.get(GeminiTelemetry.OPERATION_DURATION)
+                .tags("operation", "recipe_generation", "outcome", "success")
+                .timer().count());
+        assertEquals(380.0, meterRegistry.get(GeminiTelemetry.TOKENS)
+                .tags("model", "test-model", "type", "candidates")
+                .summary().totalAmount());
+        assertEquals(500.0, meterRegistry.get(GeminiTelemetry.TOKENS).tag("type", "total").summary().totalAmount());
+        meteredServer.verify();
+    }
+
+    @Test
+    void generateRecipes_shouldRunAgainstLocalStubAndFallBackWhenPrimaryModelIsDown() throws Exception {
+        StubSettings settings = StubSettings.defaults().withFailures(0, 0, Set.of("test-model"));
+        try (GeminiStubServer stub = GeminiStubServer.start(settings)) {
+            GeminiService service = new GeminiService(objectMapper);
+            ReflectionTestUtils.setField(service, "geminiBaseUrl", stub.baseUrl() + "/");
+            ReflectionTestUtils.setField(service, "geminiApiKey", "test-key");
+            ReflectionTestUtils.setField(service, "geminiModel", "test-model");
+            ReflectionTestUtils.setField(service, "geminiFallbackModel", "fallback-model");
+            ReflectionTestUtils.setField(service, "responseSchemaEnabled", true);
+
+            JsonNode recipes = objectMapper.readTree(service.generateRecipes("pasta", 3)).path("recipes");
+
+            assertEquals(3, recipes.size());
+            // Three attempts on the failing primary model, then one on the fallback.
+            assertEquals(4, stub.requestCount());
+        }
+    }
+
+    @Test
+    void streamRecipes_shouldRelayChunksStreamedByLocalStub() throws Exception {
+        try (GeminiStubServer stub = GeminiStubServer.start(StubSettings.defaults())) {
+            GeminiService service = new GeminiService(objectMapper);
+            ReflectionTestUtils.setField(service, "geminiBaseUrl", stub.baseUrl());
+            ReflectionTestUtils.setField(service, "geminiApiKey", "test-key");
+            ReflectionTestUtils.setField(service, "geminiModel", "test-model");
+            List<String> textDeltas = new ArrayList<>();
+            List<JsonNode> recipes = new ArrayList<>();
+
+            service.streamRecipes("pasta", 2, new GeminiService.RecipeStreamListener() {
+                @Override
+                public void onText(String textDelta) {
+                    textDeltas.add(textDelta);
+                }
+
+                @Override
+                public void onRecipe(int recipeIndex, JsonNode recipe) {
+                    recipes.add(recipe);
+                }
+            });
+
+            assertTrue(textDeltas.size() > 1);
+            assertEquals(2, recipes.size());
+        }
+    }
+
+    @Test
+    void streamRecipes_shouldCutTheStubConnectionWhenAbortedMidStream() throws Exception {
+        StubSettings settings = StubSettings.defaults().withLatency(LatencyDistribution.NONE, LatencyDistribution.fixed(500));
+        ExecutorService disconnector = Executors.newSingleThreadExecutor();
+        try (GeminiStubServer stub = GeminiStubServer.start(settings)) {
+            RestTemplate streamingTemplate = new RestTemplate(
+                    new AbortableHttpComponentsClientHttpRequestFactory(HttpClients.createDefault()));
+            GeminiService service = new GeminiService(
+                    objectMapper,
+                    streamingTemplate,
+                    RecipeGenerationCache.disabled(),
+                    GeminiConcurrencyLimiter.unlimited(),
+                    GeminiCircuitBreakers.disabled(),
+                    GeminiHedgingPolicy.disabled(),
+                    GeminiCallScheduler.defaults(),
+                    ReceiptImagePreprocessor.validationOnly(),
+                    RecipeGenerationStrategy.singleShot(),
+                    GeminiTelemetry.disabled()
+            );
+            ReflectionTestUtils.setField(service, "geminiBaseUrl", stub.baseUrl());
+            ReflectionTestUtils.setField(service, "geminiApiKey", "test-key");
+            ReflectionTestUtils.setField(service, "geminiModel", "test-model");
+            RequestAbortHandle abortHandle = new RequestAbortHandle();
+            AtomicInteger textDeltas = new AtomicInteger();
+
+            long startedAt = System.nanoTime();
+            assertThrows(RuntimeException.class, () -> service.streamRecipes("pasta", 2, new GeminiService.RecipeStreamListener() {
+                @Override
+                public void onText(String textDelta) {
+                    // The SSE client goes away while the reader is blocked waiting for the next chunk.
+                    if (textDeltas.incrementAndGet() == 1) {
+                        disconnector.execute(abortHandle::abort);
+                    }
+                }
+
+                @Override
+                public void onRecipe(int recipeIndex, JsonNode recipe) {
+                }
+            }, abortHandle));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+            // Draining the remaining chunks on close would take another 3.5 seconds.
+            assertTrue(elapsedMillis < 1500, "stream ended after " + elapsedMillis + " ms");
+            assertEquals(1, textDeltas.get());
+        } finally {
+            disconnector.shutdownNow();
+        }
+    }
+
+    private Map<String, Object> textResponse(String text) {
+        return Map.of(
+                "candidates", List.of(Map.of("content", Map.of("parts", List.of(Map.of("text", text)))))
+        );
+    }
+
+    private String sseEvent(String text) throws Exception {
+        return "data: " + objectMapper.writeValueAsString(textResponse(text)) + "\n\n";
+    }
+}
@@ -0,0 +1,109 @@
+package org.jakub.backendapi.services;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.webtoken.JsonWebSignature;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GoogleTokenVerifierTest {
+
+    private static final String CLIENT_ID = "recipe-ai.apps.googleusercontent.com";
+
+    private static KeyPair signingKey;
+    private static KeyPair otherKey;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        signingKey = generator.generateKeyPair();
+        otherKey = generator.generateKeyPair();
+    }
+
+    @Test
+    void verifiesTokensSignedWithAKeyFromTheLocalJwks() throws Exception {
+        GoogleTokenVerifier verifier = new GoogleTokenVerifier(CLIENT_ID, writeJwks("key-1", signingKey));
+
+        GoogleIdToken idToken = verifier.verify(signedToken("key-1", signingKey, CLIENT_ID, 3600));
+
+        assertNotNull(idToken);
+        assertEquals("cook@example.com", idToken.getPayload().getEmail());
+    }
+
+    @Test
+    void rejectsTokensForAnotherAudienceOrPastTheirExpiry() throws Exception {
+        GoogleTokenVerifier verifier = new GoogleTokenVerifier(CLIENT_ID, writeJwks("key-1", signingKey));
+
+        assertNull(verifier.verify(signedToken("key-1", signingKey, "other-client", 3600)));
+        assertNull(verifier.verify(signedToken("key-1", signingKey, CLIENT_ID, -3600)));
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnUnknownOrForgedKey() throws Exception {
+        GoogleTokenVerifier verifier = new GoogleTokenVerifier(CLIENT_ID, writeJwks("key-1", signingKey));
+
+        assertNull(verifier.verify(signedToken("key-2", signingKey, CLIENT_ID, 3600)));
+        assertNull(verifier.verify(signedToken("key-1", otherKey, CLIENT_ID, 3600)));
+    }
+
+    @Test
+    void failsFastWhenTheJwksHasNoUsableKeys() throws Exception {
+        Path jwks = directory.resolve("empty-jwks.json");
+        Files.writeString(jwks, "{\"keys\":[]}");
+
+        assertThrows(IllegalStateException.class, () -> new GoogleTokenVerifier(CLIENT_ID, jwks));
+    }
+
+    private Path writeJwks(String keyId, KeyPair keyPair) throws Exception {
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+        Path jwks = directory.resolve("jwks.json");
+        Files.writeString(jwks, """
+                {"keys":[{"kty":"RSA","alg":"RS256","use":"sig","kid":"%s","n":"%s","e":"%s"}]}
+                """.formatted(keyId, base64Url(publicKey.getModulus()), base64Url(publicKey.getPublicExponent())));
+        return jwks;
+    }
+
+    private static String signedToken(String keyId, KeyPair keyPair, String audience, long expiresInSeconds)
+            throws Exception {
+        long now = System.currentTimeMillis() / 1000;
+        JsonWebSignature.Header header = new JsonWebSignature.Header()
+                .setAlgorithm("RS256")
+                .setKeyId(keyId);
+        GoogleIdToken.Payload payload = new GoogleIdToken.Payload()
+                .setEmail("cook@example.com")
+                .setEmailVerified(true);
+        payload.setIssuer("https://accounts.google.com")
+                .setAudience(audience)
+                .setSubject("google-user-1")
+                .setIssuedAtTimeSeconds(Math.min(now, now + expiresInSeconds) - 60)
+                .setExpirationTimeSeconds(now + expiresInSeconds);
+        return JsonWebSignature.signUsingRsaSha256(keyPair.getPrivate(), GsonFactory.getDefaultInstance(), header, payload);
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
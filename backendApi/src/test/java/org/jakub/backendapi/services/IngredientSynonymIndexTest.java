@@ -0,0 +1,206 @@
+package org.jakub.backendapi.services;
+
+import org.jakub.backendapi.entities.IngredientEquivalence;
+import org.jakub.backendapi.repositories.IngredientEquivalenceRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IngredientSynonymIndexTest {
+
+    @Test
+    void match_shouldUseBundledDictionaryGroups() {
+        IngredientSynonymIndex index = new IngredientSynonymIndex(
+                new ClassPathResource("ingredient-synonyms.txt"), false, 0, 2, 168, 720, 5000, null);
+
+        assertEquals(IngredientSynonymIndex.Match.EQUIVALENT, index.match("Scallions", "green  onion"));
+        assertEquals(IngredientSynonymIndex.Match.EQUIVALENT, index.match("Aubergine", "eggplant"));
+        assertEquals(IngredientSynonymIndex.Match.UNKNOWN, index.match("red onion", "green onion"));
+        assertEquals(IngredientSynonymIndex.Match.UNKNOWN, index.match("scallion", "ramps"));
+    }
+
+    @Test
+    void learn_shouldDecidePreviouslyUnknownPairsInBothDirections() {
+        IngredientSynonymIndex index = new IngredientSynonymIndex(List.of(), 100, null);
+
+        index.learn("Ramps", "wild garlic", true, "anna@example.com");
+        index.learn("wild garlic", "ramps", true, "ben@example.com");
+        index.learn("leek", "ramps", false, "anna@example.com");
+
+        assertEquals(IngredientSynonymIndex.Match.EQUIVALENT, index.match("wild garlic", "ramps"));
+        assertEquals(IngredientSynonymIndex.Match.DISTINCT, index.match("Ramps", "Leek"));
+        assertEquals(IngredientSynonymIndex.Match.UNKNOWN, index.match("leek", "wild garlic"));
+    }
+
+    @Test
+    void learn_shouldNotSettleAnEquivalenceFromASingleUsersReviews() {
+        IngredientSynonymIndex index = new IngredientSynonymIndex(List.of(), 100, null);
+
+        index.learn("ramps", "wild garlic", true, "anna@example.com");
+        index.learn("ramps", "wild garlic", true, "Anna@example.com ");
+
+        assertEquals(IngredientSynonymIndex.Match.UNKNOWN, index.match("ramps", "wild garlic"));
+    }
+
+    @Test
+    void learn_shouldLetAContradictingReviewFlipAnUnconfirmedEquivalence() {
+        IngredientSynonymIndex index = new IngredientSynonymIndex(List.of(), 100, null);
+
+        index.learn("ramps", "leek", true, "anna@example.com");
+        assertEquals(IngredientSynonymIndex.Match.UNKNOWN, index.match("ramps", "leek"));
+        index.learn("ramps", "leek", false, "ben@example.com");
+        assertEquals(IngredientSynonymIndex.Match.DISTINCT, index.match("ramps", "leek"));
+
+        // Anna's earlier answer no longer counts, so a new equivalence starts again from one review.
+        index.learn("ramps", "leek", true, "carl@example.com");
+        assertEquals(IngredientSynonymIndex.Match.UNKNOWN, index.match("ramps", "leek"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void learn_shouldPersistNewDecisionsOnceInABackgroundBatch() {
+        IngredientEquivalenceRepository repository = mock(IngredientEquivalenceRepository.class);
+        when(repository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+        when(repository.findByFirstNameIn(anyCollection())).thenReturn(List.of(
+                new IngredientEquivalence("leek", "ramps", true, Instant.EPOCH)
+        ));
+        IngredientSynonymIndex index = new IngredientSynonymIndex(
+                List.of(), 100, Duration.ofDays(7), 60_000, Clock.systemUTC(), repository);
+
+        index.learn("wild garlic", "Ramps", true, "anna@example.com");
+        index.learn("ramps", "wild garlic", true, "ben@example.com");
+        index.learn("Leek", "ramps", false, "anna@example.com");
+        verify(repository, never()).saveAll(anyList());
+
+        index.flushPendingWrites();
+
+        ArgumentCaptor<List<IngredientEquivalence>> saved = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(1)).findByFirstNameIn(anyCollection());
+        verify(repository, times(1)).saveAll(saved.capture());
+        Map<String, IngredientEquivalence> byPair = saved.getValue().stream()
+                .collect(Collectors.toMap(entry -> entry.getFirstName() + "/" + entry.getSecondName(), entry -> entry));
+        assertEquals(Set.of("ramps/wild garlic", "leek/ramps"), byPair.keySet());
+        assertTrue(byPair.get("ramps/wild garlic").isEquivalent());
+        assertEquals(2, byPair.get("ramps/wild garlic").getConfirmations());
+        assertFalse(byPair.get("leek/ramps").isEquivalent());
+        index.shutdown();
+    }
+
+    @Test
+    void learn_shouldForgetDecisionsAfterTheirTtl() {
+        MutableClock clock = new MutableClock(1_000_000);
+        IngredientSynonymIndex index = new IngredientSynonymIndex(
+                List.of(), 100, 2, Duration.ofHours(1), Duration.ofDays(1), 60_000, clock, null);
+
+        index.learn("ramps", "wild garlic", true, "anna@example.com");
+        index.learn("ramps", "wild garlic", true, "ben@example.com");
+        index.learn("leek", "ramps", false, "anna@example.com");
+        clock.advance(Duration.ofHours(1).toMillis() + 1);
+
+        assertEquals(IngredientSynonymIndex.Match.EQUIVALENT, index.match("ramps", "wild garlic"));
+        assertEquals(IngredientSynonymIndex.Match.UNKNOWN, index.match("leek", "ramps"));
+
+        clock.advance(Duration.ofDays(1).toMillis());
+        assertEquals(IngredientSynonymIndex.Match.UNKNOWN, index.match("ramps", "wild garlic"));
+    }
+
+    @Test
+    void match_shouldSkipDistinctDecisionsLoadedPastTheirTtl() {
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-10T00:00:00Z").toEpochMilli());
+        IngredientEquivalenceRepository repository = mock(IngredientEquivalenceRepository.class);
+        when(repository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(
+                new IngredientEquivalence("leek", "ramps", false, Instant.parse("2026-01-01T00:00:00Z")),
+                new IngredientEquivalence("leek", "shallot", false, Instant.parse("2026-01-09T12:00:00Z"))
+        )));
+        IngredientSynonymIndex index = new IngredientSynonymIndex(List.of(), 100, Duration.ofDays(1), 60_000, clock, repository);
+
+        assertEquals(IngredientSynonymIndex.Match.UNKNOWN, index.match("leek", "ramps"));
+        assertEquals(IngredientSynonymIndex.Match.DISTINCT, index.match("leek", "shallot"));
+        index.shutdown();
+    }
+
+    @Test
+    void match_shouldLoadLearnedDecisionsFromRepositoryOnFirstUse() {
+        IngredientEquivalenceRepository repository = mock(IngredientEquivalenceRepository.class);
+        IngredientEquivalence confirmed = new IngredientEquivalence("ramps", "wild garlic", true, Instant.now());
+        confirmed.setConfirmations(2);
+        when(repository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(
+                confirmed,
+                new IngredientEquivalence("leek", "ramps", true, Instant.now())
+        )));
+        IngredientSynonymIndex index = new IngredientSynonymIndex(List.of(), 100, repository);
+
+        assertEquals(IngredientSynonymIndex.Match.EQUIVALENT, index.match("Wild garlic", "ramps"));
+        assertEquals(IngredientSynonymIndex.Match.EQUIVALENT, index.match("ramps", "wild garlic"));
+        assertEquals(IngredientSynonymIndex.Match.UNKNOWN, index.match("leek", "ramps"));
+        verify(repository, times(1)).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void learn_shouldBeIgnoredWhenLearningIsDisabled() {
+        IngredientEquivalenceRepository repository = mock(IngredientEquivalenceRepository.class);
+        IngredientSynonymIndex index = new IngredientSynonymIndex(List.of(), 0, repository);
+
+        index.learn("ramps", "wild garlic", true, "anna@example.com");
+
+        assertEquals(IngredientSynonymIndex.Match.UNKNOWN, index.match("ramps", "wild garlic"));
+        verify(repository, never()).saveAll(anyList());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile long millis;
+
+        private MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long deltaMillis) {
+            millis += deltaMillis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.jakub.backendapi.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jakub.backendapi.exceptions.AppException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingServiceTest {
+
+    @Test
+    void hashesOnTheDedicatedPoolAndRecordsDurations() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHashingService service = new PasswordHashingService(
+                new ThreadRecordingEncoder(null), true, 1, 1, Duration.ofSeconds(1), 2, registry);
+
+        String hash = service.encode("password");
+
+        assertTrue(hash.startsWith("password-hashing-"));
+        assertEquals(1, registry.get(PasswordHashingService.HASH_DURATION).tag("operation", "encode").timer().count());
+        service.shutdown();
+    }
+
+    @Test
+    void rejectsWithServiceUnavailableOnceThePoolAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHashingService service = new PasswordHashingService(
+                new ThreadRecordingEncoder(release), true, 1, 1, Duration.ofSeconds(5), 2, null);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> service.encode("first"));
+        waitUntil(() -> service.activeCount() == 1);
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> service.encode("second"));
+        waitUntil(() -> service.queueDepth() == 1);
+
+        AppException exception = assertThrows(AppException.class, () -> service.encode("third"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getCode());
+        assertEquals(2L, exception.getRetryAfterSeconds());
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        service.shutdown();
+    }
+
+    @Test
+    void rejectsCallersThatWaitLongerThanTheMaxWait() {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHashingService service = new PasswordHashingService(
+                new ThreadRecordingEncoder(release), true, 1, 1, Duration.ofMillis(50), 2, null);
+
+        AppException exception = assertThrows(AppException.class, () -> service.matches("password", "hash"));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getCode());
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void capsTheQueueSoWaitingLoginsHoldAtMostHalfTheRequestThreads() {
+        assertEquals(50, PasswordHashingService.cappedQueueCapacity(8, 50, 200));
+        assertEquals(12, PasswordHashingService.cappedQueueCapacity(8, 50, 40));
+        assertEquals(1, PasswordHashingService.cappedQueueCapacity(16, 50, 20));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private record ThreadRecordingEncoder(CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            awaitRelease();
+            return Thread.currentThread().getName() + ":" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            awaitRelease();
+            return encodedPassword.endsWith(":" + rawPassword);
+        }
+
+        private void awaitRelease() {
+            if (release == null) {
+                return;
+            }
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.jakub.backendapi.services;
+
+import org.jakub.backendapi.exceptions.AppException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitServiceTest {
+
+    private static final long WINDOW_MILLIS = 60_000;
+
+    private final MutableClock clock = new MutableClock(1_000_000 * WINDOW_MILLIS);
+
+    @Test
+    void rejectsRequestsOverTheLimitWithinTheWindow() {
+        RateLimitService service = new RateLimitService(100, clock, null);
+
+        for (int i = 0; i < 3; i++) {
+            service.assertAllowed("login_1.2.3.4", 3, WINDOW_MILLIS, "Too many attempts");
+        }
+        AppException exception = assertThrows(AppException.class,
+                () -> service.assertAllowed("login_1.2.3.4", 3, WINDOW_MILLIS, "Too many attempts"));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getCode());
+        assertEquals("Too many attempts", exception.getMessage());
+        assertEquals(3, service.getCurrentRequestCount("login_1.2.3.4", WINDOW_MILLIS));
+        service.assertAllowed("login_5.6.7.8", 3, WINDOW_MILLIS, "Too many attempts");
+    }
+
+    @Test
+    void weightsThePreviousWindowByHowMuchOfItTheSlidingWindowStillCovers() {
+        RateLimitService service = new RateLimitService(100, clock, null);
+        for (int i = 0; i < 4; i++) {
+            service.assertAllowed("generate_7", 4, WINDOW_MILLIS, "Slow down");
+        }
+
+        clock.advance(WINDOW_MILLIS / 4 + WINDOW_MILLIS);
+        assertEquals(3, service.getCurrentRequestCount("generate_7", WINDOW_MILLIS));
+        service.assertAllowed("generate_7", 4, WINDOW_MILLIS, "Slow down");
+        assertThrows(AppException.class, () -> service.assertAllowed("generate_7", 4, WINDOW_MILLIS, "Slow down"));
+
+        clock.advance(WINDOW_MILLIS);
+        assertEquals(1, service.getCurrentRequestCount("generate_7", WINDOW_MILLIS));
+    }
+
+    @Test
+    void dropsKeysTwoWindowsAfterTheirLastRequest() {
+        RateLimitService service = new RateLimitService(100, clock, null);
+        service.assertAllowed("register_1.2.3.4", 5, WINDOW_MILLIS, "Too many attempts");
+        assertEquals(1, service.trackedKeys());
+
+        clock.advance(2 * WINDOW_MILLIS + 1);
+
+        assertEquals(0, service.trackedKeys());
+        assertEquals(0, service.getCurrentRequestCount("register_1.2.3.4", WINDOW_MILLIS));
+    }
+
+    @Test
+    void tracksAtMostTheConfiguredNumberOfKeys() {
+        RateLimitService service = new RateLimitService(100, clock, null);
+
+        for (int i = 0; i < 10_000; i++) {
+            service.assertAllowed("login_" + i, 10, WINDOW_MILLIS, "Too many attempts");
+        }
+
+        assertTrue(service.trackedKeys() <= 100);
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheLimit() throws Exception {
+        RateLimitService service = new RateLimitService(100, clock, null);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+        try {
+            for (int i = 0; i < 200; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        service.assertAllowed("login_1.2.3.4", 50, WINDOW_MILLIS, "Too many attempts");
+                        allowed.incrementAndGet();
+                    } catch (AppException | InterruptedException ignored) {
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(50, allowed.get());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile long millis;
+
+        private MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long deltaMillis) {
+            millis += deltaMillis;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+}
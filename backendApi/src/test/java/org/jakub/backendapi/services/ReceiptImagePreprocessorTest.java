@@ -0,0 +1,104 @@
+package org.jakub.backendapi.services;
+
+import org.jakub.backendapi.exceptions.AppException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReceiptImagePreprocessorTest {
+
+    @Test
+    void prepare_shouldDownscaleOversizedReceiptToMaxEdgeAsJpeg() throws Exception {
+        ReceiptImagePreprocessor preprocessor = new ReceiptImagePreprocessor(true, 400, 0.8f);
+        byte[] original = noisyPng(1200, 600);
+
+        ReceiptImagePreprocessor.ReceiptImage prepared = preprocessor.prepare(upload(MediaType.IMAGE_PNG_VALUE, original));
+
+        assertEquals(MediaType.IMAGE_JPEG_VALUE, prepared.mimeType());
+        byte[] sent = prepared.content().getInputStream().readAllBytes();
+        assertTrue(sent.length < original.length);
+        assertEquals(sent.length, prepared.sizeBytes());
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(sent));
+        assertEquals(400, decoded.getWidth());
+        assertEquals(200, decoded.getHeight());
+    }
+
+    @Test
+    void decodeSubsampled_shouldNeverDecodeMoreThanMaxEdgePixels() throws Exception {
+        ReceiptImagePreprocessor preprocessor = new ReceiptImagePreprocessor(true, 3072, 0.8f);
+
+        BufferedImage decoded = preprocessor.decodeSubsampled(upload(MediaType.IMAGE_PNG_VALUE, noisyPng(6000, 40)), 6000);
+
+        assertEquals(3000, decoded.getWidth());
+        assertEquals(2, ReceiptImagePreprocessor.subsampling(3073, 3072));
+        assertEquals(2, ReceiptImagePreprocessor.subsampling(6000, 3072));
+        assertEquals(1, ReceiptImagePreprocessor.subsampling(3072, 3072));
+    }
+
+    @Test
+    void prepare_shouldPassSmallReceiptThroughUnchanged() throws Exception {
+        ReceiptImagePreprocessor preprocessor = new ReceiptImagePreprocessor(true, 400, 0.8f);
+        byte[] original = noisyPng(300, 200);
+
+        ReceiptImagePreprocessor.ReceiptImage prepared = preprocessor.prepare(upload(MediaType.IMAGE_PNG_VALUE, original));
+
+        assertEquals(MediaType.IMAGE_PNG_VALUE, prepared.mimeType());
+        assertArrayEquals(original, prepared.content().getInputStream().readAllBytes());
+        assertEquals(original.length, prepared.sizeBytes());
+    }
+
+    @Test
+    void prepare_shouldRejectOversizedDimensionsFromHeader() throws Exception {
+        byte[] tooWide = noisyPng(6001, 2);
+
+        AppException exception = assertThrows(AppException.class, () -> ReceiptImagePreprocessor.validationOnly()
+                .prepare(upload(MediaType.IMAGE_PNG_VALUE, tooWide)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getCode());
+        assertEquals("Receipt image dimensions are too large.", exception.getMessage());
+    }
+
+    @Test
+    void prepare_shouldRejectBytesThatAreNotAnImage() {
+        AppException exception = assertThrows(AppException.class, () -> ReceiptImagePreprocessor.validationOnly()
+                .prepare(upload(MediaType.IMAGE_JPEG_VALUE, "not an image".getBytes())));
+
+        assertEquals("Uploaded file is not a valid image.", exception.getMessage());
+    }
+
+    private static MockMultipartFile upload(String contentType, byte[] bytes) {
+        return new MockMultipartFile("file", "receipt", contentType, bytes);
+    }
+
+    private static byte[] noisyPng(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.BLACK);
+        graphics.drawString("MILK 2L 4.99", 10, 20);
+        graphics.dispose();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,108 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jakub.backendapi.dto.FridgeIngredientDto;
+import org.jakub.backendapi.entities.ReceiptScanCacheEntry;
+import org.jakub.backendapi.repositories.ReceiptScanCacheRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReceiptScanCacheTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T12:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void fingerprint_shouldMatchForIdenticalUploadsOnly() {
+        ReceiptScanCache cache = memoryCache(null);
+
+        String first = cache.fingerprint(upload(MediaType.IMAGE_JPEG_VALUE, new byte[]{1, 2, 3}));
+        String again = cache.fingerprint(upload(MediaType.IMAGE_JPEG_VALUE, new byte[]{1, 2, 3}));
+        String otherBytes = cache.fingerprint(upload(MediaType.IMAGE_JPEG_VALUE, new byte[]{1, 2, 4}));
+        String otherType = cache.fingerprint(upload(MediaType.IMAGE_PNG_VALUE, new byte[]{1, 2, 3}));
+
+        assertNotNull(first);
+        assertEquals(first, again);
+        assertNotEquals(first, otherBytes);
+        assertNotEquals(first, otherType);
+        assertNull(cache.fingerprint(upload(MediaType.IMAGE_JPEG_VALUE, new byte[0])));
+        assertNull(ReceiptScanCache.disabled().fingerprint(upload(MediaType.IMAGE_JPEG_VALUE, new byte[]{1, 2, 3})));
+    }
+
+    @Test
+    void find_shouldReturnStoredItemsAfterPut() {
+        ReceiptScanCache cache = memoryCache(null);
+        String fingerprint = cache.fingerprint(upload(MediaType.IMAGE_JPEG_VALUE, new byte[]{1, 2, 3}));
+
+        assertTrue(cache.find(fingerprint).isEmpty());
+        cache.put(fingerprint, List.of(milk()));
+
+        assertEquals(List.of(milk()), cache.find(fingerprint).orElseThrow());
+    }
+
+    @Test
+    void put_shouldPersistItemsAndFindShouldReloadThemAfterRestart() {
+        ReceiptScanCacheRepository repository = mock(ReceiptScanCacheRepository.class);
+        memoryCache(repository).put("abc", List.of(milk()));
+
+        ArgumentCaptor<ReceiptScanCacheEntry> saved = ArgumentCaptor.forClass(ReceiptScanCacheEntry.class);
+        verify(repository).save(saved.capture());
+        assertEquals(NOW, saved.getValue().getCreatedAt());
+        verify(repository).deleteByCreatedAtBefore(NOW.minus(Duration.ofHours(1)));
+
+        when(repository.findById("abc")).thenReturn(Optional.of(saved.getValue()));
+        ReceiptScanCache restarted = memoryCache(repository);
+
+        assertEquals(List.of(milk()), restarted.find("abc").orElseThrow());
+    }
+
+    @Test
+    void find_shouldIgnoreExpiredPersistedEntries() {
+        ReceiptScanCacheRepository repository = mock(ReceiptScanCacheRepository.class);
+        when(repository.findById("abc")).thenReturn(Optional.of(
+                new ReceiptScanCacheEntry("abc", "[]", NOW.minus(Duration.ofHours(2)))
+        ));
+
+        assertTrue(memoryCache(repository).find("abc").isEmpty());
+    }
+
+    private ReceiptScanCache memoryCache(ReceiptScanCacheRepository repository) {
+        return new ReceiptScanCache(
+                true,
+                10,
+                Duration.ofHours(1),
+                repository,
+                objectMapper,
+                null,
+                Clock.fixed(NOW, ZoneOffset.UTC)
+        );
+    }
+
+    private static FridgeIngredientDto milk() {
+        return new FridgeIngredientDto(null, "Milk", LocalDate.of(2026, 3, 8), 1.0, "l");
+    }
+
+    private static MockMultipartFile upload(String contentType, byte[] content) {
+        return new MockMultipartFile("file", "receipt", contentType, content);
+    }
+}
@@ -0,0 +1,128 @@
+package org.jakub.backendapi.services;
+
+import org.jakub.backendapi.dto.FridgeIngredientDto;
+import org.jakub.backendapi.dto.ReceiptScanJobDto;
+import org.jakub.backendapi.exceptions.AppException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReceiptScanJobServiceTest {
+
+    private static final ReceiptImagePreprocessor.ReceiptImage IMAGE = new ReceiptImagePreprocessor.ReceiptImage(
+            MediaType.IMAGE_JPEG_VALUE, 3, new ByteArrayResource(new byte[]{1, 2, 3})
+    );
+
+    private final GeminiService geminiService = mock(GeminiService.class);
+    private final ReceiptScanCache receiptScanCache = new ReceiptScanCache(
+            true, 10, Duration.ofHours(1), null, null, null, Clock.systemUTC()
+    );
+    private final ReceiptScanJobService jobService = new ReceiptScanJobService(
+            geminiService, receiptScanCache, 1, 1, 100, Duration.ofMinutes(5), 1_000
+    );
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void submit_shouldReturnPendingJobAndExposeResultWhenScanFinishes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<FridgeIngredientDto> items = List.of(new FridgeIngredientDto(null, "Milk", null, 1.0, "LITERS"));
+        when(geminiService.prepareDetachedReceiptScan(any())).thenReturn(IMAGE);
+        when(geminiService.extractFridgeIngredientsFromReceipt(IMAGE)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return items;
+        });
+
+        ReceiptScanJobDto submitted = jobService.submit("user@example.com", upload(), "abc");
+        assertEquals(ReceiptScanJobService.STATUS_PENDING, submitted.getStatus());
+        assertNull(submitted.getItems());
+
+        release.countDown();
+        ReceiptScanJobDto finished = awaitFinished("user@example.com", submitted.getJobId());
+
+        assertEquals(ReceiptScanJobService.STATUS_COMPLETED, finished.getStatus());
+        assertEquals(items, finished.getItems());
+        assertEquals(items, receiptScanCache.find("abc").orElseThrow());
+    }
+
+    @Test
+    void submit_shouldReportGeminiFailureOnTheJob() throws Exception {
+        when(geminiService.prepareDetachedReceiptScan(any())).thenReturn(IMAGE);
+        when(geminiService.extractFridgeIngredientsFromReceipt(IMAGE))
+                .thenThrow(new AppException("Gemini receipt scan request failed", HttpStatus.BAD_GATEWAY));
+
+        ReceiptScanJobDto submitted = jobService.submit("user@example.com", upload(), "abc");
+        ReceiptScanJobDto finished = awaitFinished("user@example.com", submitted.getJobId());
+
+        assertEquals(ReceiptScanJobService.STATUS_FAILED, finished.getStatus());
+        assertEquals("Gemini receipt scan request failed", finished.getErrorMessage());
+        assertEquals(HttpStatus.BAD_GATEWAY.value(), finished.getErrorStatus());
+        assertTrue(receiptScanCache.find("abc").isEmpty());
+    }
+
+    @Test
+    void getJob_shouldHideJobsFromOtherClients() {
+        ReceiptScanJobDto job = jobService.completed("user@example.com", List.of());
+
+        AppException exception = assertThrows(AppException.class,
+                () -> jobService.getJob("other@example.com", job.getJobId()));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getCode());
+        assertEquals(ReceiptScanJobService.STATUS_COMPLETED, jobService.getJob("user@example.com", job.getJobId()).getStatus());
+    }
+
+    @Test
+    void submit_shouldRejectWithServiceUnavailableWhenPoolAndQueueAreFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        when(geminiService.prepareDetachedReceiptScan(any())).thenReturn(IMAGE);
+        when(geminiService.extractFridgeIngredientsFromReceipt(IMAGE)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        try {
+            jobService.submit("user@example.com", upload(), null);
+            jobService.submit("user@example.com", upload(), null);
+
+            AppException exception = assertThrows(AppException.class,
+                    () -> jobService.submit("user@example.com", upload(), null));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getCode());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private ReceiptScanJobDto awaitFinished(String owner, String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        ReceiptScanJobDto job = jobService.getJob(owner, jobId);
+        while (ReceiptScanJobService.STATUS_PENDING.equals(job.getStatus()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = jobService.getJob(owner, jobId);
+        }
+        return job;
+    }
+
+    private static MockMultipartFile upload() {
+        return new MockMultipartFile("file", "receipt.jpg", MediaType.IMAGE_JPEG_VALUE, new byte[]{1, 2, 3});
+    }
+}
@@ -0,0 +1,122 @@
+package org.jakub.backendapi.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jakub.backendapi.exceptions.AppException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecipeGenerationCacheTest {
+
+    @Test
+    void getOrGenerateAsync_shouldReuseResultForNormalizedPrompt() {
+        RecipeGenerationCache cache = new RecipeGenerationCache(true, 10, Duration.ofMinutes(5), null);
+        AtomicInteger calls = new AtomicInteger();
+
+        String first = generate(cache, "Quick pasta dinner", 1, () -> "recipe-" + calls.incrementAndGet());
+        String second = generate(cache, "  quick   PASTA\ndinner ", 1, () -> "recipe-" + calls.incrementAndGet());
+
+        assertEquals("recipe-1", first);
+        assertEquals("recipe-1", second);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void getOrGenerateAsync_shouldKeySeparatelyByRecipeCount() {
+        RecipeGenerationCache cache = new RecipeGenerationCache(true, 10, Duration.ofMinutes(5), null);
+        AtomicInteger calls = new AtomicInteger();
+
+        generate(cache, "Quick pasta dinner", 1, () -> "recipe-" + calls.incrementAndGet());
+        String batch = generate(cache, "Quick pasta dinner", 3, () -> "recipe-" + calls.incrementAndGet());
+
+        assertEquals("recipe-2", batch);
+        assertNotEquals(
+                RecipeGenerationCache.cacheKey("Quick pasta dinner", 1),
+                RecipeGenerationCache.cacheKey("Quick pasta dinner", 3)
+        );
+    }
+
+    @Test
+    void getOrGenerateAsync_shouldNotCacheFailures() {
+        RecipeGenerationCache cache = new RecipeGenerationCache(true, 10, Duration.ofMinutes(5), null);
+
+        assertThrows(AppException.class, () -> generate(cache, "Quick pasta dinner", 1, () -> {
+            throw new AppException("Gemini unavailable", HttpStatus.BAD_GATEWAY);
+        }));
+
+        assertEquals("recipe", generate(cache, "Quick pasta dinner", 1, () -> "recipe"));
+    }
+
+    @Test
+    void getOrGenerateAsync_shouldShareOnePendingGenerationAndCacheItsResult() throws Exception {
+        RecipeGenerationCache cache = new RecipeGenerationCache(true, 10, Duration.ofMinutes(5), null);
+        CompletableFuture<String> generation = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> first = cache.getOrGenerateAsync("Quick pasta dinner", 1, () -> {
+            calls.incrementAndGet();
+            return generation;
+        });
+        CompletableFuture<String> second = cache.getOrGenerateAsync("quick pasta dinner", 1, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        generation.complete("recipe");
+
+        assertEquals("recipe", first.get());
+        assertEquals("recipe", second.get());
+        assertEquals("recipe", generate(cache, "Quick pasta dinner", 1, () -> "regenerated"));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void getOrGenerateAsync_shouldAlwaysGenerateWhenDisabled() {
+        RecipeGenerationCache cache = RecipeGenerationCache.disabled();
+        AtomicInteger calls = new AtomicInteger();
+
+        generate(cache, "Quick pasta dinner", 1, () -> String.valueOf(calls.incrementAndGet()));
+        generate(cache, "Quick pasta dinner", 1, () -> String.valueOf(calls.incrementAndGet()));
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void getOrGenerateAsync_shouldPublishHitAndMissMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RecipeGenerationCache cache = new RecipeGenerationCache(true, 10, Duration.ofMinutes(5), registry);
+
+        generate(cache, "Quick pasta dinner", 1, () -> "recipe");
+        generate(cache, "Quick pasta dinner", 1, () -> "recipe");
+
+        assertEquals(1.0, registry.get("cache.gets")
+                .tag("cache", RecipeGenerationCache.CACHE_NAME)
+                .tag("result", "hit")
+                .functionCounter()
+                .count());
+        assertEquals(1.0, registry.get("cache.gets")
+                .tag("cache", RecipeGenerationCache.CACHE_NAME)
+                .tag("result", "miss")
+                .functionCounter()
+                .count());
+    }
+
+    private static String generate(RecipeGenerationCache cache, String recipePrompt, int recipeCount, Supplier<String> generator) {
+        try {
+            return cache.getOrGenerateAsync(recipePrompt, recipeCount, () -> CompletableFuture.completedFuture(generator.get())).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
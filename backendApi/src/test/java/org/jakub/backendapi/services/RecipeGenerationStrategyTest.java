@@ -0,0 +1,70 @@
+package org.jakub.backendapi.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecipeGenerationStrategyTest {
+
+    @Test
+    void shouldFanOut_shouldFanOutLargeBatchesBeforeAnyLatencyIsKnown() {
+        RecipeGenerationStrategy strategy = new RecipeGenerationStrategy(RecipeGenerationStrategy.Mode.AUTO, 3, 2_000, 2);
+
+        assertFalse(strategy.shouldFanOut(1));
+        assertFalse(strategy.shouldFanOut(2));
+        assertTrue(strategy.shouldFanOut(3));
+    }
+
+    @Test
+    void shouldFanOut_shouldCompareObservedBatchLatencyWithSingleRecipeLatency() {
+        RecipeGenerationStrategy strategy = new RecipeGenerationStrategy(RecipeGenerationStrategy.Mode.AUTO, 3, 2_000, 2);
+
+        strategy.recordFanOutLeg(4_000);
+        strategy.recordSingleShot(5, 6_000);
+        assertFalse(strategy.shouldFanOut(5));
+
+        strategy.recordSingleShot(5, 30_000);
+        assertEquals(10_800, strategy.averageLatencyMillis(5));
+        assertTrue(strategy.shouldFanOut(5));
+    }
+
+    @Test
+    void shouldFanOut_shouldEstimateUnobservedBatchSizesFromSingleRecipeLatency() {
+        RecipeGenerationStrategy strategy = new RecipeGenerationStrategy(RecipeGenerationStrategy.Mode.AUTO, 3, 2_000, 2);
+        RecipeGenerationStrategy demanding = new RecipeGenerationStrategy(RecipeGenerationStrategy.Mode.AUTO, 3, 5_000, 2);
+
+        strategy.recordSingleShot(1, 1_000);
+        demanding.recordFanOutLeg(1_000);
+
+        assertTrue(strategy.shouldFanOut(4));
+        assertFalse(demanding.shouldFanOut(4));
+    }
+
+    @Test
+    void shouldFanOut_shouldPeriodicallySendOneBatchAndSwitchBackWhenItIsFastEnough() {
+        RecipeGenerationStrategy strategy = new RecipeGenerationStrategy(RecipeGenerationStrategy.Mode.AUTO, 3, 2_000, 2, 4);
+        strategy.recordFanOutLeg(1_000);
+
+        assertTrue(strategy.shouldFanOut(4));
+        assertTrue(strategy.shouldFanOut(4));
+        assertTrue(strategy.shouldFanOut(4));
+        assertFalse(strategy.shouldFanOut(4));
+
+        strategy.recordSingleShot(4, 2_500);
+        for (int i = 0; i < 8; i++) {
+            assertFalse(strategy.shouldFanOut(4));
+        }
+    }
+
+    @Test
+    void shouldFanOut_shouldHonourFixedModes() {
+        RecipeGenerationStrategy fanOut = new RecipeGenerationStrategy(RecipeGenerationStrategy.Mode.FAN_OUT, 3, 2_000, 2);
+        fanOut.recordSingleShot(2, 1);
+
+        assertTrue(fanOut.shouldFanOut(2));
+        assertFalse(fanOut.shouldFanOut(1));
+        assertFalse(RecipeGenerationStrategy.singleShot().shouldFanOut(5));
+    }
+}
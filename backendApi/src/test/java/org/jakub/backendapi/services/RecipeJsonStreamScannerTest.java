@@ -0,0 +1,37 @@
+package org.jakub.backendapi.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecipeJsonStreamScannerTest {
+
+    @Test
+    void append_shouldEmitEachBatchRecipeOnceItCloses() {
+        RecipeJsonStreamScanner scanner = new RecipeJsonStreamScanner(3);
+        List<String> completed = new ArrayList<>();
+
+        completed.addAll(scanner.append("{\"recipes\":[{\"name\":\"Pasta\",\"ingredients\":[{\"name\":\"pa"));
+        assertEquals(List.of(), completed);
+
+        completed.addAll(scanner.append("sta\"}]},{\"name\":\"Soup\"}"));
+        completed.addAll(scanner.append("]}"));
+
+        assertEquals(List.of(
+                "{\"name\":\"Pasta\",\"ingredients\":[{\"name\":\"pasta\"}]}",
+                "{\"name\":\"Soup\"}"
+        ), completed);
+    }
+
+    @Test
+    void append_shouldIgnoreBracesInsideStrings() {
+        RecipeJsonStreamScanner scanner = new RecipeJsonStreamScanner(1);
+
+        List<String> completed = scanner.append("```json\n{\"name\":\"Curly {brace} \\\"stew\\\"\"}\n```");
+
+        assertEquals(List.of("{\"name\":\"Curly {brace} \\\"stew\\\"\"}"), completed);
+    }
+}
@@ -0,0 +1,66 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jakub.backendapi.exceptions.AppException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecipeJsonValidatorTest {
+
+    private static final String RECIPE_JSON = """
+            {"name":"Pasta","description":"Quick pasta","timeToPrepare":"20 min",\
+            "ingredients":[{"name":"pasta","amount":200,"unit":"GRAMS","note":{"optional":true}}],\
+            "instructions":["Boil the pasta"],\
+            "nutrition":{"calories":500,"protein":20.5,"carbs":80,"fats":10},"tags":["quick"]}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RecipeJsonValidator validator = new RecipeJsonValidator(objectMapper);
+
+    @Test
+    void validate_shouldReEmitTheSameJsonAsTheTreeValidator() throws Exception {
+        String batch = "{\n  \"recipes\": [" + RECIPE_JSON + ",\n " + RECIPE_JSON + "],\n  \"source\": \"gemini\"\n}";
+
+        assertEquals(validator.validateTree(RECIPE_JSON, 1), validator.validate(RECIPE_JSON, 1));
+        assertEquals(validator.validateTree(batch, 2), validator.validate(batch, 2));
+        assertEquals(objectMapper.readTree(batch), objectMapper.readTree(validator.validate(batch, 2)));
+    }
+
+    @Test
+    void validate_shouldRejectWhatTheTreeValidatorRejects() {
+        List<String> invalidPayloads = List.of(
+                "",
+                "[]",
+                "{\"name\":\"Pasta\"",
+                RECIPE_JSON.replace("\"name\":\"Pasta\"", "\"name\":\" \""),
+                RECIPE_JSON.replace("\"amount\":200", "\"amount\":\"200\""),
+                RECIPE_JSON.replace("\"instructions\":[\"Boil the pasta\"]", "\"instructions\":[]"),
+                RECIPE_JSON.replace("\"instructions\":[\"Boil the pasta\"]", "\"instructions\":[\"Boil\",1]"),
+                RECIPE_JSON.replace(",\"fats\":10", ""),
+                RECIPE_JSON.replace("\"timeToPrepare\":\"20 min\",", "")
+        );
+
+        for (String payload : invalidPayloads) {
+            assertInvalid(() -> validator.validateTree(payload, 1));
+            assertInvalid(() -> validator.validate(payload, 1));
+        }
+    }
+
+    @Test
+    void validate_shouldRequireTheExactRecipeCountInBatches() {
+        String batch = "{\"recipes\":[" + RECIPE_JSON + "," + RECIPE_JSON + "]}";
+
+        assertInvalid(() -> validator.validate(batch, 3));
+        assertInvalid(() -> validator.validate(batch, 1));
+        assertInvalid(() -> validator.validate("{\"items\":[" + RECIPE_JSON + "]}", 2));
+    }
+
+    private static void assertInvalid(Runnable validation) {
+        AppException exception = assertThrows(AppException.class, validation::run);
+        assertEquals(HttpStatus.BAD_GATEWAY, exception.getCode());
+    }
+}
@@ -0,0 +1,160 @@
+package org.jakub.backendapi.services;
+
+import org.jakub.backendapi.entities.RecipePoolEntry;
+import org.jakub.backendapi.exceptions.AppException;
+import org.jakub.backendapi.repositories.RecipePoolEntryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecipePoolServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T03:00:00Z");
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    @Mock
+    private RecipePoolEntryRepository repository;
+
+    @Mock
+    private GeminiService geminiService;
+
+    @Test
+    void takeServesLeastServedFreshBatchAndCountsTheServe() {
+        RecipePoolService pool = pool(true, 100_000);
+        RecipePoolEntry entry = new RecipePoolEntry("key", 2, "{\"recipes\":[]}", NOW.minusSeconds(60));
+        entry.setId(7L);
+        when(repository.findFirstByPromptKeyAndRecipeCountAndCreatedAtAfterAndServedCountLessThanOrderByServedCountAscCreatedAtDesc(
+                RecipeGenerationCache.cacheKey("pasta", 2), 2, NOW.minus(Duration.ofHours(24)), 3))
+                .thenReturn(Optional.of(entry));
+        when(repository.incrementServedCount(7L, 3)).thenReturn(1);
+
+        Optional<String> served = pool.take("pasta", 2);
+
+        assertEquals(Optional.of("{\"recipes\":[]}"), served);
+        verify(repository).incrementServedCount(7L, 3);
+        verify(repository, never()).save(any(RecipePoolEntry.class));
+    }
+
+    @Test
+    void takeMovesOnWhenAnotherRequestUsedUpTheBatchFirst() {
+        RecipePoolService pool = pool(true, 100_000);
+        RecipePoolEntry usedUp = new RecipePoolEntry("key", 2, "{\"recipes\":[\"first\"]}", NOW.minusSeconds(60));
+        usedUp.setId(7L);
+        RecipePoolEntry next = new RecipePoolEntry("key", 2, "{\"recipes\":[\"second\"]}", NOW.minusSeconds(120));
+        next.setId(8L);
+        when(repository.findFirstByPromptKeyAndRecipeCountAndCreatedAtAfterAndServedCountLessThanOrderByServedCountAscCreatedAtDesc(
+                RecipeGenerationCache.cacheKey("pasta", 2), 2, NOW.minus(Duration.ofHours(24)), 3))
+                .thenReturn(Optional.of(usedUp), Optional.of(next));
+        when(repository.incrementServedCount(7L, 3)).thenReturn(0);
+        when(repository.incrementServedCount(8L, 3)).thenReturn(1);
+
+        Optional<String> served = pool.take("pasta", 2);
+
+        assertEquals(Optional.of("{\"recipes\":[\"second\"]}"), served);
+    }
+
+    @Test
+    void refillGeneratesMissingBatchesForPopularPromptsOnly() {
+        RecipePoolService pool = pool(true, 100_000);
+        for (int request = 0; request < 3; request++) {
+            pool.recordRequest("pasta", 1);
+        }
+        pool.recordRequest("soup", 1);
+        String pastaKey = RecipeGenerationCache.cacheKey("pasta", 1);
+        when(repository.countByPromptKeyAndRecipeCountAndCreatedAtAfterAndServedCountLessThan(eq(pastaKey), eq(1), any(), eq(3)))
+                .thenReturn(1L);
+        when(geminiService.generateRecipesWithUsage("pasta", 1))
+                .thenReturn(new GeminiService.GeneratedRecipes("{\"name\":\"Pasta\"}", 1_200));
+
+        pool.refill();
+
+        verify(repository).deleteRetired(NOW.minus(Duration.ofHours(24)), 3);
+        verify(geminiService, times(2)).generateRecipesWithUsage("pasta", 1);
+        verify(geminiService, never()).generateRecipesWithUsage(eq("soup"), anyInt());
+        ArgumentCaptor<RecipePoolEntry> saved = ArgumentCaptor.forClass(RecipePoolEntry.class);
+        verify(repository, times(2)).save(saved.capture());
+        assertTrue(saved.getAllValues().stream().allMatch(entry ->
+                pastaKey.equals(entry.getPromptKey()) && NOW.equals(entry.getCreatedAt())));
+    }
+
+    @Test
+    void refillStopsAtTheDailyTokenBudget() {
+        RecipePoolService pool = pool(true, 3_000);
+        for (int request = 0; request < 3; request++) {
+            pool.recordRequest("pasta", 1);
+        }
+        when(geminiService.generateRecipesWithUsage("pasta", 1))
+                .thenReturn(new GeminiService.GeneratedRecipes("{\"name\":\"Pasta\"}", 2_000));
+
+        pool.refill();
+
+        verify(geminiService, times(1)).generateRecipesWithUsage("pasta", 1);
+        verify(repository, times(1)).save(any(RecipePoolEntry.class));
+    }
+
+    @Test
+    void refillStopsWhenGeminiIsUnavailable() {
+        RecipePoolService pool = pool(true, 100_000);
+        for (int request = 0; request < 3; request++) {
+            pool.recordRequest("pasta", 1);
+            pool.recordRequest("soup", 1);
+        }
+        when(geminiService.generateRecipesWithUsage(anyString(), eq(1)))
+                .thenThrow(new AppException("busy", HttpStatus.SERVICE_UNAVAILABLE));
+
+        pool.refill();
+
+        verify(geminiService, times(1)).generateRecipesWithUsage(anyString(), eq(1));
+        verify(repository, never()).save(any(RecipePoolEntry.class));
+    }
+
+    @Test
+    void disabledPoolNeverTouchesRepositoryOrGemini() {
+        RecipePoolService pool = pool(false, 100_000);
+
+        pool.recordRequest("pasta", 1);
+        assertEquals(Optional.empty(), pool.take("pasta", 1));
+        pool.refill();
+
+        verifyNoInteractions(repository, geminiService);
+    }
+
+    private RecipePoolService pool(boolean enabled, long dailyTokenBudget) {
+        return new RecipePoolService(
+                enabled,
+                3,
+                20,
+                3,
+                3,
+                Duration.ofHours(24),
+                1_000,
+                dailyTokenBudget,
+                1_500,
+                repository,
+                geminiService,
+                CLOCK
+        );
+    }
+}
@@ -6,6 +6,8 @@ import org.jakub.backendapi.dto.ShoppingListGenerationItemDto;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -54,6 +56,48 @@ class ShoppingListCoverageServiceTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void findMissingItems_shouldAddUpSynonymFridgeItems() {
+        ShoppingListCoverageService coverageService = new ShoppingListCoverageService(
+                new IngredientSynonymIndex(List.of(List.of("scallion", "green onion")), 0, null)
+        );
+
+        List<ShoppingListGenerationItemDto> result = coverageService.findMissingItems(
+                List.of(recipe("Green onion", 4, "pcs")),
+                List.of(fridge("scallion", 1d, "PIECES"), fridge("green onion", 2d, "PIECES"))
+        );
+
+        assertEquals(List.of(new ShoppingListGenerationItemDto("Green onion", 1d, "pcs")), result);
+    }
+
+    @Test
+    void recordReview_shouldSettleReviewedPairsForTheNextGeneration() {
+        ShoppingListCoverageService coverageService = new ShoppingListCoverageService(
+                new IngredientSynonymIndex(List.of(), 100, null)
+        );
+        List<FridgeIngredientDto> fridgeItems = List.of(fridge("wild garlic", null, null), fridge("leek", null, null));
+        List<ShoppingListGenerationItemDto> candidates = List.of(
+                new ShoppingListGenerationItemDto("Ramps", 1d, "pcs"),
+                new ShoppingListGenerationItemDto("Shallot", 2d, "pcs")
+        );
+
+        assertEquals(candidates, coverageService.findItemsNeedingReview(candidates, fridgeItems));
+        coverageService.recordReview("anna@example.com", candidates, fridgeItems, Set.of("shallot"), Map.of("ramps", "wild garlic"));
+
+        // Shallot is settled as distinct, but one user's review does not yet make ramps and wild garlic equivalent.
+        assertEquals(
+                List.of(new ShoppingListGenerationItemDto("Ramps", 1d, "pcs")),
+                coverageService.findItemsNeedingReview(candidates, fridgeItems)
+        );
+        coverageService.recordReview("ben@example.com", candidates.subList(0, 1), fridgeItems, Set.of(), Map.of("ramps", "wild garlic"));
+
+        assertTrue(coverageService.findItemsNeedingReview(candidates, fridgeItems).isEmpty());
+        assertEquals(
+                List.of(new ShoppingListGenerationItemDto("Shallot", 2d, "pcs")),
+                coverageService.findMissingItems(List.of(recipe("Ramps", 1, "pcs"), recipe("Shallot", 2, "pcs")), fridgeItems)
+        );
+    }
+
     private RecipeIngredientDto recipe(String name, double amount, String unit) {
         return new RecipeIngredientDto(name, amount, unit);
     }
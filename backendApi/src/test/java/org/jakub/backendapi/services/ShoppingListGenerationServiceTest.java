@@ -11,16 +11,26 @@ import org.jakub.backendapi.repositories.FridgeIngredientRepository;
 import org.jakub.backendapi.repositories.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,15 +42,18 @@ class ShoppingListGenerationServiceTest {
     @Mock
     private FridgeIngredientRepository fridgeIngredientRepository;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @Test
     void generateMissingItems_shouldLetAiRemoveFuzzyMatches() {
         ShoppingListGenerationService shoppingListGenerationService = createService(new GeminiService(new ObjectMapper()) {
             @Override
-            public Set<String> resolveStillMissingIngredientNames(
+            public ShoppingListReview reviewMissingIngredients(
                     List<ShoppingListGenerationItemDto> candidateMissingIngredients,
                     List<FridgeIngredientDto> fridgeItems
             ) {
-                return Set.of();
+                return new ShoppingListReview(Set.of(), Map.of("green onion", "scallion"));
             }
         });
 
@@ -61,7 +74,7 @@ class ShoppingListGenerationServiceTest {
     void generateMissingItems_shouldFallbackToDeterministicResultWhenAiFails() {
         ShoppingListGenerationService shoppingListGenerationService = createService(new GeminiService(new ObjectMapper()) {
             @Override
-            public Set<String> resolveStillMissingIngredientNames(
+            public ShoppingListReview reviewMissingIngredients(
                     List<ShoppingListGenerationItemDto> candidateMissingIngredients,
                     List<FridgeIngredientDto> fridgeItems
             ) {
@@ -71,7 +84,29 @@ class ShoppingListGenerationServiceTest {
 
         User user = user(9L);
         when(userRepository.findByEmail("cook@example.com")).thenReturn(Optional.of(user));
-        when(fridgeIngredientRepository.findByUser_Id(9L)).thenReturn(List.of());
+        when(fridgeIngredientRepository.findByUser_Id(9L))
+                .thenReturn(List.of(fridge("leek", 1d, Unit.PIECES, user)));
+
+        List<ShoppingListGenerationItemDto> result = shoppingListGenerationService.generateMissingItems(
+                "cook@example.com",
+                List.of(new org.jakub.backendapi.dto.RecipeIngredientDto("Green onion", 2, "pcs"))
+        );
+
+        assertEquals(List.of(new ShoppingListGenerationItemDto("Green onion", 2d, "pcs")), result);
+    }
+
+    @Test
+    void generateMissingItems_shouldFinishReadTransactionBeforeCallingAi() {
+        GeminiService geminiService = mock(GeminiService.class);
+        ShoppingListGenerationService shoppingListGenerationService = createService(geminiService);
+
+        User user = user(11L);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userRepository.findByEmail("cook@example.com")).thenReturn(Optional.of(user));
+        when(fridgeIngredientRepository.findByUser_Id(11L))
+                .thenReturn(List.of(fridge("leek", 1d, Unit.PIECES, user)));
+        when(geminiService.reviewMissingIngredients(anyList(), anyList()))
+                .thenReturn(new GeminiService.ShoppingListReview(Set.of("green onion"), Map.of()));
 
         List<ShoppingListGenerationItemDto> result = shoppingListGenerationService.generateMissingItems(
                 "cook@example.com",
@@ -79,6 +114,42 @@ class ShoppingListGenerationServiceTest {
         );
 
         assertEquals(List.of(new ShoppingListGenerationItemDto("Green onion", 2d, "pcs")), result);
+
+        InOrder order = inOrder(transactionManager, userRepository, fridgeIngredientRepository, geminiService);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(userRepository).findByEmail("cook@example.com");
+        order.verify(fridgeIngredientRepository).findByUser_Id(11L);
+        order.verify(transactionManager).commit(any());
+        order.verify(geminiService).reviewMissingIngredients(anyList(), anyList());
+        verifyNoMoreInteractions(transactionManager);
+    }
+
+    @Test
+    void generateMissingItems_shouldSkipAiWhenSynonymIndexDecidesEveryItem() {
+        GeminiService geminiService = mock(GeminiService.class);
+        IngredientSynonymIndex synonymIndex = new IngredientSynonymIndex(
+                List.of(List.of("scallion", "green onion"), List.of("leek")),
+                0,
+                null
+        );
+        ShoppingListGenerationService shoppingListGenerationService =
+                createService(geminiService, new ShoppingListCoverageService(synonymIndex));
+
+        User user = user(13L);
+        when(userRepository.findByEmail("cook@example.com")).thenReturn(Optional.of(user));
+        when(fridgeIngredientRepository.findByUser_Id(13L))
+                .thenReturn(List.of(fridge("scallion", 2d, Unit.PIECES, user), fridge("leek", 1d, Unit.PIECES, user)));
+
+        List<ShoppingListGenerationItemDto> result = shoppingListGenerationService.generateMissingItems(
+                "cook@example.com",
+                List.of(
+                        new org.jakub.backendapi.dto.RecipeIngredientDto("Green onion", 2, "pcs"),
+                        new org.jakub.backendapi.dto.RecipeIngredientDto("Leek", 3, "pcs")
+                )
+        );
+
+        assertEquals(List.of(new ShoppingListGenerationItemDto("Leek", 2d, "pcs")), result);
+        verifyNoInteractions(geminiService);
     }
 
     @Test
@@ -101,11 +172,20 @@ class ShoppingListGenerationServiceTest {
     }
 
     private ShoppingListGenerationService createService(GeminiService geminiService) {
+        return createService(geminiService, new ShoppingListCoverageService());
+    }
+
+    private ShoppingListGenerationService createService(
+            GeminiService geminiService,
+            ShoppingListCoverageService shoppingListCoverageService
+    ) {
         return new ShoppingListGenerationService(
                 userRepository,
                 fridgeIngredientRepository,
                 geminiService,
-                new ShoppingListCoverageService()
+                shoppingListCoverageService,
+                ShoppingListReviewCache.disabled(),
+                transactionManager
         );
     }
 
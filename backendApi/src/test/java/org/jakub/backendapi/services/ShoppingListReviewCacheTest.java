@@ -0,0 +1,124 @@
+package org.jakub.backendapi.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.jakub.backendapi.dto.FridgeIngredientDto;
+import org.jakub.backendapi.dto.ShoppingListGenerationItemDto;
+import org.jakub.backendapi.exceptions.AppException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShoppingListReviewCacheTest {
+
+    private static final List<ShoppingListGenerationItemDto> CANDIDATES = List.of(
+            new ShoppingListGenerationItemDto("Green onion", 2d, "pcs"),
+            new ShoppingListGenerationItemDto("Shallot", 1d, "pcs")
+    );
+
+    @Test
+    void getOrReview_shouldReuseReviewForSameNamesInAnyOrder() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ShoppingListReviewCache cache = new ShoppingListReviewCache(true, 10, Duration.ofMinutes(5), meterRegistry);
+        AtomicInteger reviews = new AtomicInteger();
+
+        cache.getOrReview("cook@example.com", CANDIDATES, List.of(fridge("Scallion"), fridge("leek")), () -> review(reviews));
+        GeminiService.ShoppingListReview second = cache.getOrReview(
+                "Cook@example.com",
+                List.of(new ShoppingListGenerationItemDto("shallot", 3d, "pcs"), new ShoppingListGenerationItemDto(" green onion ", 2d, "pcs")),
+                List.of(fridge("leek"), fridge("scallion")),
+                () -> review(reviews)
+        );
+
+        assertEquals(1, reviews.get());
+        assertEquals(Set.of("shallot"), second.missingIngredientNames());
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+                .tag("cache", ShoppingListReviewCache.CACHE_NAME)
+                .tag("result", "hit")
+                .functionCounter()
+                .count());
+    }
+
+    @Test
+    void invalidateUser_shouldDropOnlyThatUsersReviews() {
+        ShoppingListReviewCache cache = new ShoppingListReviewCache(true, 10, Duration.ofMinutes(5), null);
+        AtomicInteger reviews = new AtomicInteger();
+        List<FridgeIngredientDto> fridgeItems = List.of(fridge("scallion"));
+
+        cache.getOrReview("cook@example.com", CANDIDATES, fridgeItems, () -> review(reviews));
+        cache.getOrReview("other@example.com", CANDIDATES, fridgeItems, () -> review(reviews));
+        cache.invalidateUser("cook@example.com");
+        cache.getOrReview("cook@example.com", CANDIDATES, fridgeItems, () -> review(reviews));
+        cache.getOrReview("other@example.com", CANDIDATES, fridgeItems, () -> review(reviews));
+
+        assertEquals(3, reviews.get());
+    }
+
+    @Test
+    void getOrReview_shouldNotCacheFailures() {
+        ShoppingListReviewCache cache = new ShoppingListReviewCache(true, 10, Duration.ofMinutes(5), null);
+        AtomicInteger reviews = new AtomicInteger();
+        List<FridgeIngredientDto> fridgeItems = List.of(fridge("scallion"));
+
+        assertThrows(AppException.class, () -> cache.getOrReview("cook@example.com", CANDIDATES, fridgeItems, () -> {
+            throw new AppException("Gemini unavailable", HttpStatus.BAD_GATEWAY);
+        }));
+        cache.getOrReview("cook@example.com", CANDIDATES, fridgeItems, () -> review(reviews));
+
+        assertEquals(1, reviews.get());
+    }
+
+    @Test
+    void invalidateUser_shouldNotWaitForAReviewInProgressOrKeepItsResult() throws Exception {
+        ShoppingListReviewCache cache = new ShoppingListReviewCache(true, 10, Duration.ofMinutes(5), null);
+        AtomicInteger reviews = new AtomicInteger();
+        List<FridgeIngredientDto> fridgeItems = List.of(fridge("scallion"));
+        CountDownLatch reviewStarted = new CountDownLatch(1);
+        CountDownLatch releaseReview = new CountDownLatch(1);
+
+        CompletableFuture<GeminiService.ShoppingListReview> slowReview = CompletableFuture.supplyAsync(() ->
+                cache.getOrReview("cook@example.com", CANDIDATES, fridgeItems, () -> {
+                    reviewStarted.countDown();
+                    awaitQuietly(releaseReview);
+                    return review(reviews);
+                }));
+        assertTrue(reviewStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture.runAsync(() -> cache.invalidateUser("cook@example.com")).get(1, TimeUnit.SECONDS);
+        releaseReview.countDown();
+        slowReview.get(5, TimeUnit.SECONDS);
+        cache.getOrReview("cook@example.com", CANDIDATES, fridgeItems, () -> review(reviews));
+
+        assertEquals(2, reviews.get());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static GeminiService.ShoppingListReview review(AtomicInteger reviews) {
+        reviews.incrementAndGet();
+        return new GeminiService.ShoppingListReview(Set.of("shallot"), Map.of("green onion", "scallion"));
+    }
+
+    private static FridgeIngredientDto fridge(String name) {
+        FridgeIngredientDto dto = new FridgeIngredientDto();
+        dto.setName(name);
+        return dto;
+    }
+}
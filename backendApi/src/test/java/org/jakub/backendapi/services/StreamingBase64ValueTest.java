@@ -0,0 +1,33 @@
+package org.jakub.backendapi.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingBase64ValueTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void serialize_shouldMatchStandardBase64AndSupportRepeatedWrites() throws Exception {
+        byte[] image = new byte[100_003];
+        new Random(7).nextBytes(image);
+        Map<String, Object> inlineData = Map.of(
+                "mime_type", "image/jpeg",
+                "data", new StreamingBase64Value(new ByteArrayResource(image), image.length)
+        );
+
+        JsonNode first = objectMapper.readTree(objectMapper.writeValueAsBytes(inlineData));
+        JsonNode second = objectMapper.readTree(objectMapper.writeValueAsBytes(inlineData));
+
+        assertEquals(Base64.getEncoder().encodeToString(image), first.path("data").asText());
+        assertEquals(first, second);
+    }
+}
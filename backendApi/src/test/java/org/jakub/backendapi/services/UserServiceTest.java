@@ -1,5 +1,6 @@
 package org.jakub.backendapi.services;
 
+import org.jakub.backendapi.dto.CredentialsDto;
 import org.jakub.backendapi.dto.SignUpDto;
 import org.jakub.backendapi.dto.UserDto;
 import org.jakub.backendapi.entities.Enums.Diet;
@@ -16,10 +17,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,7 +43,7 @@ public class UserServiceTest {
 
     @BeforeEach
     void setUp() {
-        userService = new UserService(userRepository, userMapper, passwordEncoder, null);
+        userService = new UserService(userRepository, userMapper, PasswordHashingService.inline(passwordEncoder), null, UserPrincipalCache.disabled());
     }
 
     @Test
@@ -89,6 +93,40 @@ public class UserServiceTest {
         assertEquals(UserService.PRIVACY_VERSION, capturedUser.getPrivacyVersion());
     }
 
+    @Test
+    void login_shouldRehashPasswordsEncodedWithAnOlderWorkFactor() {
+        User user = new User();
+        user.setEmail("cook@example.com");
+        user.setPassword("weakHash");
+        CredentialsDto credentialsDto = new CredentialsDto("cook@example.com", "password".toCharArray());
+
+        when(userRepository.findByEmail("cook@example.com")).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(any(), any())).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("weakHash")).thenReturn(true);
+        when(passwordEncoder.encode(any())).thenReturn("strongHash");
+
+        userService.login(credentialsDto);
+
+        assertEquals("strongHash", user.getPassword());
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void login_shouldKeepCurrentHashes() {
+        User user = new User();
+        user.setEmail("cook@example.com");
+        user.setPassword("currentHash");
+        CredentialsDto credentialsDto = new CredentialsDto("cook@example.com", "password".toCharArray());
+
+        when(userRepository.findByEmail("cook@example.com")).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(any(), any())).thenReturn(true);
+
+        userService.login(credentialsDto);
+
+        assertEquals("currentHash", user.getPassword());
+        verify(userRepository, never()).save(any(User.class));
+    }
+
     @Test
     void register_shouldRejectMissingPolicyAcceptance() {
         SignUpDto signUpDto = new SignUpDto("test@example.com", "password".toCharArray(), false, true);
@@ -130,4 +168,30 @@ public class UserServiceTest {
 
         assertEquals("Cannot delete the last admin user.", exception.getMessage());
     }
+
+    @Test
+    void findPrincipalByEmail_shouldServeCachedPrincipalUntilRoleChanges() {
+        UserService cachingUserService = new UserService(userRepository, userMapper, PasswordHashingService.inline(passwordEncoder), null,
+                new UserPrincipalCache(true, 100, Duration.ofMinutes(1), null));
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("cook@example.com");
+        user.setRole(Role.USER);
+        when(userRepository.findByEmail("cook@example.com")).thenReturn(Optional.of(user));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        when(userRepository.save(user)).thenReturn(user);
+        when(userMapper.toUserDto(user)).thenAnswer(invocation -> new UserDto(user.getEmail(), user.getId(), user.getRole(), null));
+
+        cachingUserService.findPrincipalByEmail("cook@example.com");
+        UserDto cached = cachingUserService.findPrincipalByEmail("cook@example.com");
+        cached.setRole(Role.ADMIN);
+
+        assertEquals(Role.USER, cachingUserService.findPrincipalByEmail("cook@example.com").getRole());
+        verify(userRepository, times(1)).findByEmail("cook@example.com");
+
+        cachingUserService.updateUserRole(7L, Role.ADMIN);
+
+        assertEquals(Role.ADMIN, cachingUserService.findPrincipalByEmail("cook@example.com").getRole());
+        verify(userRepository, times(2)).findByEmail("cook@example.com");
+    }
 }